@@ -7,6 +7,8 @@ module net.digimonworld.decode.decode_tools {
     exports net.digimonworld.decodetools.res.payload.xtvo;
     exports net.digimonworld.decodetools.res.payload.qstm;
     exports net.digimonworld.decodetools.export.fontxml;
+    exports net.digimonworld.decodetools.export.ktx;
+    exports net.digimonworld.decodetools.export.texture;
     exports net.digimonworld.decodetools.randomizer;
     exports net.digimonworld.decodetools.gui;
     exports net.digimonworld.decodetools.core;
@@ -0,0 +1,318 @@
+package net.digimonworld.decodetools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.IntStream;
+
+/**
+ * An encoder for the ETC1 and ETC1A4 formats, producing the exact layout read by {@link PixelFormatDecoder}.
+ * <p>
+ * Blocks of 4x4 pixels are grouped into tiles of 2x2 blocks, the tiles are stored left to right, top to bottom. Each
+ * block is stored as a little endian 64-bit word, preceded by another word of 4-bit alpha values for ETC1A4. Blocks
+ * of a tile that lie outside of the image are left out, so the data has the size given by
+ * {@link PixelFormat#getDataSize(int, int)}.
+ * </p>
+ * <p>
+ * For each block both sub block orientations and both the differential and individual color modes are evaluated. The
+ * base colors are derived from the average color of a sub block and, depending on the {@link Quality}, refined by
+ * searching the surrounding quantized colors. The codeword table and modifiers are chosen to minimize the squared error.
+ * </p>
+ * {@link}https://www.khronos.org/registry/gles/extensions/OES/OES_compressed_ETC1_RGB8_texture.txt}
+ */
+public class ETC1Encoder {
+    private static final int[][] OFFSET_TABLE = PixelFormatDecoder.OFFSET_TABLE;
+    
+    // the pixel ids of the two sub blocks, for the non-flipped and flipped orientation. A pixel id is x * 4 + y.
+    private static final int[][][] SUB_BLOCKS = new int[][][] {
+            { { 0, 1, 2, 3, 4, 5, 6, 7 }, { 8, 9, 10, 11, 12, 13, 14, 15 } },
+            { { 0, 1, 4, 5, 8, 9, 12, 13 }, { 2, 3, 6, 7, 10, 11, 14, 15 } } };
+    
+    // modifier index (as in OFFSET_TABLE) to pixel index bits, as msb << 1 | lsb
+    private static final int[] MODIFIER_BITS = { 0b11, 0b10, 0b00, 0b01 };
+    
+    /**
+     * The quality of the encoding, trading speed for a more thorough search of base colors.
+     */
+    public enum Quality {
+        /** Only use the average color of each sub block. */
+        FAST(new int[][] { { 0, 0, 0 } }),
+        /** Also try the average color one quantization step brighter and darker. */
+        MEDIUM(new int[][] { { 0, 0, 0 }, { 1, 1, 1 }, { -1, -1, -1 } }),
+        /** Try every color within one quantization step in each channel around the average color. */
+        HIGH(allOffsets());
+        
+        private final int[][] offsets;
+        
+        private Quality(int[][] offsets) {
+            this.offsets = offsets;
+        }
+        
+        private static int[][] allOffsets() {
+            int[][] offsets = new int[27][];
+            int i = 0;
+            
+            // keep the unmodified average first, so it wins on ties
+            offsets[i++] = new int[] { 0, 0, 0 };
+            for (int r = -1; r <= 1; r++)
+                for (int g = -1; g <= 1; g++)
+                    for (int b = -1; b <= 1; b++)
+                        if (r != 0 || g != 0 || b != 0)
+                            offsets[i++] = new int[] { r, g, b };
+            
+            return offsets;
+        }
+    }
+    
+    private ETC1Encoder() {
+    }
+    
+    /**
+     * Encodes the given pixels into ETC1 or ETC1A4.
+     * <p>
+     * Images with a size that's not a multiple of 4 get padded by repeating their edge pixels.
+     * </p>
+     *
+     * @param pixels the ARGB pixels of the image, row by row
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param alpha whether to encode as ETC1A4, i.e. with a 4-bit alpha channel
+     * @param quality the quality to encode with
+     * @return the encoded image data
+     */
+    public static byte[] encode(int[] pixels, int width, int height, boolean alpha, Quality quality) {
+        if (pixels.length < width * height)
+            throw new IllegalArgumentException("Expected at least " + width * height + " pixels, but got " + pixels.length);
+        
+        int blocksX = (width + 3) / 4;
+        int blocksY = (height + 3) / 4;
+        
+        int blockSize = alpha ? 16 : 8;
+        byte[] data = new byte[blocksX * blocksY * blockSize];
+        
+        // every row of tiles is independent of the others, so they get encoded in parallel
+        IntStream.range(0, (blocksY + 1) / 2).parallel().forEach(tileY -> {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(tileY * 2 * blocksX * blockSize);
+            int[] block = new int[16];
+            
+            for (int tileX = 0; tileX < (blocksX + 1) / 2; tileX++)
+                for (int i = 0; i < 4; i++) {
+                    int blockX = tileX * 2 + (i & 1);
+                    int blockY = tileY * 2 + (i >> 1);
+                    if (blockX >= blocksX || blockY >= blocksY)
+                        continue;
+                    
+                    for (int x = 0; x < 4; x++)
+                        for (int y = 0; y < 4; y++) {
+                            int pixelX = Math.min(blockX * 4 + x, width - 1);
+                            int pixelY = Math.min(blockY * 4 + y, height - 1);
+                            block[x * 4 + y] = pixels[pixelY * width + pixelX];
+                        }
+                    
+                    if (alpha)
+                        buffer.putLong(encodeAlpha(block));
+                    buffer.putLong(encodeColor(block, quality));
+                }
+        });
+        
+        return data;
+    }
+    
+    /**
+     * Encodes a single 4x4 block into an ETC1 color word.
+     *
+     * @param block the ARGB pixels of the block, indexed by x * 4 + y
+     * @param quality the quality to encode with
+     * @return the ETC1 color word
+     */
+    static long encodeColor(int[] block, Quality quality) {
+        long bestWord = 0;
+        long bestError = Long.MAX_VALUE;
+        
+        for (int flip = 0; flip < 2; flip++) {
+            int[] ids1 = SUB_BLOCKS[flip][0];
+            int[] ids2 = SUB_BLOCKS[flip][1];
+            
+            // individual mode, both sub blocks are independent
+            Candidate ind1 = best(candidates(block, ids1, 4, quality));
+            Candidate ind2 = best(candidates(block, ids2, 4, quality));
+            
+            if (ind1.error + ind2.error < bestError) {
+                bestError = ind1.error + ind2.error;
+                bestWord = buildWord(block, flip, false, ind1, ind2);
+            }
+            
+            // differential mode, the second color must be within [-4, 3] of the first one
+            Candidate[] diff1 = candidates(block, ids1, 5, quality);
+            Candidate[] diff2 = candidates(block, ids2, 5, quality);
+            
+            for (Candidate c1 : diff1)
+                for (Candidate c2 : diff2) {
+                    if (c1.error + c2.error >= bestError || !isValidDifference(c1, c2))
+                        continue;
+                    
+                    bestError = c1.error + c2.error;
+                    bestWord = buildWord(block, flip, true, c1, c2);
+                }
+        }
+        
+        return bestWord;
+    }
+    
+    /**
+     * Encodes the alpha channel of a single 4x4 block into an ETC1A4 alpha word.
+     *
+     * @param block the ARGB pixels of the block, indexed by x * 4 + y
+     * @return the alpha word
+     */
+    static long encodeAlpha(int[] block) {
+        long word = 0;
+        
+        for (int id = 0; id < 16; id++)
+            word |= (long) (((block[id] >>> 24) + 8) / 17) << (id * 4);
+        
+        return word;
+    }
+    
+    private static Candidate best(Candidate[] candidates) {
+        Candidate best = candidates[0];
+        for (Candidate c : candidates)
+            if (c.error < best.error)
+                best = c;
+        
+        return best;
+    }
+    
+    private static boolean isValidDifference(Candidate c1, Candidate c2) {
+        for (int i = 0; i < 3; i++) {
+            int diff = c2.color[i] - c1.color[i];
+            if (diff < -4 || diff > 3)
+                return false;
+        }
+        
+        return true;
+    }
+    
+    /*
+     * Builds the base color candidates for a sub block, quantized to the given number of bits, each paired with its best
+     * codeword table.
+     */
+    private static Candidate[] candidates(int[] block, int[] ids, int bits, Quality quality) {
+        int max = (1 << bits) - 1;
+        int[] average = new int[3];
+        
+        for (int id : ids)
+            for (int i = 0; i < 3; i++)
+                average[i] += channel(block[id], i);
+        
+        Candidate[] candidates = new Candidate[quality.offsets.length];
+        for (int j = 0; j < candidates.length; j++) {
+            int[] color = new int[3];
+            for (int i = 0; i < 3; i++) {
+                int quantized = (average[i] * max + 255 * ids.length / 2) / (255 * ids.length);
+                color[i] = Math.max(0, Math.min(max, quantized + quality.offsets[j][i]));
+            }
+            
+            candidates[j] = new Candidate(block, ids, color, bits);
+        }
+        
+        return candidates;
+    }
+    
+    private static long buildWord(int[] block, int flip, boolean differential, Candidate c1, Candidate c2) {
+        long word = 0;
+        
+        for (int i = 0; i < 3; i++) {
+            int shift = 59 - i * 8; // R, G and B start at bit 59, 51 and 43 respectively
+            
+            if (differential) {
+                word |= (long) c1.color[i] << shift;
+                word |= (long) ((c2.color[i] - c1.color[i]) & 0x7) << (shift - 3);
+            }
+            else {
+                word |= (long) c1.color[i] << (shift + 1);
+                word |= (long) c2.color[i] << (shift - 3);
+            }
+        }
+        
+        word |= (long) c1.table << 37;
+        word |= (long) c2.table << 34;
+        word |= (differential ? 1L : 0L) << 33;
+        word |= (long) flip << 32;
+        
+        word |= modifierBits(block, SUB_BLOCKS[flip][0], c1);
+        word |= modifierBits(block, SUB_BLOCKS[flip][1], c2);
+        
+        return word;
+    }
+    
+    private static long modifierBits(int[] block, int[] ids, Candidate candidate) {
+        long bits = 0;
+        
+        for (int id : ids) {
+            int modifier = bestModifier(block[id], candidate.expanded, OFFSET_TABLE[candidate.table]);
+            bits |= (long) (MODIFIER_BITS[modifier] >>> 1) << (16 + id);
+            bits |= (long) (MODIFIER_BITS[modifier] & 1) << id;
+        }
+        
+        return bits;
+    }
+    
+    private static int bestModifier(int pixel, int[] base, int[] table) {
+        int best = 0;
+        int bestError = Integer.MAX_VALUE;
+        
+        for (int k = 0; k < 4; k++) {
+            int error = pixelError(pixel, base, table[k]);
+            if (error < bestError) {
+                bestError = error;
+                best = k;
+            }
+        }
+        
+        return best;
+    }
+    
+    private static int pixelError(int pixel, int[] base, int modifier) {
+        int error = 0;
+        for (int i = 0; i < 3; i++) {
+            int diff = Math.max(0, Math.min(255, base[i] + modifier)) - channel(pixel, i);
+            error += diff * diff;
+        }
+        
+        return error;
+    }
+    
+    private static int channel(int pixel, int channel) {
+        return (pixel >>> (16 - channel * 8)) & 0xFF;
+    }
+    
+    /*
+     * A quantized base color for a sub block, together with the best codeword table for it and the resulting error.
+     */
+    private static class Candidate {
+        private final int[] color;
+        private final int[] expanded = new int[3];
+        private int table;
+        private long error = Long.MAX_VALUE;
+        
+        public Candidate(int[] block, int[] ids, int[] color, int bits) {
+            this.color = color;
+            
+            for (int i = 0; i < 3; i++)
+                expanded[i] = bits == 5 ? (color[i] << 3) | (color[i] >>> 2) : (color[i] << 4) | color[i];
+            
+            for (int t = 0; t < OFFSET_TABLE.length; t++) {
+                long tableError = 0;
+                for (int id : ids)
+                    tableError += pixelError(block[id], expanded, OFFSET_TABLE[t][bestModifier(block[id], expanded, OFFSET_TABLE[t])]);
+                
+                if (tableError < error) {
+                    error = tableError;
+                    table = t;
+                }
+            }
+        }
+    }
+}
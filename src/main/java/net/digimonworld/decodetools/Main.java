@@ -4,16 +4,21 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import net.digimonworld.decodetools.arcv.ARCVFile;
 import net.digimonworld.decodetools.arcv.VCRAFile;
 import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.export.texture.TextureBatch;
 import net.digimonworld.decodetools.gui.JLogWindow;
 import net.digimonworld.decodetools.gui.MainWindow;
-import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResIndex;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.ResSkeleton;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
 
 //TODO store settings and preferences
 public class Main {
@@ -24,7 +29,7 @@ public class Main {
     }
     
     public static void main(String[] args) throws IOException {
-        if (args.length == 3) {
+        if (args.length >= 3) {
             if ("rebuild".equalsIgnoreCase(args[0])) {
                 File input = new File(args[1]);
                 File output = new File(args[2]);
@@ -37,8 +42,17 @@ public class Main {
                 if (!output.isDirectory())
                     output.mkdirs();
                 
+                int threads = Runtime.getRuntime().availableProcessors();
+                boolean incremental = false;
+                for (int i = 3; i < args.length; i++) {
+                    if ("--incremental".equalsIgnoreCase(args[i]))
+                        incremental = true;
+                    else
+                        threads = Integer.parseInt(args[i]);
+                }
+                
                 ARCVFile arcv = new ARCVFile(input, true);
-                arcv.saveFiles(output);
+                arcv.saveFiles(output, threads, incremental);
             }
             else if ("unpack".equalsIgnoreCase(args[0])) {
                 File input = new File(args[1]); // folder with ARCVINFO.BIN and ARCV0.BIN
@@ -54,9 +68,59 @@ public class Main {
                     return;
                 }
                 
+                int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+                
                 try (Access access = new FileAccess(new File(input, "ARCVINFO.BIN"))) {
                     VCRAFile info = new VCRAFile(access);
-                    info.extractARCV(new File(input, "ARCV0.BIN").toPath(), output.toPath());
+                    info.extractARCV(new File(input, "ARCV0.BIN").toPath(), output.toPath(), threads, (handled, total) -> {
+                        if (handled % 1000 == 0 || handled.equals(total))
+                            LOGGER.info(() -> String.format("Extracted %d of %d files.", handled, total));
+                    });
+                }
+            }
+            else if ("export-textures".equalsIgnoreCase(args[0])) {
+                File input = new File(args[1]); // folder with .res files
+                File output = new File(args[2]); // folder to write the PNGs and manifest into
+                
+                if (!input.isDirectory()) {
+                    LOGGER.severe("The input value must be a directory.");
+                    return;
+                }
+                
+                int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+                TextureBatch.exportTextures(input, output, threads);
+            }
+            else if ("import-textures".equalsIgnoreCase(args[0]) && args.length >= 4) {
+                File textures = new File(args[1]); // folder with the PNGs and manifest
+                File input = new File(args[2]); // folder with the original .res files
+                File output = new File(args[3]); // folder to write changed .res files into
+                
+                if (!textures.isDirectory() || !input.isDirectory()) {
+                    LOGGER.severe("The texture and input values must be directories.");
+                    return;
+                }
+                
+                int threads = args.length >= 5 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+                TextureBatch.importTextures(textures, input, output, threads);
+            }
+            else if ("find-type".equalsIgnoreCase(args[0])) {
+                File input = new File(args[1]); // folder with .res files
+                
+                if (!input.isDirectory()) {
+                    LOGGER.severe("The input value must be a directory.");
+                    return;
+                }
+                
+                ResIndex index = ResIndex.update(input, Runtime.getRuntime().availableProcessors());
+                for (int i = 2; i < args.length; i++) {
+                    String type = args[i].toUpperCase();
+                    
+                    if (Arrays.stream(Payload.values()).anyMatch(a -> a.name().equals(type)))
+                        index.getFiles(Payload.valueOf(type)).forEach(System.out::println);
+                    else if (Arrays.stream(KCAPType.values()).anyMatch(a -> a.name().equals(type)))
+                        index.getFiles(KCAPType.valueOf(type)).forEach(System.out::println);
+                    else
+                        LOGGER.severe(() -> "Unknown type " + type);
                 }
             }
         }
@@ -69,8 +133,8 @@ public class Main {
             if (!Files.isRegularFile(a))
                 return;
             
-            try (FileAccess access = new FileAccess(a.toFile(), true)) {
-                if (!ResPayload.craft(access).getElementsWithType(Payload.PADH).isEmpty())
+            try (Access access = new MappedAccess(a.toFile())) {
+                if (ResSkeleton.read(access).contains(Payload.PADH))
                     System.out.println(a + " has PADH");
             }
             catch (IOException e) {
@@ -0,0 +1,209 @@
+package net.digimonworld.decodetools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates mipmap chains and resized versions of images.
+ * <p>
+ * All operations work on the ARGB pixels of the image, without premultiplying alpha. Resizing uses a separable tent
+ * filter, so each pass only touches one dimension of the image.
+ * </p>
+ */
+public class Mipmaps {
+    private Mipmaps() {
+    }
+    
+    /**
+     * Generates the mipmap chain of the given image, starting with the image itself. Every level has half the size of
+     * the previous one, until either dimension would get smaller than the given minimum.
+     *
+     * @param image the image to generate the chain for
+     * @param minSize the minimum width and height of a level
+     * @param maxLevels the maximum number of levels, including the image itself
+     * @return the mipmap chain
+     */
+    public static List<BufferedImage> generate(BufferedImage image, int minSize, int maxLevels) {
+        List<BufferedImage> levels = new ArrayList<>();
+        levels.add(image);
+        
+        BufferedImage current = image;
+        while (levels.size() < maxLevels && current.getWidth() / 2 >= minSize && current.getHeight() / 2 >= minSize) {
+            current = downsample(current);
+            levels.add(current);
+        }
+        
+        return levels;
+    }
+    
+    /**
+     * Gets the number of levels a full mipmap chain of an image with the given size has.
+     *
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param minSize the minimum width and height of a level
+     * @return the number of levels
+     */
+    public static int getLevelCount(int width, int height, int minSize) {
+        int levels = 1;
+        
+        while (width / 2 >= minSize && height / 2 >= minSize) {
+            width /= 2;
+            height /= 2;
+            levels++;
+        }
+        
+        return levels;
+    }
+    
+    /**
+     * Halves the size of the given image by averaging every 2x2 block of pixels.
+     *
+     * @param image the image to downsample
+     * @return a new image with half the width and height, but at least 1x1
+     */
+    public static BufferedImage downsample(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int newWidth = Math.max(1, width / 2);
+        int newHeight = Math.max(1, height / 2);
+        
+        int[] src = getPixels(image);
+        BufferedImage result = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] dst = getBackingArray(result);
+        
+        for (int y = 0; y < newHeight; y++)
+            for (int x = 0; x < newWidth; x++) {
+                int x0 = Math.min(x * 2, width - 1);
+                int x1 = Math.min(x * 2 + 1, width - 1);
+                int y0 = Math.min(y * 2, height - 1) * width;
+                int y1 = Math.min(y * 2 + 1, height - 1) * width;
+                
+                dst[y * newWidth + x] = average(src[y0 + x0], src[y0 + x1], src[y1 + x0], src[y1 + x1]);
+            }
+        
+        return result;
+    }
+    
+    /**
+     * Resizes the given image to an arbitrary size, using a separable tent filter. When shrinking the filter gets
+     * widened to cover all source pixels, so it doesn't alias.
+     *
+     * @param image the image to resize
+     * @param width the new width
+     * @param height the new height
+     * @return a new, resized image
+     */
+    public static BufferedImage resize(BufferedImage image, int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Can't resize an image to " + width + "x" + height);
+        
+        int srcWidth = image.getWidth();
+        int srcHeight = image.getHeight();
+        
+        int[] horizontal = new int[width * srcHeight];
+        resample(getPixels(image), horizontal, srcWidth, width, srcHeight, 1, srcWidth, 1, width);
+        
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        resample(horizontal, getBackingArray(result), srcHeight, height, width, width, 1, width, 1);
+        
+        return result;
+    }
+    
+    /**
+     * Shrinks the given image so neither dimension exceeds the given size, keeping its aspect ratio. Images that are
+     * already small enough are returned as is.
+     *
+     * @param image the image to shrink
+     * @param maxSize the maximum width and height
+     * @return the shrunk image
+     */
+    public static BufferedImage thumbnail(BufferedImage image, int maxSize) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        
+        if (width <= maxSize && height <= maxSize)
+            return image;
+        
+        // halve first, that's cheaper than a wide filter and gives the same result
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= maxSize && current.getHeight() / 2 >= maxSize)
+            current = downsample(current);
+        
+        double scale = Math.min((double) maxSize / current.getWidth(), (double) maxSize / current.getHeight());
+        int newWidth = Math.max(1, (int) Math.round(current.getWidth() * scale));
+        int newHeight = Math.max(1, (int) Math.round(current.getHeight() * scale));
+        
+        return resize(current, newWidth, newHeight);
+    }
+    
+    /*
+     * Resamples the lines of the source along one axis. Lines are srcLength pixels long in the source and dstLength in
+     * the destination, the strides define how pixels and lines are laid out in both arrays.
+     */
+    private static void resample(int[] src, int[] dst, int srcLength, int dstLength, int lines, int srcPixelStride,
+                                 int srcLineStride, int dstPixelStride, int dstLineStride) {
+        double scale = (double) srcLength / dstLength;
+        double radius = Math.max(1.0, scale);
+        
+        for (int i = 0; i < dstLength; i++) {
+            double center = (i + 0.5) * scale - 0.5;
+            int start = Math.max(0, (int) Math.floor(center - radius + 1));
+            int end = Math.min(srcLength - 1, (int) Math.ceil(center + radius - 1));
+            
+            double[] weights = new double[end - start + 1];
+            double total = 0;
+            for (int j = start; j <= end; j++) {
+                weights[j - start] = Math.max(0, 1 - Math.abs(j - center) / radius);
+                total += weights[j - start];
+            }
+            
+            for (int line = 0; line < lines; line++) {
+                double a = 0;
+                double r = 0;
+                double g = 0;
+                double b = 0;
+                
+                for (int j = start; j <= end; j++) {
+                    int pixel = src[line * srcLineStride + j * srcPixelStride];
+                    double weight = weights[j - start];
+                    a += (pixel >>> 24) * weight;
+                    r += ((pixel >>> 16) & 0xFF) * weight;
+                    g += ((pixel >>> 8) & 0xFF) * weight;
+                    b += (pixel & 0xFF) * weight;
+                }
+                
+                dst[line * dstLineStride + i * dstPixelStride] = toPixel(a / total, r / total, g / total, b / total);
+            }
+        }
+    }
+    
+    private static int average(int p0, int p1, int p2, int p3) {
+        int result = 0;
+        
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = ((p0 >>> shift) & 0xFF) + ((p1 >>> shift) & 0xFF) + ((p2 >>> shift) & 0xFF) + ((p3 >>> shift) & 0xFF);
+            result |= ((sum + 2) / 4) << shift;
+        }
+        
+        return result;
+    }
+    
+    private static int toPixel(double a, double r, double g, double b) {
+        return clamp(a) << 24 | clamp(r) << 16 | clamp(g) << 8 | clamp(b);
+    }
+    
+    private static int clamp(double value) {
+        return Math.max(0, Math.min(255, (int) Math.round(value)));
+    }
+    
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+    
+    private static int[] getBackingArray(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
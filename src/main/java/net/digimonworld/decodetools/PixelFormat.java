@@ -1,9 +1,11 @@
 package net.digimonworld.decodetools;
 
 import java.awt.image.BufferedImage;
-import java.util.function.Function;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-import net.digimonworld.decodetools.core.TriFunction;
 import net.digimonworld.decodetools.core.Utils;
 
 public enum PixelFormat {
@@ -30,11 +32,11 @@ public enum PixelFormat {
     private boolean hasAlpha;
     private short unknown;
     
-    private TriFunction<byte[], Integer, Integer, int[]> decoder;
-    private Function<BufferedImage, byte[]> encoder;
+    private PixelDecoder decoder;
+    private PixelEncoder encoder;
     
-    private PixelFormat(int id, int bitPerPixel, int unknown, boolean tiled, boolean hasAlpha, TriFunction<byte[], Integer, Integer, int[]> decoder,
-            Function<BufferedImage, byte[]> encoder) {
+    private PixelFormat(int id, int bitPerPixel, int unknown, boolean tiled, boolean hasAlpha, PixelDecoder decoder,
+            PixelEncoder encoder) {
         this.id = id;
         this.bpp = bitPerPixel;
         this.unknown = (short) unknown;
@@ -49,12 +51,128 @@ public enum PixelFormat {
     }
     
     public int[] convertToRGBA(byte[] pixelData, int width, int height) {
-        return decoder.apply(pixelData, width, height);
+        return convertInto(pixelData, width, height, new int[(int) (pixelData.length * 8L / bpp)]);
+    }
+    
+    /**
+     * Converts the given pixel data into ARGB pixels, writing them into the given array instead of allocating a new one.
+     * Conversion stops once either the pixel data or the destination array is exhausted.
+     * 
+     * @param pixelData the pixel data in this format
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param dst the array to write the ARGB pixels into
+     * @return the given destination array
+     */
+    public int[] convertInto(byte[] pixelData, int width, int height, int[] dst) {
+        return decoder.decode(pixelData, dst, width, height);
+    }
+    
+    /**
+     * Decodes the given pixel data into a new image, untiling and flipping it into its final orientation. The pixels
+     * get written directly into the backing array of the image.
+     * 
+     * @param pixelData the pixel data in this format
+     * @param width the width of the image
+     * @param height the height of the image
+     * @return the decoded image
+     */
+    public BufferedImage decodeImage(byte[] pixelData, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] dst = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        
+        // the flip done by untiling cancels out with the one that makes the image logical for humans
+        if (tiled)
+            Utils.untile(width, height, convertInto(pixelData, width, height, new int[width * height]), dst, false);
+        else {
+            convertInto(pixelData, width, height, dst);
+            
+            if (this != ETC1 && this != ETC1A4)
+                Utils.flipRows(width, height, dst);
+        }
+        
+        return image;
     }
     
     public byte[] convertToFormat(BufferedImage image) {
-        //unflip images to make them applicable for the conversion process
-        return encoder.apply(Utils.mirrorImageVertical(image, true));
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        
+        // unflip images to make them applicable for the conversion process, tiling would flip them back again
+        if (tiled) {
+            int[] tiledPixels = new int[pixels.length];
+            Utils.tile(width, height, pixels, tiledPixels, false);
+            pixels = tiledPixels;
+        }
+        else if (this != ETC1 && this != ETC1A4)
+            Utils.flipRows(width, height, pixels);
+        
+        return encoder.encode(pixels, width, height);
+    }
+    
+    /**
+     * Gets the size of a single level with the given resolution in this format, which is exactly the size of the data
+     * {@link #convertToFormat(BufferedImage)} produces. ETC1 and ETC1A4 consist of whole 4x4 blocks.
+     * 
+     * @param width the width of the level
+     * @param height the height of the level
+     * @return the size in bytes
+     */
+    public int getDataSize(int width, int height) {
+        if (this == ETC1 || this == ETC1A4)
+            return ((width + 3) / 4) * ((height + 3) / 4) * bpp * 2;
+        
+        return width * height * bpp / 8;
+    }
+    
+    /**
+     * Encodes the given mipmap chain, as generated by {@link Mipmaps#generate(BufferedImage, int, int)}, with all
+     * levels stored one after another. Every level takes up {@link #getDataSize(int, int)} bytes, the same amount
+     * {@link #decodeMipChain(byte[], int, int, int)} steps by.
+     * 
+     * @param levels the levels of the chain, starting with the largest one
+     * @return the encoded chain
+     */
+    public byte[] encodeMipChain(List<BufferedImage> levels) {
+        int[] offsets = new int[levels.size() + 1];
+        for (int i = 0; i < levels.size(); i++)
+            offsets[i + 1] = offsets[i] + getDataSize(levels.get(i).getWidth(), levels.get(i).getHeight());
+        
+        byte[] data = new byte[offsets[levels.size()]];
+        for (int i = 0; i < levels.size(); i++) {
+            byte[] level = convertToFormat(levels.get(i));
+            System.arraycopy(level, 0, data, offsets[i], Math.min(level.length, offsets[i + 1] - offsets[i]));
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Decodes a mipmap chain with the given number of levels, stored one after another.
+     * 
+     * @param data the encoded chain
+     * @param width the width of the largest level
+     * @param height the height of the largest level
+     * @param levelCount the number of levels
+     * @return the decoded levels, starting with the largest one
+     */
+    public List<BufferedImage> decodeMipChain(byte[] data, int width, int height, int levelCount) {
+        List<BufferedImage> levels = new ArrayList<>(levelCount);
+        int offset = 0;
+        
+        for (int i = 0; i < levelCount; i++) {
+            int size = getDataSize(width, height);
+            if (offset + size > data.length)
+                throw new IllegalArgumentException("Data is too short for " + levelCount + " mipmap levels.");
+            
+            levels.add(decodeImage(Arrays.copyOfRange(data, offset, offset + size), width, height));
+            offset += size;
+            width = Math.max(1, width / 2);
+            height = Math.max(1, height / 2);
+        }
+        
+        return levels;
     }
     
     public static PixelFormat valueOf(int id) {
@@ -85,4 +203,14 @@ public enum PixelFormat {
         int etc1Factor = this == ETC1 || this == PixelFormat.ETC1A4 ? 16 : 1;
         return (short) (getBPP() * etc1Factor);
     }
+    
+    @FunctionalInterface
+    private interface PixelDecoder {
+        int[] decode(byte[] src, int[] dst, int width, int height);
+    }
+    
+    @FunctionalInterface
+    private interface PixelEncoder {
+        byte[] encode(int[] pixels, int width, int height);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package net.digimonworld.decodetools;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
 
 import net.digimonworld.decodetools.core.Utils;
 
@@ -10,282 +12,318 @@ public class PixelFormatDecoder {
      * Static Color offset table as defined in the OpenGL standard. See
      * {@link}https://www.khronos.org/registry/gles/extensions/OES/OES_compressed_ETC1_RGB8_texture.txt}
      */
-    private static final int[][] OFFSET_TABLE = new int[][] { 
+    static final int[][] OFFSET_TABLE = new int[][] { 
             new int[] { -8, -2, 2, 8 }, new int[] { -17, -5, 5, 17 }, 
             new int[] { -29, -9, 9, 29 }, new int[] { -42, -13, 13, 42 }, 
             new int[] { -60, -18, 18, 60 }, new int[] { -80, -24, 24, 80 }, 
             new int[] { -106, -33, 33, 106 }, new int[] { -183, -47, 47, 183 } };
     
+    // the OFFSET_TABLE index for the msb << 1 | lsb pixel index bits of an ETC1 block
+    private static final int[] MODIFIER_INDEX = { 2, 3, 1, 0 };
+    
+    // clamps [-256, 511] to [0, 255], which covers every base color plus modifier
+    private static final int CLAMP_OFFSET = 256;
+    private static final int[] CLAMP = buildTable(768, a -> Math.max(0, Math.min(255, a - CLAMP_OFFSET)));
+    
+    // expansion of 4, 5 and 6 bit channels to 8 bit
+    private static final int[] EXTEND_4 = buildTable(16, a -> (int) Utils.extend4To8(a));
+    private static final int[] EXTEND_5 = buildTable(32, a -> (int) Utils.extend5To8(a));
+    private static final int[] EXTEND_6 = buildTable(64, a -> (int) Utils.extend6To8(a));
+    
+    // ARGB values for every possible 16-bit pixel
+    private static final int[] RGBA5551_TABLE = buildTable(0x10000, value -> ((value & 0x01) != 0 ? 255 : 0) << 24
+            | EXTEND_5[(value >>> 1) & 0x1F] | EXTEND_5[(value >>> 6) & 0x1F] << 8 | EXTEND_5[(value >>> 11) & 0x1F] << 16);
+    private static final int[] RGB565_TABLE = buildTable(0x10000, value -> 255 << 24
+            | EXTEND_5[value & 0x1F] | EXTEND_6[(value >>> 5) & 0x3F] << 8 | EXTEND_5[(value >>> 11) & 0x1F] << 16);
+    private static final int[] RGBA4_TABLE = buildTable(0x10000, value -> EXTEND_4[value & 0xF] << 24
+            | EXTEND_4[(value >>> 4) & 0xF] | EXTEND_4[(value >>> 8) & 0xF] << 8 | EXTEND_4[(value >>> 12) & 0xF] << 16);
+    
+    // ARGB values for every possible 8-bit LA4 pixel
+    private static final int[] LA4_TABLE = buildTable(0x100, value -> EXTEND_4[value & 0xF] << 24 
+            | EXTEND_4[value >>> 4] * 0x010101);
+    
     private PixelFormatDecoder() {
     }
     
+    private static int[] buildTable(int size, IntUnaryOperator function) {
+        int[] table = new int[size];
+        for (int i = 0; i < size; i++)
+            table[i] = function.applyAsInt(i);
+        
+        return table;
+    }
+    
+    /*
+     * The number of pixels to convert, limited by both the source data and the destination array.
+     */
+    private static int pixelCount(byte[] a, int[] dst, int bytesPerPixel) {
+        return Math.min(dst.length, a.length / bytesPerPixel);
+    }
+    
+    private static int getShort(byte[] a, int i) {
+        return Byte.toUnsignedInt(a[i * 2]) | Byte.toUnsignedInt(a[i * 2 + 1]) << 8;
+    }
+    
     public static int[] convertFromETC1A4(byte[] input, int width, int height) {
-        return calculate(input, width, height, true);
+        return convertFromETC1A4(input, new int[input.length], width, height);
+    }
+    
+    public static int[] convertFromETC1A4(byte[] input, int[] dst, int width, int height) {
+        return calculate(input, dst, width, height, true);
     }
     
     public static int[] convertFromETC1(byte[] input, int width, int height) {
-        return calculate(input, width, height, false);
+        return convertFromETC1(input, new int[input.length * 2], width, height);
+    }
+    
+    public static int[] convertFromETC1(byte[] input, int[] dst, int width, int height) {
+        return calculate(input, dst, width, height, false);
     }
     
     public static int[] convertFromRGBA8(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 4];
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= (Byte.toUnsignedInt(a[i * 4]) << 24);
-            data[i] |= (Byte.toUnsignedInt(a[i * 4 + 1]));
-            data[i] |= (Byte.toUnsignedInt(a[i * 4 + 2]) << 8);
-            data[i] |= (Byte.toUnsignedInt(a[i * 4 + 3]) << 16);
-        }
-        return data;
+        return convertFromRGBA8(a, new int[a.length / 4], width, height);
+    }
+    
+    public static int[] convertFromRGBA8(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 4);
+        for (int i = 0; i < count; i++)
+            dst[i] = Byte.toUnsignedInt(a[i * 4]) << 24
+                    | Byte.toUnsignedInt(a[i * 4 + 1])
+                    | Byte.toUnsignedInt(a[i * 4 + 2]) << 8
+                    | Byte.toUnsignedInt(a[i * 4 + 3]) << 16;
+        
+        return dst;
     }
     
     public static int[] convertFromRGB8(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 3];
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= 255 << 24;
-            data[i] |= (Byte.toUnsignedInt(a[i * 3]));
-            data[i] |= (Byte.toUnsignedInt(a[i * 3 + 1]) << 8);
-            data[i] |= (Byte.toUnsignedInt(a[i * 3 + 2]) << 16);
-        }
-        return data;
+        return convertFromRGB8(a, new int[a.length / 3], width, height);
+    }
+    
+    public static int[] convertFromRGB8(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 3);
+        for (int i = 0; i < count; i++)
+            dst[i] = 255 << 24
+                    | Byte.toUnsignedInt(a[i * 3])
+                    | Byte.toUnsignedInt(a[i * 3 + 1]) << 8
+                    | Byte.toUnsignedInt(a[i * 3 + 2]) << 16;
+        
+        return dst;
     }
     
     public static int[] convertFromRGBA5551(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        for (int i = 0; i < data.length; i++) {
-            int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
-            data[i] |= ((value & 0x01) != 0 ? 255 : 0) << 24;
-            data[i] |= Utils.extend5To8((value >>> 1) & 0x1F);
-            data[i] |= Utils.extend5To8((value >>> 6) & 0x1F) << 8;
-            data[i] |= Utils.extend5To8((value >>> 11) & 0x1F) << 16;
-        }
-        return data;
+        return convertFromRGBA5551(a, new int[a.length / 2], width, height);
+    }
+    
+    public static int[] convertFromRGBA5551(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 2);
+        for (int i = 0; i < count; i++)
+            dst[i] = RGBA5551_TABLE[getShort(a, i)];
+        
+        return dst;
     }
     
     public static int[] convertFromRGBA4(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        for (int i = 0; i < data.length; i++) {
-            int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
-            data[i] |= Utils.extend4To8(value & 0xF) << 24;
-            data[i] |= Utils.extend4To8((value >>> 4) & 0x1F);
-            data[i] |= Utils.extend4To8((value >>> 8) & 0xF) << 8;
-            data[i] |= Utils.extend4To8((value >>> 12) & 0xF) << 16;
-        }
-        return data;
+        return convertFromRGBA4(a, new int[a.length / 2], width, height);
+    }
+    
+    public static int[] convertFromRGBA4(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 2);
+        for (int i = 0; i < count; i++)
+            dst[i] = RGBA4_TABLE[getShort(a, i)];
+        
+        return dst;
     }
     
     public static int[] convertFromRGB565(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        for (int i = 0; i < data.length; i++) {
-            int value = (Byte.toUnsignedInt(a[i * 2 + 1]) << 8) + Byte.toUnsignedInt(a[i * 2]);
-            data[i] |= 255 << 24;
-            data[i] |= Utils.extend5To8(value & 0x1F);
-            data[i] |= Utils.extend6To8((value & 0x7E0) >>> 5) << 8;
-            data[i] |= Utils.extend5To8((value & 0xF800) >>> 11) << 16;
-        }
-        return data;
+        return convertFromRGB565(a, new int[a.length / 2], width, height);
     }
     
-    public static int[] convertFromLA4(byte[] a, int width, int height) {
-        int[] data = new int[a.length];
+    public static int[] convertFromRGB565(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 2);
+        for (int i = 0; i < count; i++)
+            dst[i] = RGB565_TABLE[getShort(a, i)];
         
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= Utils.extend4To8(a[i] & 0xF) << 24;
-            data[i] |= Utils.extend4To8((a[i] >>> 4) & 0xF);
-            data[i] |= Utils.extend4To8((a[i] >>> 4) & 0xF) << 8;
-            data[i] |= Utils.extend4To8((a[i] >>> 4) & 0xF) << 16;
-        }
+        return dst;
+    }
+    
+    public static int[] convertFromLA4(byte[] a, int width, int height) {
+        return convertFromLA4(a, new int[a.length], width, height);
+    }
+    
+    public static int[] convertFromLA4(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 1);
+        for (int i = 0; i < count; i++)
+            dst[i] = LA4_TABLE[Byte.toUnsignedInt(a[i])];
         
-        return data;
+        return dst;
     }
     
     public static int[] convertFromLA8(byte[] a, int width, int height) {
-        int[] data = new int[a.length / 2];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 0])) << 24;
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 1])) << 16;
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 1])) << 8;
-            data[i] |= (Byte.toUnsignedInt(a[i * 2 + 1]));
-        }
+        return convertFromLA8(a, new int[a.length / 2], width, height);
+    }
+    
+    public static int[] convertFromLA8(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 2);
+        for (int i = 0; i < count; i++)
+            dst[i] = Byte.toUnsignedInt(a[i * 2]) << 24 | Byte.toUnsignedInt(a[i * 2 + 1]) * 0x010101;
         
-        return data;
+        return dst;
     }
     
     public static int[] convertFromA8(byte[] a, int width, int height) {
-        int[] data = new int[a.length];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= Byte.toUnsignedInt(a[i]) << 24;
-            data[i] |= 255;
-            data[i] |= 255 << 8;
-            data[i] |= 255 << 16;
-        }
+        return convertFromA8(a, new int[a.length], width, height);
+    }
+    
+    public static int[] convertFromA8(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 1);
+        for (int i = 0; i < count; i++)
+            dst[i] = Byte.toUnsignedInt(a[i]) << 24 | 0xFFFFFF;
         
-        return data;
+        return dst;
     }
     
     public static int[] convertFromL8(byte[] a, int width, int height) {
-        int[] data = new int[a.length];
-        
-        for (int i = 0; i < data.length; i++) {
-            data[i] |= 255 << 24;
-            data[i] |= Byte.toUnsignedInt(a[i]);
-            data[i] |= Byte.toUnsignedInt(a[i]) << 8;
-            data[i] |= Byte.toUnsignedInt(a[i]) << 16;
-        }
+        return convertFromL8(a, new int[a.length], width, height);
+    }
+    
+    public static int[] convertFromL8(byte[] a, int[] dst, int width, int height) {
+        int count = pixelCount(a, dst, 1);
+        for (int i = 0; i < count; i++)
+            dst[i] = 255 << 24 | Byte.toUnsignedInt(a[i]) * 0x010101;
         
-        return data;
+        return dst;
     }
     
     public static int[] convertFromL4(byte[] a, int width, int height) {
-        int[] data = new int[a.length * 2];
-        
-        for (int i = 0; i < a.length; i++) {
-            data[i * 2 + 1] |= 255 << 24;
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4);
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4) << 8;
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4) << 16;
-            
-            data[i * 2 + 0] |= 255 << 24;
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF);
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF) << 8;
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF) << 16;
-        }
+        return convertFromL4(a, new int[a.length * 2], width, height);
+    }
+    
+    public static int[] convertFromL4(byte[] a, int[] dst, int width, int height) {
+        int count = Math.min(dst.length, a.length * 2);
+        for (int i = 0; i < count; i++)
+            dst[i] = 255 << 24 | EXTEND_4[(a[i / 2] >>> (i % 2) * 4) & 0xF] * 0x010101;
         
-        return data;
+        return dst;
     }
     
     public static int[] convertFromA4(byte[] a, int width, int height) {
-        int[] data = new int[a.length * 2];
-        
-        for (int i = 0; i < a.length; i++) {
-            data[i * 2 + 1] |= Utils.extend4To8(a[i] >>> 4) << 24;
-            data[i * 2 + 1] |= 255;
-            data[i * 2 + 1] |= 255 << 8;
-            data[i * 2 + 1] |= 255 << 16;
-            
-            data[i * 2 + 0] |= Utils.extend4To8(a[i] & 0xF) << 24;
-            data[i * 2 + 0] |= 255;
-            data[i * 2 + 0] |= 255 << 8;
-            data[i * 2 + 0] |= 255 << 16;
-        }
-        
-        return data;
+        return convertFromA4(a, new int[a.length * 2], width, height);
     }
     
-    private static int buildRGBA8(long r, long g, long b, long a) {
-        int data = 0;
-        data |= (a << 24);
-        data |= (r << 16);
-        data |= (g << 8);
-        data |= b;
+    public static int[] convertFromA4(byte[] a, int[] dst, int width, int height) {
+        int count = Math.min(dst.length, a.length * 2);
+        for (int i = 0; i < count; i++)
+            dst[i] = EXTEND_4[(a[i / 2] >>> (i % 2) * 4) & 0xF] << 24 | 0xFFFFFF;
         
-        return data & 0xFFFFFFFF;
+        return dst;
     }
     
-    private static int[] calculate(byte[] input, int width, int height, boolean alpha) {
-        int[] output = new int[(input.length / 8) * 16];
-        
-        ByteBuffer inbuff = ByteBuffer.wrap(input);
-        inbuff.order(ByteOrder.LITTLE_ENDIAN);
+    /*
+     * Decodes ETC1 data, which consists of 8x8 tiles of 2x2 blocks each, leaving out blocks outside of the image. Every
+     * row of tiles covers a distinct part of the output, so the rows get decoded in parallel.
+     */
+    private static int[] calculate(byte[] input, int[] output, int width, int height, boolean alpha) {
+        int blockSize = alpha ? 16 : 8;
+        int blocksX = (width + 3) / 4;
+        int blocksY = (height + 3) / 4;
         
-        int x = 0;
-        int y = 0;
-        while (inbuff.hasRemaining()) {
-            int[][] value00 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
-            int[][] value10 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
-            int[][] value01 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
-            int[][] value11 = getPixelsForBlock(alpha ? inbuff.getLong() : 0xFFFFFFFFFFFFFFFFL, inbuff.getLong());
+        IntStream.range(0, (blocksY + 1) / 2).parallel().forEach(tileY -> {
+            ByteBuffer inbuff = ByteBuffer.wrap(input);
+            inbuff.order(ByteOrder.LITTLE_ENDIAN);
+            int[] palette = new int[8];
+            int blockOffset = tileY * 2 * blocksX * blockSize;
             
-            for (int i = 0; i < 4; i++)
-                for (int j = 0; j < 4; j++) {
-                    output[(y + 0) * 4 * width + (x + 0) * 4 + j * width + i] = value00[i][j];
-                    output[(y + 1) * 4 * width + (x + 0) * 4 + j * width + i] = value01[i][j];
-                    output[(y + 0) * 4 * width + (x + 1) * 4 + j * width + i] = value10[i][j];
-                    output[(y + 1) * 4 * width + (x + 1) * 4 + j * width + i] = value11[i][j];
+            for (int tileX = 0; tileX < (blocksX + 1) / 2; tileX++)
+                for (int i = 0; i < 4; i++) {
+                    int blockX = tileX * 2 + (i & 1);
+                    int blockY = tileY * 2 + (i >> 1);
+                    if (blockX >= blocksX || blockY >= blocksY)
+                        continue;
+                    if (blockOffset + blockSize > input.length)
+                        return;
+                    
+                    long alphaValue = alpha ? inbuff.getLong(blockOffset) : 0xFFFFFFFFFFFFFFFFL;
+                    long value = inbuff.getLong(alpha ? blockOffset + 8 : blockOffset);
+                    blockOffset += blockSize;
+                    
+                    decodeBlock(alphaValue, value, palette, output, width, blockX * 4, blockY * 4);
                 }
-            
-            x += 2;
-            if (x * 4 >= width) {
-                x = 0;
-                y += 2;
-            }
-        }
+        });
         
         return output;
     }
     
-    private static int[][] getPixelsForBlock(long alpha, long value) {
-        int[][] data = new int[4][4];
-        
-        boolean isDifferential = Utils.getBitValue(value, 33);
-        boolean isFlip = Utils.getBitValue(value, 32);
-        
-        int tableCW2 = (int) Utils.getSubInteger(value, 34, 3);
-        int tableCW1 = (int) Utils.getSubInteger(value, 37, 3);
-        
-        long r1;
-        long g1;
-        long b1;
+    /*
+     * Decodes a single 4x4 block, writing its pixels directly into the output.
+     * 
+     * The four possible colors of both sub blocks are computed up front, so every pixel is only a lookup into that
+     * palette by its sub block and modifier bits, without any clamping or branching per pixel.
+     */
+    private static void decodeBlock(long alpha, long value, int[] palette, int[] output, int width, int blockX, int blockY) {
+        int high = (int) (value >>> 32);
+        int low = (int) value;
         
-        long r2;
-        long g2;
-        long b2;
+        int r1;
+        int g1;
+        int b1;
+        int r2;
+        int g2;
+        int b2;
         
-        if (isDifferential) {
-            long baseR = Utils.getSubInteger(value, 59, 5);
-            long baseG = Utils.getSubInteger(value, 51, 5);
-            long baseB = Utils.getSubInteger(value, 43, 5);
-            
-            long diffR = Utils.getSubInteger(value, 56, 3);
-            long diffG = Utils.getSubInteger(value, 48, 3);
-            long diffB = Utils.getSubInteger(value, 40, 3);
+        if ((high & 0x2) != 0) { // differential mode
+            int baseR = (high >>> 27) & 0x1F;
+            int baseG = (high >>> 19) & 0x1F;
+            int baseB = (high >>> 11) & 0x1F;
             
-            r1 = Utils.extend5To8(baseR);
-            g1 = Utils.extend5To8(baseG);
-            b1 = Utils.extend5To8(baseB);
+            r1 = EXTEND_5[baseR];
+            g1 = EXTEND_5[baseG];
+            b1 = EXTEND_5[baseB];
             
-            r2 = Utils.extend5To8(Utils.add3BitSigned(baseR, diffR));
-            g2 = Utils.extend5To8(Utils.add3BitSigned(baseG, diffG));
-            b2 = Utils.extend5To8(Utils.add3BitSigned(baseB, diffB));
+            // the differences are signed 3-bit values
+            r2 = EXTEND_5[(baseR + (high << 5 >> 29)) & 0x1F];
+            g2 = EXTEND_5[(baseG + (high << 13 >> 29)) & 0x1F];
+            b2 = EXTEND_5[(baseB + (high << 21 >> 29)) & 0x1F];
         }
         else {
-            r1 = Utils.extend4To8(Utils.getSubInteger(value, 60, 4));
-            g1 = Utils.extend4To8(Utils.getSubInteger(value, 52, 4));
-            b1 = Utils.extend4To8(Utils.getSubInteger(value, 44, 4));
+            r1 = EXTEND_4[(high >>> 28) & 0xF];
+            g1 = EXTEND_4[(high >>> 20) & 0xF];
+            b1 = EXTEND_4[(high >>> 12) & 0xF];
             
-            r2 = Utils.extend4To8(Utils.getSubInteger(value, 56, 4));
-            g2 = Utils.extend4To8(Utils.getSubInteger(value, 48, 4));
-            b2 = Utils.extend4To8(Utils.getSubInteger(value, 40, 4));
+            r2 = EXTEND_4[(high >>> 24) & 0xF];
+            g2 = EXTEND_4[(high >>> 16) & 0xF];
+            b2 = EXTEND_4[(high >>> 8) & 0xF];
+        }
+        
+        int[] table1 = OFFSET_TABLE[(high >>> 5) & 0x7];
+        int[] table2 = OFFSET_TABLE[(high >>> 2) & 0x7];
+        
+        // indexed by sub block << 2 | msb << 1 | lsb
+        for (int i = 0; i < 4; i++) {
+            int modifier = MODIFIER_INDEX[i];
+            palette[i] = clamp(r1 + table1[modifier]) << 16 | clamp(g1 + table1[modifier]) << 8 | clamp(b1 + table1[modifier]);
+            palette[i + 4] = clamp(r2 + table2[modifier]) << 16 | clamp(g2 + table2[modifier]) << 8 | clamp(b2 + table2[modifier]);
         }
         
-        for (int x = 0; x < 4; x++)
-            for (int y = 0; y < 4; y++) {
+        boolean isFlip = (high & 0x1) != 0;
+        int maxX = Math.min(4, width - blockX);
+        
+        for (int y = 0; y < 4; y++) {
+            int rowStart = (blockY + y) * width + blockX;
+            if (rowStart >= output.length)
+                break;
+            
+            for (int x = 0; x < maxX; x++) {
                 int id = x * 4 + y;
+                int subBlock = isFlip ? y >>> 1 : x >>> 1;
+                int index = subBlock << 2 | ((low >>> (16 + id)) & 1) << 1 | ((low >>> id) & 1);
                 
-                boolean msb = Utils.getBitValue(value, 16 + id);
-                boolean lsb = Utils.getBitValue(value, id);
-                int offset = (!msb ? 0b10 : 0) + ((lsb ^ msb) ? 0b1 : 0);
-                long a = Utils.extend4To8(Utils.getSubInteger(alpha, id * 4, 4));
-                
-                long r;
-                long g;
-                long b;
-                if (isFlip && y >= 2 || !isFlip && x >= 2) {
-                    r = Utils.crop(r2 + OFFSET_TABLE[tableCW2][offset], 0, 255);
-                    g = Utils.crop(g2 + OFFSET_TABLE[tableCW2][offset], 0, 255);
-                    b = Utils.crop(b2 + OFFSET_TABLE[tableCW2][offset], 0, 255);
-                }
-                else {
-                    r = Utils.crop(r1 + OFFSET_TABLE[tableCW1][offset], 0, 255);
-                    g = Utils.crop(g1 + OFFSET_TABLE[tableCW1][offset], 0, 255);
-                    b = Utils.crop(b1 + OFFSET_TABLE[tableCW1][offset], 0, 255);
-                }
-                
-                data[x][y] = buildRGBA8(r, g, b, a);
+                output[rowStart + x] = EXTEND_4[(int) (alpha >>> (id * 4)) & 0xF] << 24 | palette[index];
             }
-        
-        return data;
+        }
+    }
+    
+    private static int clamp(int value) {
+        return CLAMP[value + CLAMP_OFFSET];
     }
     
 }
@@ -1,266 +1,228 @@
 package net.digimonworld.decodetools;
 
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.file.Files;
-import java.util.logging.Level;
 
-import javax.imageio.ImageIO;
-
-import net.digimonworld.decodetools.core.FileAccess;
 import net.digimonworld.decodetools.core.Utils;
 
+/**
+ * Converts images into the pixel formats of the game.
+ * <p>
+ * The {@link BufferedImage} based methods take care of tiling the image where the format requires it. The int[] based
+ * methods expect the ARGB pixels in the order they get stored in, i.e. already tiled for tiled formats.
+ * </p>
+ */
 public class PixelFormatEncoder {
-    private static final String ENCODER_PATH = "./3dstex";
-    
     private PixelFormatEncoder() {
     }
     
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+    
+    private static void putShort(byte[] data, int index, int value) {
+        data[index * 2 + 0] = (byte) value;
+        data[index * 2 + 1] = (byte) (value >>> 8);
+    }
+    
     public static byte[] convertToRGBA8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 4];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToRGBA8(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToRGBA8(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height * 4];
         
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-            buffer.put((byte) ((i) & 0xFF));
-            buffer.put((byte) ((i >>> 8) & 0xFF));
-            buffer.put((byte) ((i >>> 16) & 0xFF));
+        for (int i = 0; i < tiled.length; i++) {
+            int value = tiled[i];
+            data[i * 4 + 0] = (byte) (value >>> 24);
+            data[i * 4 + 1] = (byte) value;
+            data[i * 4 + 2] = (byte) (value >>> 8);
+            data[i * 4 + 3] = (byte) (value >>> 16);
         }
         
         return data;
     }
     
     public static byte[] convertToUnknown(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 4];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        return convertToUnknown(getPixels(image), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToUnknown(int[] pixels, int width, int height) {
+        byte[] data = new byte[width * height * 4];
         
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-            buffer.put((byte) ((i) & 0xFF));
-            buffer.put((byte) ((i >>> 8) & 0xFF));
-            buffer.put((byte) ((i >>> 16) & 0xFF));
+        for (int i = 0; i < pixels.length; i++) {
+            int value = pixels[i];
+            data[i * 4 + 0] = (byte) (value >>> 24);
+            data[i * 4 + 1] = (byte) value;
+            data[i * 4 + 2] = (byte) (value >>> 8);
+            data[i * 4 + 3] = (byte) (value >>> 16);
         }
         
         return data;
     }
     
     public static byte[] convertToRGB8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 3];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToRGB8(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToRGB8(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height * 3];
         
-        for (int i : pixels) {
-            buffer.put((byte) ((i) & 0xFF));
-            buffer.put((byte) ((i >>> 8) & 0xFF));
-            buffer.put((byte) ((i >>> 16) & 0xFF));
+        for (int i = 0; i < tiled.length; i++) {
+            int value = tiled[i];
+            data[i * 3 + 0] = (byte) value;
+            data[i * 3 + 1] = (byte) (value >>> 8);
+            data[i * 3 + 2] = (byte) (value >>> 16);
         }
         
         return data;
     }
     
     public static byte[] convertToRGBA5551(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToRGBA5551(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToRGBA5551(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height * 2];
         
-        for (int i : pixels) {
-            short value = 0;
-            value |= (i >>> 31) & 0x1;
-            value |= ((i >>> 19) & 0x1F) << 11;
-            value |= ((i >>> 11) & 0x1F) << 6;
-            value |= ((i >>> 3) & 0x1F) << 1;
-            buffer.putShort(value);
+        for (int i = 0; i < tiled.length; i++) {
+            int value = tiled[i];
+            putShort(data, i, (value >>> 31) & 0x1 | ((value >>> 19) & 0x1F) << 11 | ((value >>> 11) & 0x1F) << 6 | ((value >>> 3) & 0x1F) << 1);
         }
         
         return data;
     }
     
     public static byte[] convertToRGB565(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToRGB565(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToRGB565(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height * 2];
         
-        for (int i : pixels) {
-            short value = 0;
-            value |= ((i >>> 19) & 0x1F) << 11;
-            value |= ((i >>> 10) & 0x3F) << 5;
-            value |= ((i >>> 3) & 0x1F);
-            buffer.putShort(value);
+        for (int i = 0; i < tiled.length; i++) {
+            int value = tiled[i];
+            putShort(data, i, ((value >>> 19) & 0x1F) << 11 | ((value >>> 10) & 0x3F) << 5 | ((value >>> 3) & 0x1F));
         }
         
         return data;
     }
     
     public static byte[] convertToRGBA4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToRGBA4(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToRGBA4(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height * 2];
         
-        for (int i : pixels) {
-            short value = 0;
-            value |= (short) ((i >>> 28) & 0xF);
-            value |= (short) ((i >>> 20) & 0xF) << 12;
-            value |= (short) ((i >>> 12) & 0xF) << 8;
-            value |= (short) ((i >>> 4) & 0xF) << 4;
-            buffer.putShort(value);
+        for (int i = 0; i < tiled.length; i++) {
+            int value = tiled[i];
+            putShort(data, i, ((value >>> 28) & 0xF) | ((value >>> 20) & 0xF) << 12 | ((value >>> 12) & 0xF) << 8 | ((value >>> 4) & 0xF) << 4);
         }
         
         return data;
     }
     
     public static byte[] convertToLA8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() * 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToLA8(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToLA8(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height * 2];
         
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-            buffer.put((byte) ((i) & 0xFF));
+        for (int i = 0; i < tiled.length; i++) {
+            data[i * 2 + 0] = (byte) (tiled[i] >>> 24);
+            data[i * 2 + 1] = (byte) tiled[i];
         }
         
         return data;
     }
     
     public static byte[] convertToLA4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight()];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToLA4(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToLA4(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height];
         
-        for (int i : pixels) {
-            byte value = 0;
-            value |= (byte) ((i >>> 28) & 0xF);
-            value |= (byte) (i & 0xF0);
-            buffer.put(value);
-        }
+        for (int i = 0; i < tiled.length; i++)
+            data[i] = (byte) (((tiled[i] >>> 28) & 0xF) | (tiled[i] & 0xF0));
         
         return data;
     }
     
     public static byte[] convertToA8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight()];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToA8(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToA8(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height];
         
-        for (int i : pixels) {
-            buffer.put((byte) ((i >>> 24) & 0xFF));
-        }
+        for (int i = 0; i < tiled.length; i++)
+            data[i] = (byte) (tiled[i] >>> 24);
         
         return data;
     }
     
     public static byte[] convertToL8(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight()];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
-        
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+        return convertToL8(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToL8(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height];
         
-        for (int i : pixels) {
-            buffer.put((byte) ((i) & 0xFF));
-        }
+        for (int i = 0; i < tiled.length; i++)
+            data[i] = (byte) tiled[i];
         
         return data;
     }
     
     public static byte[] convertToL4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() / 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
+        return convertToL4(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToL4(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height / 2];
         
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        for (int i = 0; i < pixels.length / 2; i++) {
-            byte value = 0;
-            value |= (pixels[i * 2 + 1]) & 0xF0;
-            value |= (pixels[i * 2 + 0] >>> 4) & 0xF;
-            buffer.put(value);
-        }
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) ((tiled[i * 2 + 1] & 0xF0) | ((tiled[i * 2 + 0] >>> 4) & 0xF));
         
         return data;
     }
     
     public static byte[] convertToA4(BufferedImage image) {
-        byte[] data = new byte[image.getWidth() * image.getHeight() / 2];
-        ByteBuffer buffer = ByteBuffer.wrap(data);
+        return convertToA4(Utils.tile(image.getWidth(), image.getHeight(), getPixels(image)), image.getWidth(), image.getHeight());
+    }
+    
+    public static byte[] convertToA4(int[] tiled, int width, int height) {
+        byte[] data = new byte[width * height / 2];
         
-        int[] pixels = Utils.tile(image.getWidth(), image.getHeight(), image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
-        for (int i = 0; i < pixels.length / 2; i++) {
-            byte value = 0;
-            value |= pixels[i * 2 + 1] >>> 24 & 0xF0;
-            value |= (pixels[i * 2 + 0] >>> 28) & 0xF;
-            buffer.put(value);
-        }
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) ((tiled[i * 2 + 1] >>> 24 & 0xF0) | ((tiled[i * 2 + 0] >>> 28) & 0xF));
         
         return data;
     }
     
     public static byte[] convertToETC1(BufferedImage image) {
-        try {
-            File source = File.createTempFile("etc1Source", null);
-            File target = File.createTempFile("etc1Target", null);
-            ImageIO.write(image, "PNG", source);
-            
-            Process process = new ProcessBuilder().command(ENCODER_PATH, "-r", "-o", "etc1", source.getPath(), target.getPath()).start();
-            process.waitFor();
-            
-            try (FileAccess tmp = new FileAccess(target)) {
-                return tmp.readByteArray(image.getHeight() * image.getWidth() / 2);
-            }
-            finally {
-                Files.delete(source.toPath());
-                Files.delete(target.toPath());
-            }
-        }
-        catch (InterruptedException e) {
-            Main.LOGGER.log(Level.SEVERE, "An interrupt happened while execution the process.", e);
-            Thread.currentThread().interrupt();
-        }
-        catch (IOException e) {
-            Main.LOGGER.log(Level.SEVERE, "An IO error occured while converting to ETC1", e);
-        }
-        
-        return new byte[0];
+        return convertToETC1(image, ETC1Encoder.Quality.MEDIUM);
+    }
+    
+    public static byte[] convertToETC1(int[] pixels, int width, int height) {
+        return ETC1Encoder.encode(pixels, width, height, false, ETC1Encoder.Quality.MEDIUM);
+    }
+    
+    public static byte[] convertToETC1(BufferedImage image, ETC1Encoder.Quality quality) {
+        return ETC1Encoder.encode(getPixels(image), image.getWidth(), image.getHeight(), false, quality);
     }
     
     public static byte[] convertToETC1A4(BufferedImage image) {
-        try {
-            File source = File.createTempFile("etc1Source", null);
-            File target = File.createTempFile("etc1Target", null);
-            ImageIO.write(image, "PNG", source);
-            
-            Process process = new ProcessBuilder().command(ENCODER_PATH, "-r", "-o", "etc1a4", source.getPath(), target.getPath()).start();
-            process.waitFor();
-            
-            try (FileAccess tmp = new FileAccess(target)) {
-                return tmp.readByteArray(image.getHeight() * image.getWidth());
-            }
-            finally {
-                Files.delete(source.toPath());
-                Files.delete(target.toPath());
-            }
-        }
-        catch (InterruptedException e) {
-            Main.LOGGER.log(Level.SEVERE, "An interrupt happened while execution the process.", e);
-            Thread.currentThread().interrupt();
-        }
-        catch (IOException e) {
-            Main.LOGGER.log(Level.SEVERE, "An IO error occured while converting to ETC1A4", e);
-        }
-        
-        return new byte[0];
+        return convertToETC1A4(image, ETC1Encoder.Quality.MEDIUM);
+    }
+    
+    public static byte[] convertToETC1A4(int[] pixels, int width, int height) {
+        return ETC1Encoder.encode(pixels, width, height, true, ETC1Encoder.Quality.MEDIUM);
+    }
+    
+    public static byte[] convertToETC1A4(BufferedImage image, ETC1Encoder.Quality quality) {
+        return ETC1Encoder.encode(getPixels(image), image.getWidth(), image.getHeight(), true, quality);
     }
 }
@@ -1,24 +1,45 @@
 package net.digimonworld.decodetools.arcv;
 
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 import java.util.zip.Deflater;
 
 import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.arcv.ARCVManifest.ManifestEntry;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.DummyResData;
 import net.digimonworld.decodetools.res.ResPayload;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
 
 public class ARCVFile {
+    private static final int SECTOR_SIZE = 0x800;
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+    private static final String MANIFEST_NAME = "ARCV0.BIN.manifest";
+    
     private File inputDir;
     private boolean compressed;
     
@@ -35,88 +56,199 @@ public class ARCVFile {
     }
     
     public void saveFiles(File outputDir) throws IOException {
+        saveFiles(outputDir, Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Packs all files of the input directory into an ARCV0.BIN and ARCVINFO.BIN inside the given directory.
+     * <p>
+     * Files are compressed and analyzed in parallel by a fixed number of workers, each reusing its own
+     * {@link Deflater}. Results are written to ARCV0.BIN in input order as soon as they are next in line, with at most
+     * {@value #IN_FLIGHT_PER_WORKER} files per worker being processed or waiting to be written at any time. This keeps
+     * the memory usage independent of the size of the archive.
+     * </p>
+     * 
+     * @param outputDir the directory to write the archive into
+     * @param threads the number of workers to use
+     * @throws IOException if anything goes wrong while writing the archive
+     */
+    public void saveFiles(File outputDir, int threads) throws IOException {
+        saveFiles(outputDir, threads, false);
+    }
+    
+    /**
+     * Packs all files of the input directory into an ARCV0.BIN and ARCVINFO.BIN inside the given directory.
+     * <p>
+     * In incremental mode an {@link ARCVManifest} is kept next to the archive. Files whose size and modification time
+     * or content hash match the manifest get their compressed data copied from the existing ARCV0.BIN and their
+     * {@link MARVEntry} taken from the manifest, only changed files get compressed and analyzed again.
+     * </p>
+     * 
+     * @param outputDir the directory to write the archive into
+     * @param threads the number of workers to use
+     * @param incremental whether to reuse data of unchanged files from the previous build
+     * @throws IOException if anything goes wrong while writing the archive
+     * @see #saveFiles(File, int)
+     */
+    public void saveFiles(File outputDir, int threads, boolean incremental) throws IOException {
         File destFile = new File(outputDir, "ARCV0.BIN");
+        File tempFile = new File(outputDir, "ARCV0.BIN.tmp");
+        File manifestFile = new File(outputDir, MANIFEST_NAME);
         
-        if (destFile.exists() && !destFile.delete())
+        if (tempFile.exists() && !tempFile.delete())
             return;
-        if (!destFile.exists() && !destFile.createNewFile())
+        if (!tempFile.exists() && !tempFile.createNewFile())
             return;
         
-        Access destination = new FileAccess(destFile);
+        ARCVManifest previous = incremental ? ARCVManifest.load(manifestFile, destFile, compressed) : new ARCVManifest(compressed);
+        ARCVManifest manifest = new ARCVManifest(compressed);
+        
         VCRAFile arcvinfo = new VCRAFile();
         RunValues run = new RunValues();
         
-        List<File> list = Utils.listFiles(inputDir);
+        List<File> list = Utils.listFiles(inputDir).stream()
+                               .filter(a -> !a.getName().endsWith(".bak") && a.isFile())
+                               .collect(Collectors.toList());
         
-        list.parallelStream().filter(a -> !a.getName().endsWith(".bak") && a.isFile()).map(t -> {
-            Path filePath = inputDir.toPath().relativize(t.toPath());
-            Main.LOGGER.info("Adding " + filePath);
-            try {
-                return addFile(t.toPath(), filePath.toString().replace("\\", "/")); // fuck windows
-            }
-            catch (Exception e) {
-                Main.LOGGER.log(Level.WARNING, e, () -> "Exception while adding file to ARCVFile: " + filePath);
+        int workerCount = Math.max(1, threads);
+        BlockingQueue<CompressionWorker> workers = new ArrayBlockingQueue<>(workerCount);
+        for (int i = 0; i < workerCount; i++)
+            workers.add(new CompressionWorker());
+        
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        Deque<Future<AddFileResult>> inFlight = new ArrayDeque<>();
+        Iterator<File> itr = list.iterator();
+        boolean completed = false;
+        
+        try (FileChannel destination = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE);
+             FileChannel source = previous.isEmpty() ? null : FileChannel.open(destFile.toPath(), StandardOpenOption.READ)) {
+            while (itr.hasNext() || !inFlight.isEmpty()) {
+                // keep the window filled, but never let more than the window size pile up in memory
+                if (itr.hasNext() && inFlight.size() < workerCount * IN_FLIGHT_PER_WORKER) {
+                    File file = itr.next();
+                    inFlight.add(executor.submit(() -> addFile(workers, file, previous, source, incremental)));
+                    continue;
+                }
+                
+                AddFileResult a = inFlight.poll().get();
+                arcvinfo.addEntry(new VCRAEntry(a.compressedSize, a.uncompressedSize, a.name, run.sectorCount, a.marv));
+                if (incremental)
+                    manifest.put(new ManifestEntry(a.name, a.lastModified, a.hash, a.compressedSize, a.uncompressedSize, run.sectorCount, a.marv));
+                
+                ByteBuffer buffer = ByteBuffer.wrap(a.output);
+                long position = run.sectorCount * (long) SECTOR_SIZE;
+                while (buffer.hasRemaining())
+                    position += destination.write(buffer, position);
+                run.sectorCount += a.output.length / SECTOR_SIZE;
+                
+                run.zipTime += a.zipTime;
+                run.resLoadTime += a.loadTime;
+                run.resDataTime += a.dataTime;
+                run.reusedCount += a.reused ? 1 : 0;
             }
             
-            return null;
-        }).forEachOrdered(a -> {
-            arcvinfo.addEntry(new VCRAEntry(a.compressedSize, a.uncompressedSize, a.name, run.sectorCount, a.marv));
-            destination.writeByteArray(a.output.toByteArray());
-            run.sectorCount += (a.output.size() + 0x800 - 1) / 0x800;
+            manifest.setArchiveSize(destination.size());
+            completed = true;
+        }
+        catch (InterruptedException e) {
+            Main.LOGGER.log(Level.SEVERE, "Interrupted while writing ARCV0.BIN.", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch (ExecutionException e) {
+            // a missing file would leave a broken archive, so abort the whole rebuild
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Exception while adding file to ARCVFile.", e.getCause());
+        }
+        finally {
+            // the workers' Deflaters may only be ended once no task uses them anymore
+            executor.shutdownNow();
+            Utils.awaitTerminationUninterruptibly(executor);
+            workers.forEach(CompressionWorker::end);
             
-            run.zipTime += a.zipTime;
-            run.resLoadTime += a.loadTime;
-            run.resDataTime += a.dataTime;
-        });
+            // keep the previous archive intact if anything went wrong
+            if (!completed)
+                Files.deleteIfExists(tempFile.toPath());
+        }
         
-        destination.close();
+        Files.move(tempFile.toPath(), destFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         arcvinfo.repack(new File(outputDir, "ARCVINFO.BIN"));
         
-        Main.LOGGER.info(() -> String.format("ZIP: %d | Res Load: %d | Res Data: %d",
+        // a manifest not matching the new archive must not survive a full rebuild
+        if (incremental)
+            manifest.save(manifestFile);
+        else
+            Files.deleteIfExists(manifestFile.toPath());
+        
+        Main.LOGGER.info(() -> String.format("ZIP: %d | Res Load: %d | Res Data: %d | Reused: %d of %d",
                                              (run.zipTime / 1000000),
                                              (run.resLoadTime / 1000000),
-                                             (run.resDataTime / 1000000)));
+                                             (run.resDataTime / 1000000),
+                                             run.reusedCount,
+                                             list.size()));
+    }
+    
+    private AddFileResult addFile(BlockingQueue<CompressionWorker> workers, File file, ARCVManifest previous, FileChannel source,
+                                  boolean incremental) throws IOException {
+        Path filePath = inputDir.toPath().relativize(file.toPath());
+        Main.LOGGER.info("Adding " + filePath);
+        
+        CompressionWorker worker = workers.poll();
+        try {
+            return addFile(worker, file.toPath(), filePath.toString().replace("\\", "/"), previous, source, incremental); // fuck windows
+        }
+        catch (IOException | RuntimeException e) {
+            throw new IOException("Exception while adding file to ARCVFile: " + filePath, e);
+        }
+        finally {
+            workers.add(worker);
+        }
     }
     
-    private AddFileResult addFile(Path a, String name) throws IOException {
+    private AddFileResult addFile(CompressionWorker worker, Path a, String name, ARCVManifest previous, FileChannel source,
+                                  boolean incremental) throws IOException {
+        long lastModified = Files.getLastModifiedTime(a).toMillis();
+        ManifestEntry old = previous.get(name);
+        
+        // unchanged since the last build, don't even read it
+        if (old != null && old.getUncompressedSize() == Files.size(a) && old.getLastModified() == lastModified)
+            return reuseFile(old, lastModified, old.getHash(), source);
+        
+        byte[] input = Files.readAllBytes(a);
+        // the hash only ends up in the manifest, which a full rebuild doesn't write
+        byte[] hash = incremental ? worker.hash(input) : null;
+        
+        // touched, but not changed
+        if (old != null && Arrays.equals(old.getHash(), hash))
+            return reuseFile(old, lastModified, hash, source);
+        
         AddFileResult result = new AddFileResult();
         result.name = name;
+        result.lastModified = lastModified;
+        result.hash = hash;
         
         long timer = System.nanoTime();
         
         // ZIP
-        byte[] input = Files.readAllBytes(a);
         boolean shouldCompress = input.length > 0x1000 && compressed;
-        int compressedSize = 0;
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         
         if (shouldCompress) {
-            Deflater compresser = new Deflater(Deflater.BEST_COMPRESSION);
-            compresser.setInput(input);
-            compresser.finish();
-            
-            byte[] output = new byte[0x800];
-            while (!compresser.finished()) {
-                Arrays.fill(output, (byte) 0);
-                compressedSize += compresser.deflate(output);
-                outputStream.write(output);
-            }
+            result.compressedSize = worker.deflate(input);
+            result.output = worker.getOutput(result.compressedSize);
         }
         else {
-            byte[] output = Arrays.copyOf(input, Utils.align(input.length, 0x800));
-            compressedSize = input.length;
-            outputStream.write(output);
+            result.compressedSize = input.length;
+            result.output = Arrays.copyOf(input, Utils.align(input.length, SECTOR_SIZE));
         }
         
-        result.output = outputStream;
-        result.compressedSize = compressedSize;
         result.uncompressedSize = input.length;
         
         result.zipTime = System.nanoTime() - timer;
         timer = System.nanoTime();
         
-        // Res Load
-        Access access = new FileAccess(a.toFile(), true);
+        // Res Load, from the bytes already read so the source file is never mapped and can be replaced
+        Access access = new StreamAccess(input);
         ResPayload res = ResPayload.craft(access);
         int kcapSize = res.getType() == Payload.KCAP ? access.readInteger(0x08) : 0;
         access.close();
@@ -124,7 +256,8 @@ public class ARCVFile {
         result.loadTime = System.nanoTime() - timer;
         timer = System.nanoTime();
         
-        // Res Data
+        // Res Data, the tree gets discarded afterwards so the layout doesn't need to be cleared
+        res.computeLayout();
         int structureSize = res.getSizeOfRoot();
         DummyResData resData = new DummyResData();
         res.fillDummyResData(resData);
@@ -153,13 +286,103 @@ public class ARCVFile {
         return result;
     }
     
+    private static AddFileResult reuseFile(ManifestEntry old, long lastModified, byte[] hash, FileChannel source) throws IOException {
+        AddFileResult result = new AddFileResult();
+        result.name = old.getPath();
+        result.lastModified = lastModified;
+        result.hash = hash;
+        result.compressedSize = old.getCompressedSize();
+        result.uncompressedSize = old.getUncompressedSize();
+        result.marv = old.getMARV();
+        result.reused = true;
+        
+        long timer = System.nanoTime();
+        
+        ByteBuffer buffer = ByteBuffer.allocate(Utils.align(old.getCompressedSize(), SECTOR_SIZE));
+        long position = old.getSector() * (long) SECTOR_SIZE;
+        while (buffer.hasRemaining())
+            if (source.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Reached end of previous ARCV0.BIN while reading " + old.getPath());
+        
+        result.output = buffer.array();
+        result.zipTime = System.nanoTime() - timer;
+        
+        return result;
+    }
+    
+    /**
+     * The per worker state of {@link ARCVFile#saveFiles(File, int)}.
+     * Not thread safe, every instance must only be used by one thread at a time.
+     */
+    private static class CompressionWorker {
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final MessageDigest digest;
+        private byte[] buffer = new byte[0x10000];
+        
+        public CompressionWorker() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException e) {
+                // every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        public byte[] hash(byte[] input) {
+            return digest.digest(input);
+        }
+        
+        /**
+         * Compresses the given data into this worker's buffer.
+         * 
+         * @param input the data to compress
+         * @return the compressed size
+         */
+        public int deflate(byte[] input) {
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+            
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == buffer.length)
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                
+                size += deflater.deflate(buffer, size, buffer.length - size);
+            }
+            
+            return size;
+        }
+        
+        /**
+         * Gets a copy of the last compressed data, zero padded to the next sector.
+         * 
+         * @param size the compressed size, as returned by {@link #deflate(byte[])}
+         * @return the sector aligned compressed data
+         */
+        public byte[] getOutput(int size) {
+            byte[] output = new byte[Utils.align(size, SECTOR_SIZE)];
+            System.arraycopy(buffer, 0, output, 0, size);
+            return output;
+        }
+        
+        public void end() {
+            deflater.end();
+        }
+    }
+    
     static class AddFileResult {
-        ByteArrayOutputStream output;
+        byte[] output;
         MARVEntry marv;
         String name;
         int uncompressedSize;
         int compressedSize;
         
+        long lastModified;
+        byte[] hash;
+        boolean reused;
+        
         long zipTime;
         long loadTime;
         long dataTime;
@@ -167,6 +390,7 @@ public class ARCVFile {
     
     static class RunValues {
         int sectorCount = 0;
+        int reusedCount = 0;
         
         long zipTime = 0;
         long resLoadTime = 0;
@@ -0,0 +1,216 @@
+package net.digimonworld.decodetools.arcv;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+
+/*
+ * ARCV Manifest Format – 0x20
+ * int - magic value (ARCM)
+ * int - version
+ * int - number of entries
+ * int - compressed flag of the archive
+ * long - size of the ARCV0.BIN this manifest describes
+ * long - padding
+ *
+ * Entry
+ * int - path length in bytes
+ * byte[] - path (UTF-8)
+ * long - source file last modified time (ms)
+ * byte[32] - SHA-256 of the source file
+ * int - compressed size
+ * int - uncompressed size
+ * int - start sector in ARCV0.BIN
+ * int - has MARV flag
+ * byte[0x20] - MARV entry, zero if there is none
+ */
+/**
+ * A persistent record of the files an {@link ARCVFile} was built from, used to reuse the compressed data and
+ * {@link MARVEntry} of unchanged files on subsequent rebuilds.
+ */
+public class ARCVManifest {
+    private static final int MAGIC_VALUE = 0x4D435241; // ARCM
+    private static final int VERSION = 1;
+    private static final int HASH_SIZE = 32;
+    private static final int ENTRY_SIZE = 0x5C;
+    
+    private final Map<String, ManifestEntry> entries = new ConcurrentHashMap<>();
+    private final boolean compressed;
+    private long archiveSize;
+    
+    public ARCVManifest(boolean compressed) {
+        this.compressed = compressed;
+    }
+    
+    private ARCVManifest(Access source) {
+        if (source.readInteger() != MAGIC_VALUE)
+            throw new IllegalArgumentException("Given Access does not point to an ARCV manifest.");
+        if (source.readInteger() != VERSION)
+            throw new IllegalArgumentException("The given ARCV manifest is not of version " + VERSION + " and thus not supported.");
+        
+        int numEntries = source.readInteger();
+        compressed = source.readInteger() == 1;
+        archiveSize = source.readLong();
+        source.readLong(); // padding
+        
+        for (int i = 0; i < numEntries; i++) {
+            ManifestEntry entry = new ManifestEntry(source);
+            entries.put(entry.path, entry);
+        }
+    }
+    
+    /**
+     * Loads the manifest from the given file.
+     * <p>
+     * If the manifest doesn't exist, can't be read or doesn't describe the given archive an empty manifest is
+     * returned, causing every file to be rebuilt.
+     * </p>
+     *
+     * @param manifest the manifest file to load
+     * @param archive the ARCV0.BIN the manifest is supposed to describe
+     * @param compressed whether the archive to be built will be compressed
+     * @return the loaded manifest, or an empty one if it is not applicable
+     */
+    public static ARCVManifest load(File manifest, File archive, boolean compressed) {
+        if (!manifest.isFile() || !archive.isFile())
+            return new ARCVManifest(compressed);
+        
+        try (Access access = new MappedAccess(manifest)) {
+            ARCVManifest loaded = new ARCVManifest(access);
+            
+            if (loaded.compressed == compressed && loaded.archiveSize == archive.length())
+                return loaded;
+            
+            Main.LOGGER.info("ARCV manifest doesn't match the existing archive, rebuilding every file.");
+        }
+        catch (IOException | RuntimeException e) {
+            Main.LOGGER.log(Level.WARNING, "Exception while loading ARCV manifest, rebuilding every file.", e);
+        }
+        
+        return new ARCVManifest(compressed);
+    }
+    
+    public void save(File file) throws IOException {
+        int size = 0x20;
+        for (ManifestEntry entry : entries.values())
+            size += ENTRY_SIZE + entry.path.getBytes(StandardCharsets.UTF_8).length;
+        
+        try (Access dest = new StreamAccess(new byte[size])) {
+            dest.writeInteger(MAGIC_VALUE);
+            dest.writeInteger(VERSION);
+            dest.writeInteger(entries.size());
+            dest.writeInteger(compressed ? 1 : 0);
+            dest.writeLong(archiveSize);
+            dest.writeLong(0);
+            
+            for (ManifestEntry entry : entries.values())
+                entry.write(dest);
+            
+            Files.write(file.toPath(), ((StreamAccess) dest).getBuffer().array());
+        }
+    }
+    
+    public ManifestEntry get(String path) {
+        return entries.get(path);
+    }
+    
+    public void put(ManifestEntry entry) {
+        entries.put(entry.path, entry);
+    }
+    
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    
+    public void setArchiveSize(long archiveSize) {
+        this.archiveSize = archiveSize;
+    }
+    
+    public static class ManifestEntry {
+        private final String path;
+        private final long lastModified;
+        private final byte[] hash;
+        
+        private final int compressedSize;
+        private final int uncompressedSize;
+        private final int sector;
+        private final MARVEntry marv;
+        
+        public ManifestEntry(String path, long lastModified, byte[] hash, int compressedSize, int uncompressedSize, int sector, MARVEntry marv) {
+            if (hash.length != HASH_SIZE)
+                throw new IllegalArgumentException("Expected a hash of " + HASH_SIZE + " bytes, but got " + hash.length);
+            
+            this.path = path;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.compressedSize = compressedSize;
+            this.uncompressedSize = uncompressedSize;
+            this.sector = sector;
+            this.marv = marv;
+        }
+        
+        private ManifestEntry(Access source) {
+            path = source.readString(source.readInteger(), "UTF-8");
+            lastModified = source.readLong();
+            hash = source.readByteArray(HASH_SIZE);
+            compressedSize = source.readInteger();
+            uncompressedSize = source.readInteger();
+            sector = source.readInteger();
+            
+            boolean hasMarv = source.readInteger() == 1;
+            byte[] marvData = source.readByteArray(0x20);
+            marv = hasMarv ? new MARVEntry(ByteBuffer.wrap(marvData)) : null;
+        }
+        
+        private void write(Access dest) {
+            byte[] pathData = path.getBytes(StandardCharsets.UTF_8);
+            dest.writeInteger(pathData.length);
+            dest.writeByteArray(pathData);
+            dest.writeLong(lastModified);
+            dest.writeByteArray(hash);
+            dest.writeInteger(compressedSize);
+            dest.writeInteger(uncompressedSize);
+            dest.writeInteger(sector);
+            dest.writeInteger(marv != null ? 1 : 0);
+            dest.writeByteArray(marv != null ? marv.getBytes() : new byte[0x20]);
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public long getLastModified() {
+            return lastModified;
+        }
+        
+        public byte[] getHash() {
+            return hash;
+        }
+        
+        public int getCompressedSize() {
+            return compressedSize;
+        }
+        
+        public int getUncompressedSize() {
+            return uncompressedSize;
+        }
+        
+        public int getSector() {
+            return sector;
+        }
+        
+        public MARVEntry getMARV() {
+            return marv;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package net.digimonworld.decodetools.arcv;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+
+/**
+ * Provides read only access to single files inside an ARCV0.BIN without extracting the whole archive.
+ * <p>
+ * Entries are looked up by path through the index of the {@link VCRAFile} and only the requested entry gets read and
+ * inflated. Recently used entries are kept in a least recently used cache, bounded by the sum of their uncompressed
+ * sizes.
+ * </p>
+ * <p>
+ * This class is thread safe, every {@link Access} returned by {@link #open(String)} has its own position.
+ * </p>
+ */
+public class ARCVReader implements Closeable {
+    private static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+    private static final int SECTOR_SIZE = 0x800;
+    
+    private final VCRAFile info;
+    private final FileChannel arcv;
+    private final long maxCacheSize;
+    
+    private final Map<String, ByteBuffer> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheSize = 0;
+    
+    /**
+     * Initializes a new instance of this class.
+     *
+     * @param info the parsed ARCVINFO.BIN describing the archive
+     * @param arcv the ARCV0.BIN to read from
+     * @param maxCacheSize the maximum amount of uncompressed bytes to keep cached
+     * @throws IOException if anything goes wrong while opening the ARCV0.BIN
+     */
+    public ARCVReader(VCRAFile info, Path arcv, long maxCacheSize) throws IOException {
+        this.info = info;
+        this.arcv = FileChannel.open(arcv, StandardOpenOption.READ);
+        this.maxCacheSize = maxCacheSize;
+    }
+    
+    /**
+     * Initializes a new instance of this class, reading ARCVINFO.BIN and ARCV0.BIN from the given directory.
+     * <p>
+     * The cache will be limited to 64 MiB.
+     * </p>
+     *
+     * @param arcvDir the directory containing ARCVINFO.BIN and ARCV0.BIN
+     * @throws IOException if anything goes wrong while opening the files
+     */
+    public ARCVReader(Path arcvDir) throws IOException {
+        this(readInfo(arcvDir.resolve("ARCVINFO.BIN")), arcvDir.resolve("ARCV0.BIN"), DEFAULT_CACHE_SIZE);
+    }
+    
+    private static VCRAFile readInfo(Path path) throws IOException {
+        try (Access access = new MappedAccess(path.toFile())) {
+            return new VCRAFile(access);
+        }
+    }
+    
+    /**
+     * Checks whether the archive contains a file with the given path.
+     *
+     * @param path the path of the file, as in the extracted archive
+     * @return true if the file exists, false otherwise
+     */
+    public boolean exists(String path) {
+        return info.getEntry(normalize(path)) != null;
+    }
+    
+    /**
+     * Gets the paths of all files in the archive.
+     *
+     * @return a list of all paths in the archive
+     */
+    public List<String> list() {
+        return info.getEntries().stream().map(VCRAEntry::getPath).collect(Collectors.toList());
+    }
+    
+    /**
+     * Opens the file with the given path for reading, inflating it if it's not already cached.
+     *
+     * @param path the path of the file, as in the extracted archive
+     * @return a read only {@link Access} to the uncompressed file, positioned at its start
+     * @throws FileNotFoundException if there is no file with the given path
+     * @throws IOException if anything goes wrong while reading or inflating the file
+     */
+    public Access open(String path) throws IOException {
+        String normalized = normalize(path);
+        VCRAEntry entry = info.getEntry(normalized);
+        
+        if (entry == null)
+            throw new FileNotFoundException("ARCV doesn't contain " + path);
+        
+        ByteBuffer data = getCached(normalized);
+        if (data == null) {
+            try {
+                data = read(entry).asReadOnlyBuffer();
+            }
+            catch (DataFormatException e) {
+                throw new IOException("Exception while inflating ARCV entry " + path, e);
+            }
+            putCached(normalized, data);
+        }
+        
+        return new StreamAccess(data.duplicate());
+    }
+    
+    private synchronized ByteBuffer getCached(String path) {
+        return cache.get(path);
+    }
+    
+    private synchronized void putCached(String path, ByteBuffer data) {
+        if (data.capacity() > maxCacheSize || cache.containsKey(path))
+            return;
+        
+        cache.put(path, data);
+        cacheSize += data.capacity();
+        
+        Iterator<Entry<String, ByteBuffer>> itr = cache.entrySet().iterator();
+        while (cacheSize > maxCacheSize && itr.hasNext()) {
+            Entry<String, ByteBuffer> eldest = itr.next();
+            cacheSize -= eldest.getValue().capacity();
+            itr.remove();
+        }
+    }
+    
+    private ByteBuffer read(VCRAEntry entry) throws IOException, DataFormatException {
+        ByteBuffer raw = ByteBuffer.allocate(entry.getCompressedSize());
+        long position = entry.getSector() * (long) SECTOR_SIZE;
+        
+        while (raw.hasRemaining())
+            if (arcv.read(raw, position + raw.position()) < 0)
+                throw new EOFException("Reached end of ARCV0.BIN while reading " + entry.getPath());
+        
+        if (entry.getCompressedSize() == entry.getUnpackedSize())
+            return raw.flip();
+        
+        byte[] output = new byte[entry.getUnpackedSize()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(raw.array());
+            inflater.inflate(output);
+        }
+        finally {
+            inflater.end();
+        }
+        
+        return ByteBuffer.wrap(output);
+    }
+    
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        return normalized.startsWith("/") ? normalized.substring(1) : normalized;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        arcv.close();
+        
+        synchronized (this) {
+            cache.clear();
+            cacheSize = 0;
+        }
+    }
+}
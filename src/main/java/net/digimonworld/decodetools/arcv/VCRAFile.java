@@ -1,15 +1,26 @@
 package net.digimonworld.decodetools.arcv;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.zip.DataFormatException;
@@ -17,7 +28,8 @@ import java.util.zip.Inflater;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.PagedFileAccess;
+import net.digimonworld.decodetools.core.Utils;
 
 /*
  * VCRA Format – 0x20
@@ -37,6 +49,7 @@ public class VCRAFile {
     private static final int SECTOR_SIZE = 0x800;
     
     private List<VCRAEntry> entries = new ArrayList<>();
+    private Map<String, VCRAEntry> index = new HashMap<>();
     
     private int unknown1;
     private int unknown2;
@@ -47,7 +60,7 @@ public class VCRAFile {
         source.setPosition(0x20);
         
         for (int i = 0; i < numEntries; i++)
-            entries.add(new VCRAEntry(source));
+            addEntry(new VCRAEntry(source));
         
         unknown1 = source.readInteger(0x14);
         unknown2 = source.readInteger(0x18);
@@ -62,32 +75,96 @@ public class VCRAFile {
     
     public void addEntry(VCRAEntry entry) {
         entries.add(entry);
+        index.put(entry.getPath(), entry);
     }
     
+    /**
+     * Gets the entry with the given path.
+     * 
+     * @param path the path of the entry, using '/' as separator
+     * @return the entry with the given path or null if there is none
+     */
+    public VCRAEntry getEntry(String path) {
+        return index.get(path);
+    }
+    
+    /**
+     * Returns an immutable List of all the entries of this ARCVINFO.BIN, in their respective order.
+     * 
+     * @return a immutable List of entries
+     */
+    public List<VCRAEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+    
+    /**
+     * Extracts all entries of the given ARCV0.BIN into the given directory, using one worker per available processor.
+     * 
+     * @param inputARCV the ARCV0.BIN belonging to this ARCVINFO.BIN
+     * @param outputDir the directory to extract into
+     */
     public void extractARCV(Path inputARCV, Path outputDir) {
-        try(Access arcv = new FileAccess(inputARCV.toFile())) {
-            for(VCRAEntry entry : entries) {
-                
-                Path outputFile = outputDir.resolve(entry.getPath());
-                byte[] raw = arcv.readByteArray(entry.getCompressedSize(), entry.getSector() * 0x800L);
-                byte[] output;
+        extractARCV(inputARCV, outputDir, Runtime.getRuntime().availableProcessors(), null);
+    }
+    
+    /**
+     * Extracts all entries of the given ARCV0.BIN into the given directory.
+     * <p>
+     * Entries are extracted in parallel by a fixed number of workers. Each worker owns an {@link Inflater} and a pair
+     * of fixed size buffers it reuses for every entry, so compressed data gets streamed from the archive into the
+     * output file without ever holding a whole entry in memory.
+     * </p>
+     * 
+     * @param inputARCV the ARCV0.BIN belonging to this ARCVINFO.BIN
+     * @param outputDir the directory to extract into
+     * @param threads the number of workers to use
+     * @param progress called with the number of handled and total entries after each entry, may be null
+     */
+    public void extractARCV(Path inputARCV, Path outputDir, int threads, BiConsumer<Integer, Integer> progress) {
+        int workerCount = Math.max(1, threads);
+        BlockingQueue<ExtractionWorker> workers = new ArrayBlockingQueue<>(workerCount);
+        for (int i = 0; i < workerCount; i++)
+            workers.add(new ExtractionWorker());
                 
-                if(entry.getCompressedSize() == entry.getUnpackedSize())
-                    output = raw;
-                else {
-                    output = new byte[entry.getUnpackedSize()];
-                    Inflater inflater = new Inflater();
-                    inflater.setInput(raw);
-                    inflater.inflate(output);
-                }
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        AtomicInteger handled = new AtomicInteger();
                 
-                Files.createDirectories(outputFile.getParent());
-                Files.write(outputFile, output, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (FileChannel arcv = FileChannel.open(inputARCV, StandardOpenOption.READ)) {
+            for (VCRAEntry entry : entries) {
+                executor.execute(() -> {
+                    ExtractionWorker worker = workers.poll();
+                    try {
+                        worker.extract(arcv, entry, outputDir.resolve(entry.getPath()));
+                    }
+                    catch (IOException | DataFormatException e) {
+                        Main.LOGGER.log(Level.SEVERE, e, () -> "Exception while extracting ARCV entry: " + entry.getPath());
+                    }
+                    finally {
+                        workers.add(worker);
+                    }
+                    
+                    int count = handled.incrementAndGet();
+                    if (progress != null)
+                        progress.accept(count, entries.size());
+                });
             }
+            
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
         }
-        catch (IOException | DataFormatException e) {
+        catch (IOException e) {
             Main.LOGGER.log(Level.SEVERE, "Exception while extracting ARCV: ", e);
         }
+        catch (InterruptedException e) {
+            Main.LOGGER.log(Level.SEVERE, "Interrupted while extracting ARCV: ", e);
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            // the workers' Inflaters may only be ended once no task uses them anymore
+            executor.shutdownNow();
+            Utils.awaitTerminationUninterruptibly(executor);
+            workers.forEach(ExtractionWorker::end);
+        }
     }
     
     public void repack(File file) {
@@ -101,7 +178,7 @@ public class VCRAFile {
             Main.LOGGER.log(Level.WARNING, "Exception while creating new ARCVINFO.BIN.", e1);
         }
         
-        try (Access access = new FileAccess(file)) {
+        try (Access access = new PagedFileAccess(file)) {
             int marvStart = 0x20 + entries.size() * 0x20;
             int pathStart = (int) (marvStart + entries.stream().filter(a -> a.getMARV() != null).count() * 0x20);
             int totalSize = pathStart + entries.stream().collect(Collectors.summingInt(a -> a.getPath().length() + 1));
@@ -146,6 +223,76 @@ public class VCRAFile {
         }
     }
     
+    /**
+     * The per worker state of {@link VCRAFile#extractARCV(Path, Path, int, BiConsumer)}.
+     * Not thread safe, every instance must only be used by one thread at a time.
+     */
+    private static class ExtractionWorker {
+        private static final int BUFFER_SIZE = 0x10000;
+        
+        private final Inflater inflater = new Inflater();
+        private final ByteBuffer inputBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer outputBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        
+        public void extract(FileChannel arcv, VCRAEntry entry, Path outputFile) throws IOException, DataFormatException {
+            Files.createDirectories(outputFile.getParent());
+            
+            try (FileChannel output = FileChannel.open(outputFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long start = entry.getSector() * (long) SECTOR_SIZE;
+                
+                if (entry.getCompressedSize() == entry.getUnpackedSize())
+                    copy(arcv, start, entry.getUnpackedSize(), output);
+                else
+                    inflate(arcv, start, entry.getCompressedSize(), output);
+            }
+        }
+        
+        private static void copy(FileChannel arcv, long start, long size, FileChannel output) throws IOException {
+            long written = 0;
+            while (written < size) {
+                long count = arcv.transferTo(start + written, size - written, output);
+                if (count <= 0)
+                    throw new EOFException("Reached end of ARCV0.BIN while copying an entry.");
+                written += count;
+            }
+        }
+        
+        private void inflate(FileChannel arcv, long start, long compressedSize, FileChannel output) throws IOException, DataFormatException {
+            long position = start;
+            long end = start + compressedSize;
+            inflater.reset();
+            
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (position >= end)
+                        throw new DataFormatException("Compressed entry ended before the inflater finished.");
+                    
+                    inputBuffer.clear();
+                    inputBuffer.limit((int) Math.min(inputBuffer.capacity(), end - position));
+                    int read = arcv.read(inputBuffer, position);
+                    if (read < 0)
+                        throw new EOFException("Reached end of ARCV0.BIN while reading an entry.");
+                    
+                    position += read;
+                    inputBuffer.flip();
+                    inflater.setInput(inputBuffer);
+                }
+                
+                outputBuffer.clear();
+                int inflated = inflater.inflate(outputBuffer);
+                if (inflated == 0 && inflater.needsDictionary())
+                    throw new DataFormatException("Compressed entry requires a preset dictionary, which is not supported.");
+                
+                outputBuffer.flip();
+                while (outputBuffer.hasRemaining())
+                    output.write(outputBuffer);
+            }
+        }
+        
+        public void end() {
+            inflater.end();
+        }
+    }
 }
 
 class VCRAPathComperator implements Comparator<VCRAEntry> {
@@ -1,6 +1,7 @@
 package net.digimonworld.decodetools.core;
 
 import java.io.Closeable;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
@@ -432,6 +433,128 @@ public interface Access extends Closeable {
         return data;
     }
     
+    /**
+     * Reads an array of integers from the underlying data storage from the current position.
+     * <p>
+     * This operation increases the current position by {@code length * 4}.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default int[] readIntegerArray(int length) {
+        int[] data = new int[length];
+        
+        for (int i = 0; i < length; i++)
+            data[i] = readInteger();
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of integers from the underlying data storage from the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param offset the offset from the current position to read from
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default int[] readIntegerArrayOffset(int length, long offset) {
+        return readIntegerArray(length, getPosition() + offset);
+    }
+    
+    /**
+     * Reads an array of integers from the underlying data storage from the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @param address the position to read from
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default int[] readIntegerArray(int length, long address) {
+        int[] data = new int[length];
+        
+        for (int i = 0; i < length; i++)
+            data[i] = readInteger(address + i * 4L);
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of floats from the underlying data storage from the current position.
+     * <p>
+     * This operation increases the current position by {@code length * 4}.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default float[] readFloatArray(int length) {
+        float[] data = new float[length];
+        
+        for (int i = 0; i < length; i++)
+            data[i] = readFloat();
+        
+        return data;
+    }
+    
+    /**
+     * Reads an array of floats from the underlying data storage from the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param offset the offset from the current position to read from
+     * @param length the length of the array that should be read
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default float[] readFloatArrayOffset(int length, long offset) {
+        return readFloatArray(length, getPosition() + offset);
+    }
+    
+    /**
+     * Reads an array of floats from the underlying data storage from the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param length the length of the array that should be read
+     * @param address the position to read from
+     * @return the array of the given {@code length} filled with the data read
+     */
+    public default float[] readFloatArray(int length, long address) {
+        float[] data = new float[length];
+        
+        for (int i = 0; i < length; i++)
+            data[i] = readFloat(address + i * 4L);
+        
+        return data;
+    }
+    
+    /**
+     * Returns a {@link ByteBuffer} containing the given range of the underlying data storage, in the byte order of
+     * this Access. The returned buffer has a position of 0 and a capacity of {@code length}.
+     * <p>
+     * Implementations backed by memory return a view without copying any data, others return a copy. Whether
+     * modifications of the returned buffer are reflected in the underlying data storage is thus implementation
+     * dependent and callers must not rely on either behavior.
+     * </p>
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param address the position the buffer should start at
+     * @param length the length of the buffer
+     * @return a buffer containing the given range of data
+     */
+    public default ByteBuffer asByteBuffer(long address, int length) {
+        return ByteBuffer.wrap(readByteArray(length, address));
+    }
+    
     /**
      * Writes a byte to the underlying data storage at the current position.
      * <p>
@@ -779,6 +902,84 @@ public interface Access extends Closeable {
             writeShort(data[i], start + i * 2);
     }
     
+    /**
+     * Writes an array of integers to the underlying data storage at the current position.
+     * <p>
+     * This operation increases the current position by the number of bytes in the array.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeIntegerArray(int[] data) {
+        for (int d : data)
+            writeInteger(d);
+    }
+    
+    /**
+     * Writes an array of integers to the underlying data storage at the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     * @param offset the offset from the current position to write to
+     */
+    public default void writeIntegerArrayOffset(int[] data, long offset) {
+        writeIntegerArray(data, getPosition() + offset);
+    }
+    
+    /**
+     * Writes an array of integers to the underlying data storage at the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeIntegerArray(int[] data, long start) {
+        for (int i = 0; i < data.length; i++)
+            writeInteger(data[i], start + i * 4L);
+    }
+    
+    /**
+     * Writes an array of floats to the underlying data storage at the current position.
+     * <p>
+     * This operation increases the current position by the number of bytes in the array.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeFloatArray(float[] data) {
+        for (float d : data)
+            writeFloat(d);
+    }
+    
+    /**
+     * Writes an array of floats to the underlying data storage at the current position with an offset.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     * @param offset the offset from the current position to write to
+     */
+    public default void writeFloatArrayOffset(float[] data, long offset) {
+        writeFloatArray(data, getPosition() + offset);
+    }
+    
+    /**
+     * Writes an array of floats to the underlying data storage at the given address.
+     * <p>
+     * This operation does not affect the current position.
+     * </p>
+     * 
+     * @param data the array to write
+     */
+    public default void writeFloatArray(float[] data, long start) {
+        for (int i = 0; i < data.length; i++)
+            writeFloat(data[i], start + i * 4L);
+    }
+    
     /**
      * Gets the current position in the underlying data storage, used for non-absolute access.
      * 
@@ -803,6 +1004,52 @@ public interface Access extends Closeable {
      */
     public long getSize();
     
+    /**
+     * Returns whether this Access supports {@link #duplicate()}, and thus whether its {@link #slice(long, long) slices}
+     * are independent of it.
+     * 
+     * @return true if this Access can be duplicated, false otherwise
+     */
+    public default boolean canDuplicate() {
+        return false;
+    }
+    
+    /**
+     * Creates a new Access over the same underlying data storage, starting at the same current position.
+     * <p>
+     * The new Access has its own current position and shares no mutable state with this one, so reading from one
+     * does not affect the other. This allows multiple threads to read the same data storage at once, as long as nobody
+     * writes to it. The new Access does not own any resources and thus doesn't need to be closed, closing it has no
+     * effect on this one. It can only be used as long as this Access is open.
+     * </p>
+     * 
+     * @return the new Access
+     * @throws UnsupportedOperationException if {@link #canDuplicate()} is false
+     */
+    public default Access duplicate() {
+        throw new UnsupportedOperationException("This Access can't be duplicated.");
+    }
+    
+    /**
+     * Creates a new Access over a range of the underlying data storage. Address 0 of the new Access is the given offset
+     * of this one, its size is the given length and its current position starts at 0.
+     * <p>
+     * Like a {@link #duplicate() duplicate} the new Access has its own current position, doesn't need to be closed
+     * and can only be used as long as this Access is open. If this Access {@link #canDuplicate() can't be duplicated}
+     * the slice shares its state and must not be used concurrently with it. A slice never reads or writes outside of
+     * its range and thus can't grow.
+     * </p>
+     * 
+     * @param offset the address of the range within this Access
+     * @param length the length of the range
+     * @return the new Access
+     * @throws IndexOutOfBoundsException if the range is not within this Access
+     * @throws UnsupportedOperationException if this Access can't be sliced
+     */
+    public default Access slice(long offset, long length) {
+        throw new UnsupportedOperationException("This Access can't be sliced.");
+    }
+    
     /**
      * Helper method to get a {@link Charset} based on its name, using {@link Charset#forName(String)}.
      * If the input is invalid, {@link Charset#defaultCharset()} is returned.
@@ -9,19 +9,52 @@ import java.nio.charset.Charset;
  */
 public abstract class BufferedAccess implements Access {
 
-    // We're not thread safe, as we read a file, so we can reuse the buffers
+    // A single instance isn't thread safe anyway, so we can reuse the buffers. Concurrent readers use duplicates instead.
     private final ByteBuffer byteBuf = ByteBuffer.allocate(1);
     private final ByteBuffer shortBuf = ByteBuffer.allocate(2);
     private final ByteBuffer intBuf = ByteBuffer.allocate(4);
     private final ByteBuffer longBuf = ByteBuffer.allocate(8);
     
+    private final ByteOrder byteOrder;
+    
     protected BufferedAccess(ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+        
         byteBuf.order(byteOrder);
         shortBuf.order(byteOrder);
         intBuf.order(byteOrder);
         longBuf.order(byteOrder);
     }
     
+    @Override
+    public BufferedAccess duplicate() {
+        throw new UnsupportedOperationException("This Access can't be duplicated.");
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation reads and writes through a {@link #duplicate()} of this instance if possible, otherwise
+     * through this instance itself.
+     * </p>
+     */
+    @Override
+    public Access slice(long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > getSize())
+            throw new IndexOutOfBoundsException("Slice " + offset + "+" + length + " is out of bounds for size " + getSize());
+        
+        return new SliceAccess(canDuplicate() ? duplicate() : this, offset, length);
+    }
+    
+    /**
+     * Returns the ByteOrder this instance uses for reading and writing.
+     * 
+     * @return the ByteOrder of this instance
+     */
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+    
     @Override
     public long readLong(long position) {
         readBuffer(longBuf, position);
@@ -166,6 +199,62 @@ public abstract class BufferedAccess implements Access {
         return data;
     }
     
+    @Override
+    public short[] readShortArray(int length) {
+        short[] data = readShortArray(length, getPosition());
+        setPosition(getPosition() + length * 2L);
+        return data;
+    }
+    
+    @Override
+    public short[] readShortArray(int length, long address) {
+        short[] data = new short[length];
+        asByteBuffer(address, length * 2).asShortBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public int[] readIntegerArray(int length) {
+        int[] data = readIntegerArray(length, getPosition());
+        setPosition(getPosition() + length * 4L);
+        return data;
+    }
+    
+    @Override
+    public int[] readIntegerArray(int length, long address) {
+        int[] data = new int[length];
+        asByteBuffer(address, length * 4).asIntBuffer().get(data);
+        return data;
+    }
+    
+    @Override
+    public float[] readFloatArray(int length) {
+        float[] data = readFloatArray(length, getPosition());
+        setPosition(getPosition() + length * 4L);
+        return data;
+    }
+    
+    @Override
+    public float[] readFloatArray(int length, long address) {
+        float[] data = new float[length];
+        asByteBuffer(address, length * 4).asFloatBuffer().get(data);
+        return data;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation reads the range into a newly allocated buffer, subclasses with direct access to their
+     * memory should override it to return a view instead.
+     * </p>
+     */
+    @Override
+    public ByteBuffer asByteBuffer(long address, int length) {
+        ByteBuffer buff = ByteBuffer.allocate(length).order(byteOrder);
+        readBuffer(buff, address);
+        return buff;
+    }
+    
     @Override
     public void writeByte(byte value) {
         byteBuf.clear();
@@ -301,16 +390,63 @@ public abstract class BufferedAccess implements Access {
     
     @Override
     public void writeByteArray(byte[] data) {
-        ByteBuffer buff = ByteBuffer.allocate(data.length);
-        buff.put(data);
-        writeBuffer(buff);
+        writeBuffer(ByteBuffer.wrap(data).position(data.length));
     }
     
     @Override
     public void writeByteArray(byte[] data, long start) {
-        ByteBuffer buff = ByteBuffer.allocate(data.length);
-        buff.put(data);
-        writeBuffer(buff, start);
+        writeBuffer(ByteBuffer.wrap(data).position(data.length), start);
+    }
+    
+    @Override
+    public void writeShortArray(short[] data) {
+        writeBuffer(toBuffer(data));
+    }
+    
+    @Override
+    public void writeShortArray(short[] data, long start) {
+        writeBuffer(toBuffer(data), start);
+    }
+    
+    @Override
+    public void writeIntegerArray(int[] data) {
+        writeBuffer(toBuffer(data));
+    }
+    
+    @Override
+    public void writeIntegerArray(int[] data, long start) {
+        writeBuffer(toBuffer(data), start);
+    }
+    
+    @Override
+    public void writeFloatArray(float[] data) {
+        writeBuffer(toBuffer(data));
+    }
+    
+    @Override
+    public void writeFloatArray(float[] data, long start) {
+        writeBuffer(toBuffer(data), start);
+    }
+    
+    /*
+     * The toBuffer methods return a buffer containing the given data, ready to be passed to writeBuffer.
+     */
+    private ByteBuffer toBuffer(short[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 2).order(byteOrder);
+        buff.asShortBuffer().put(data);
+        return buff.position(buff.capacity());
+    }
+    
+    private ByteBuffer toBuffer(int[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 4).order(byteOrder);
+        buff.asIntBuffer().put(data);
+        return buff.position(buff.capacity());
+    }
+    
+    private ByteBuffer toBuffer(float[] data) {
+        ByteBuffer buff = ByteBuffer.allocate(data.length * 4).order(byteOrder);
+        buff.asFloatBuffer().put(data);
+        return buff.position(buff.capacity());
     }
     
     abstract void readBuffer(ByteBuffer buff);
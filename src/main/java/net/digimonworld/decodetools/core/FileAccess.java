@@ -12,7 +12,8 @@ import java.util.logging.Logger;
 /**
  * An implementation of {@link Access} that reads and writes from a File.
  * 
- * As such it can grow in size.
+ * As such it can grow in size. The current position is kept by the instance itself and all reads and writes are
+ * positional, so {@link #duplicate() duplicates} can share the FileChannel.
  */
 public class FileAccess extends BufferedAccess {
     private static final Logger LOGGER = Logger.getLogger(Access.class.getName());
@@ -25,8 +26,11 @@ public class FileAccess extends BufferedAccess {
     
     private final String name;
     private final FileChannel chan;
+    // duplicates share the channel of the original, which closes it
+    private final boolean ownsChannel;
     
     private boolean readOnly = false;
+    private long position;
     
     /**
      * Initializes a new, read and writable, instance of this class.
@@ -36,10 +40,23 @@ public class FileAccess extends BufferedAccess {
      * @param byteOrder the ByteOrder to use when reading/writing, i.e. Big/Little Endian
      */
     public FileAccess(FileChannel chan, String name, ByteOrder byteOrder) {
+        this(chan, name, byteOrder, false, true);
+        
+        try {
+            this.position = chan.position();
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_READ, e);
+        }
+    }
+    
+    FileAccess(FileChannel chan, String name, ByteOrder byteOrder, boolean readOnly, boolean ownsChannel) {
         super(byteOrder);
         
         this.chan = chan;
         this.name = name;
+        this.readOnly = readOnly;
+        this.ownsChannel = ownsChannel;
     }
     
     /**
@@ -218,28 +235,21 @@ public class FileAccess extends BufferedAccess {
     
     @Override
     public long getPosition() {
-        try {
-            return chan.position();
-        }
-        catch (IOException e) {
-            LOGGER.log(Level.SEVERE, ERROR_READ, e);
-            return -1;
-        }
+        return position;
     }
     
     @Override
     public void setPosition(long address) {
         try {
-            if(address > getSize() && !readOnly) {
-                chan.position(getSize());
-                chan.write(ByteBuffer.allocate((int) (address - getSize())));
-            }
-            else
-                chan.position(address);
+            long size = getSize();
+            if (address > size && !readOnly)
+                chan.write(ByteBuffer.allocate((int) (address - size)), size);
         }
         catch (IOException e) {
-            LOGGER.log(Level.SEVERE, ERROR_READ, e);
+            LOGGER.log(Level.SEVERE, ERROR_WRITE, e);
         }
+        
+        position = address;
     }
     
     @Override
@@ -255,7 +265,26 @@ public class FileAccess extends BufferedAccess {
     
     @Override
     public void close() throws IOException {
-        chan.close();
+        if (ownsChannel)
+            chan.close();
+    }
+    
+    @Override
+    public boolean canDuplicate() {
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Reads and writes of the returned FileAccess go directly into the FileChannel of this one.
+     * </p>
+     */
+    @Override
+    public FileAccess duplicate() {
+        FileAccess copy = new FileAccess(chan, name, getByteOrder(), readOnly, false);
+        copy.position = position;
+        return copy;
     }
     
     /**
@@ -267,6 +296,15 @@ public class FileAccess extends BufferedAccess {
         return chan;
     }
     
+    /**
+     * Returns whether this instance was opened in read only mode.
+     * 
+     * @return true if the instance is read only, false otherwise
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+    
     /**
      * Returns the name of the FileAccess, as given to the constructor.
      * 
@@ -278,14 +316,8 @@ public class FileAccess extends BufferedAccess {
     
     @Override
     void readBuffer(ByteBuffer buff) {
-        buff.clear();
-        try {
-            chan.read(buff);
-        }
-        catch (IOException e) {
-            LOGGER.log(Level.SEVERE, ERROR_READ, e);
-        }
-        buff.flip();
+        readBuffer(buff, position);
+        position += buff.remaining();
     }
     
     @Override
@@ -302,13 +334,8 @@ public class FileAccess extends BufferedAccess {
     
     @Override
     void writeBuffer(ByteBuffer buff) {
-        buff.flip();
-        try {
-            chan.write(buff);
-        }
-        catch (IOException e) {
-            LOGGER.log(Level.SEVERE, ERROR_WRITE, e);
-        }
+        writeBuffer(buff, position);
+        position += buff.position();
     }
     
     @Override
@@ -0,0 +1,385 @@
+package net.digimonworld.decodetools.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A read only implementation of {@link Access} that reads from a memory mapped File.
+ *
+ * Since a single mapping is limited to 2 GiB the file is mapped in multiple chunks, so files of arbitrary size (e.g.
+ * ARCV0.BIN) are supported. As such it can not change it's size and all write operations throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * Closing the instance releases the mapping right away instead of whenever it gets garbage collected, as otherwise the
+ * file couldn't be replaced or deleted on Windows. Afterwards neither it, its duplicates, slices nor buffers returned by
+ * {@link #asByteBuffer(long, int)} may be used anymore, so it must not be closed while other threads still read from it.
+ */
+public class MappedAccess extends BufferedAccess {
+    private static final Logger LOGGER = Logger.getLogger(Access.class.getName());
+    
+    private static final int DEFAULT_CHUNK_SIZE = 0x40000000; // 1 GiB
+    private static final String ERROR_WRITE = "MappedAccess: can't write into a read only mapping";
+    private static final String ERROR_CLOSED = "MappedAccess: the mapping has already been released";
+    
+    // there is no public API to release a mapping, sun.misc.Unsafe is the only way that works on all JDKs since 9
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        
+        try {
+            Class<?> clazz = Class.forName("sun.misc.Unsafe");
+            Field field = clazz.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Can't release mappings explicitly, they will be released by the garbage collector.", e);
+        }
+        
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+    
+    private final String name;
+    private final long size;
+    private final int chunkSize;
+    private final Mapping mapping;
+    // duplicates share the mapping of the original, which releases it
+    private final boolean ownsMapping;
+    
+    private long position = 0;
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * The given FileChannel will be mapped in its current size, it may be closed afterwards without affecting this
+     * instance.
+     * </p>
+     *
+     * @param chan the FileChannel to map
+     * @param name the name to give this instance
+     * @param byteOrder the ByteOrder to use when reading, i.e. Big/Little Endian
+     * @throws IOException if anything goes wrong while mapping the file
+     */
+    public MappedAccess(FileChannel chan, String name, ByteOrder byteOrder) throws IOException {
+        this(chan, name, byteOrder, DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * A FileChannel will be opened read only based on the given file and closed again after mapping it. The name will
+     * be set to the path of the file.
+     * </p>
+     *
+     * @param file the file to read from
+     * @param byteOrder the ByteOrder to use when reading, i.e. Big/Little Endian
+     * @throws IOException if anything goes wrong opening or mapping the file
+     */
+    public MappedAccess(File file, ByteOrder byteOrder) throws IOException {
+        this(file, byteOrder, DEFAULT_CHUNK_SIZE);
+    }
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * A FileChannel will be opened read only based on the given file and closed again after mapping it. The name will
+     * be set to the path of the file. The byte order will be set to Little Endian.
+     * </p>
+     *
+     * @param file the file to read from
+     * @throws IOException if anything goes wrong opening or mapping the file
+     */
+    public MappedAccess(File file) throws IOException {
+        this(file, ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    MappedAccess(File file, ByteOrder byteOrder, int chunkSize) throws IOException {
+        this(openAndMap(file, byteOrder, chunkSize), file.getPath(), byteOrder, chunkSize);
+    }
+    
+    MappedAccess(FileChannel chan, String name, ByteOrder byteOrder, int chunkSize) throws IOException {
+        this(new Mapping(map(chan, byteOrder, chunkSize)), name, byteOrder, chunkSize, true);
+    }
+    
+    private MappedAccess(ByteBuffer[] chunks, String name, ByteOrder byteOrder, int chunkSize) {
+        this(new Mapping(chunks), name, byteOrder, chunkSize, true);
+    }
+    
+    private MappedAccess(Mapping mapping, String name, ByteOrder byteOrder, int chunkSize, boolean ownsMapping) {
+        super(byteOrder);
+        
+        this.mapping = mapping;
+        this.name = name;
+        this.chunkSize = chunkSize;
+        this.ownsMapping = ownsMapping;
+        
+        long localSize = 0;
+        for (ByteBuffer chunk : mapping.chunks)
+            localSize += chunk.capacity();
+        this.size = localSize;
+    }
+    
+    private static ByteBuffer[] openAndMap(File file, ByteOrder byteOrder, int chunkSize) throws IOException {
+        try (FileChannel chan = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return map(chan, byteOrder, chunkSize);
+        }
+    }
+    
+    private static ByteBuffer[] map(FileChannel chan, ByteOrder byteOrder, int chunkSize) throws IOException {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive, but is " + chunkSize);
+        
+        long fileSize = chan.size();
+        ByteBuffer[] localChunks = new ByteBuffer[(int) ((fileSize + chunkSize - 1) / chunkSize)];
+        
+        for (int i = 0; i < localChunks.length; i++) {
+            long start = (long) i * chunkSize;
+            localChunks[i] = chan.map(MapMode.READ_ONLY, start, Math.min(chunkSize, fileSize - start)).order(byteOrder);
+        }
+        
+        return localChunks;
+    }
+    
+    /**
+     * Returns the name of the MappedAccess, as given to the constructor.
+     *
+     * @return the name of the MappedAccess
+     */
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        this.position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return size;
+    }
+    
+    @Override
+    public void close() {
+        if (ownsMapping)
+            mapping.release();
+    }
+    
+    @Override
+    public boolean canDuplicate() {
+        return true;
+    }
+    
+    @Override
+    public MappedAccess duplicate() {
+        // absolute reads don't touch the chunks' state, so they can be shared
+        MappedAccess copy = new MappedAccess(mapping, name, getByteOrder(), chunkSize, false);
+        copy.setPosition(position);
+        return copy;
+    }
+    
+    /*
+     * Returns the chunk containing the given address, or null if the value of the given length would span
+     * multiple chunks or the end of the file. In the latter case the slower, buffered path is used.
+     */
+    private ByteBuffer chunkFor(long address, int length) {
+        if (address < 0 || address + length > size)
+            return null;
+        
+        ByteBuffer chunk = mapping.getChunk((int) (address / chunkSize));
+        return (address % chunkSize) + length <= chunk.capacity() ? chunk : null;
+    }
+    
+    @Override
+    public byte readByte(long address) {
+        ByteBuffer chunk = chunkFor(address, 1);
+        return chunk != null ? chunk.get((int) (address % chunkSize)) : super.readByte(address);
+    }
+    
+    @Override
+    public short readShort(long address) {
+        ByteBuffer chunk = chunkFor(address, 2);
+        return chunk != null ? chunk.getShort((int) (address % chunkSize)) : super.readShort(address);
+    }
+    
+    @Override
+    public char readChar(long address) {
+        ByteBuffer chunk = chunkFor(address, 2);
+        return chunk != null ? chunk.getChar((int) (address % chunkSize)) : super.readChar(address);
+    }
+    
+    @Override
+    public int readInteger(long address) {
+        ByteBuffer chunk = chunkFor(address, 4);
+        return chunk != null ? chunk.getInt((int) (address % chunkSize)) : super.readInteger(address);
+    }
+    
+    @Override
+    public long readLong(long address) {
+        ByteBuffer chunk = chunkFor(address, 8);
+        return chunk != null ? chunk.getLong((int) (address % chunkSize)) : super.readLong(address);
+    }
+    
+    @Override
+    public float readFloat(long address) {
+        ByteBuffer chunk = chunkFor(address, 4);
+        return chunk != null ? chunk.getFloat((int) (address % chunkSize)) : super.readFloat(address);
+    }
+    
+    @Override
+    public double readDouble(long address) {
+        ByteBuffer chunk = chunkFor(address, 8);
+        return chunk != null ? chunk.getDouble((int) (address % chunkSize)) : super.readDouble(address);
+    }
+    
+    @Override
+    public byte readByte() {
+        byte value = readByte(position);
+        position += 1;
+        return value;
+    }
+    
+    @Override
+    public short readShort() {
+        short value = readShort(position);
+        position += 2;
+        return value;
+    }
+    
+    @Override
+    public char readChar() {
+        char value = readChar(position);
+        position += 2;
+        return value;
+    }
+    
+    @Override
+    public int readInteger() {
+        int value = readInteger(position);
+        position += 4;
+        return value;
+    }
+    
+    @Override
+    public long readLong() {
+        long value = readLong(position);
+        position += 8;
+        return value;
+    }
+    
+    @Override
+    public float readFloat() {
+        float value = readFloat(position);
+        position += 4;
+        return value;
+    }
+    
+    @Override
+    public double readDouble() {
+        double value = readDouble(position);
+        position += 8;
+        return value;
+    }
+    
+    @Override
+    public ByteBuffer asByteBuffer(long address, int length) {
+        ByteBuffer chunk = chunkFor(address, length);
+        if (chunk == null)
+            return super.asByteBuffer(address, length);
+        
+        int offset = (int) (address % chunkSize);
+        ByteBuffer view = chunk.duplicate();
+        view.position(offset).limit(offset + length);
+        
+        return view.slice().order(getByteOrder());
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        buff.clear();
+        
+        while (buff.hasRemaining() && address >= 0 && address < size) {
+            ByteBuffer chunk = mapping.getChunk((int) (address / chunkSize)).duplicate();
+            int offset = (int) (address % chunkSize);
+            int length = Math.min(buff.remaining(), chunk.capacity() - offset);
+            
+            chunk.position(offset).limit(offset + length);
+            buff.put(chunk);
+            address += length;
+        }
+        
+        buff.flip();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        throw new UnsupportedOperationException(ERROR_WRITE);
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        throw new UnsupportedOperationException(ERROR_WRITE);
+    }
+    
+    /*
+     * The chunks of a mapping, shared between an instance and its duplicates.
+     */
+    private static class Mapping {
+        private final ByteBuffer[] chunks;
+        private volatile boolean released = false;
+        
+        private Mapping(ByteBuffer[] chunks) {
+            this.chunks = chunks;
+        }
+        
+        private ByteBuffer getChunk(int index) {
+            // accessing a released mapping would crash the JVM, rather than throwing an exception
+            if (released)
+                throw new IllegalStateException(ERROR_CLOSED);
+            
+            return chunks[index];
+        }
+        
+        private synchronized void release() {
+            if (released)
+                return;
+            
+            released = true;
+            if (INVOKE_CLEANER == null)
+                return;
+            
+            try {
+                for (ByteBuffer chunk : chunks)
+                    INVOKE_CLEANER.invoke(UNSAFE, chunk);
+            }
+            catch (ReflectiveOperationException e) {
+                LOGGER.log(Level.WARNING, "Failed to release a mapping, it will be released by the garbage collector.", e);
+            }
+        }
+    }
+}
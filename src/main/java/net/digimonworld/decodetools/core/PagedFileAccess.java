@@ -0,0 +1,356 @@
+package net.digimonworld.decodetools.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link FileAccess} that reads and writes through a cache of fixed size pages instead of accessing the FileChannel
+ * for every value.
+ * <p>
+ * Pages are loaded on demand, reading ahead multiple pages at once when the file is accessed sequentially. Writes only
+ * modify the cached pages, which are written back in coalesced blocks when they get evicted, {@link #flush()} gets
+ * called or the instance gets closed. Extending the file via {@link #setPosition(long)} doesn't write anything until
+ * then either.
+ * </p>
+ * <p>
+ * Since the underlying FileChannel is only updated on flush, it must not be accessed directly while this instance is in
+ * use. For the same reason only read only instances can be {@link #duplicate() duplicated}, every duplicate having its
+ * own cache.
+ * </p>
+ */
+public class PagedFileAccess extends FileAccess {
+    private static final Logger LOGGER = Logger.getLogger(Access.class.getName());
+    
+    private static final String ERROR_READ = "PagedFileAccess: failed to read from FileChannel";
+    private static final String ERROR_WRITE = "PagedFileAccess: failed to write into FileChannel";
+    
+    private static final int DEFAULT_PAGE_SIZE = 0x10000; // 64 KiB
+    private static final int DEFAULT_MAX_PAGES = 64;
+    private static final int READ_AHEAD_PAGES = 4;
+    
+    private final int pageSize;
+    private final int maxPages;
+    private final Map<Long, Page> pages = new LinkedHashMap<>(16, 0.75f, true);
+    
+    private long position = 0;
+    private long size;
+    private long diskSize;
+    private long lastLoadedPage = -2;
+    
+    /**
+     * Initializes a new instance of this class.
+     * <p>
+     * A FileChannel will be opened based on the given file, using
+     * {@link FileChannel#open(java.nio.file.Path, java.nio.file.OpenOption...)}. The name will be set to the name of
+     * the file.
+     * </p>
+     *
+     * @param file the file to read and write from
+     * @param byteOrder the ByteOrder to use when reading/writing, i.e. Big/Little Endian
+     * @param readOnly whether the file is opened in read only mode or not
+     * @param pageSize the size of a single cached page in bytes
+     * @param maxPages the maximum number of pages to keep cached
+     * @throws IOException if anything goes wrong opening the file
+     */
+    public PagedFileAccess(File file, ByteOrder byteOrder, boolean readOnly, int pageSize, int maxPages) throws IOException {
+        super(file, file.getPath(), byteOrder, readOnly);
+        
+        if (pageSize <= 0 || maxPages <= 0)
+            throw new IllegalArgumentException("Page size and page count must be positive, but are " + pageSize + " and " + maxPages);
+        
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.size = getChannel().size();
+        this.diskSize = size;
+    }
+    
+    /**
+     * Initializes a new instance of this class, using 64 pages of 64 KiB.
+     * <p>
+     * A FileChannel will be opened based on the given file, using
+     * {@link FileChannel#open(java.nio.file.Path, java.nio.file.OpenOption...)}. The name will be set to the name of
+     * the file. The byte order will be set to Little Endian.
+     * </p>
+     *
+     * @param file the file to read and write from
+     * @param readOnly whether the file is opened in read only mode or not
+     * @throws IOException if anything goes wrong opening the file
+     */
+    public PagedFileAccess(File file, boolean readOnly) throws IOException {
+        this(file, ByteOrder.LITTLE_ENDIAN, readOnly, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+    
+    /**
+     * Initializes a new, read and writable, instance of this class, using 64 pages of 64 KiB.
+     * <p>
+     * A FileChannel will be opened based on the given file, using
+     * {@link FileChannel#open(java.nio.file.Path, java.nio.file.OpenOption...)}. The name will be set to the name of
+     * the file. The byte order will be set to Little Endian.
+     * </p>
+     *
+     * @param file the file to read and write from
+     * @throws IOException if anything goes wrong opening the file
+     */
+    public PagedFileAccess(File file) throws IOException {
+        this(file, false);
+    }
+    
+    private PagedFileAccess(PagedFileAccess source) {
+        super(source.getChannel(), source.getName(), source.getByteOrder(), true, false);
+        
+        this.pageSize = source.pageSize;
+        this.maxPages = source.maxPages;
+        this.size = source.size;
+        this.diskSize = source.diskSize;
+        this.position = source.position;
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        if (address > size && !isReadOnly())
+            size = address;
+        
+        position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return size;
+    }
+    
+    /**
+     * Writes all modified pages into the underlying FileChannel, extending the file to the current size if necessary.
+     * Consecutive pages are written with a single call.
+     */
+    public void flush() {
+        List<Page> dirty = new ArrayList<>();
+        pages.values().stream().filter(a -> a.dirty).forEach(dirty::add);
+        dirty.sort((a, b) -> Long.compare(a.index, b.index));
+        
+        try {
+            int runStart = 0;
+            for (int i = 1; i <= dirty.size(); i++) {
+                if (i < dirty.size() && dirty.get(i).index == dirty.get(i - 1).index + 1)
+                    continue;
+                
+                writePages(dirty.subList(runStart, i));
+                runStart = i;
+            }
+            
+            if (diskSize < size) {
+                getChannel().write(ByteBuffer.allocate(1), size - 1);
+                diskSize = size;
+            }
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_WRITE, e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (!isReadOnly())
+            flush();
+        
+        pages.clear();
+        super.close();
+    }
+    
+    @Override
+    public boolean canDuplicate() {
+        return isReadOnly();
+    }
+    
+    @Override
+    public PagedFileAccess duplicate() {
+        if (!isReadOnly())
+            throw new UnsupportedOperationException("Only read only PagedFileAccesses can be duplicated.");
+        
+        return new PagedFileAccess(this);
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        buff.clear();
+        
+        // like a FileChannel, don't read beyond the end of the file
+        buff.limit((int) Math.max(0, Math.min(buff.capacity(), size - address)));
+        
+        while (buff.hasRemaining()) {
+            Page page = getPage(address / pageSize);
+            int offset = (int) (address % pageSize);
+            int length = Math.min(buff.remaining(), pageSize - offset);
+            
+            buff.put(page.data, offset, length);
+            address += length;
+        }
+        
+        buff.flip();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        buff.flip();
+        position += write(buff, position);
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        buff.flip();
+        write(buff, address);
+    }
+    
+    private int write(ByteBuffer buff, long address) {
+        if (isReadOnly())
+            throw new NonWritableChannelException();
+        
+        int written = buff.remaining();
+        
+        while (buff.hasRemaining()) {
+            long index = address / pageSize;
+            int offset = (int) (address % pageSize);
+            int length = Math.min(buff.remaining(), pageSize - offset);
+            
+            // a page that gets overwritten completely doesn't need to be read first
+            Page page = length == pageSize ? pages.get(index) : getPage(index);
+            if (page == null)
+                page = putPage(new Page(index, new byte[pageSize]));
+            
+            buff.get(page.data, offset, length);
+            page.dirty = true;
+            address += length;
+        }
+        
+        size = Math.max(size, address);
+        return written;
+    }
+    
+    private Page getPage(long index) {
+        Page page = pages.get(index);
+        return page != null ? page : loadPages(index);
+    }
+    
+    /*
+     * Loads the given page, reading ahead the following pages as well if the previously loaded page was its
+     * predecessor. Pages that are already cached never get read again, as that would revert pending writes.
+     */
+    private Page loadPages(long index) {
+        int count = 1;
+        if (index == lastLoadedPage + 1)
+            while (count < Math.min(READ_AHEAD_PAGES, maxPages) && !pages.containsKey(index + count))
+                count++;
+        
+        ByteBuffer buff = ByteBuffer.allocate(count * pageSize);
+        long start = index * pageSize;
+        buff.limit((int) Math.max(0, Math.min(buff.capacity(), diskSize - start)));
+        
+        try {
+            while (buff.hasRemaining())
+                if (getChannel().read(buff, start + buff.position()) < 0)
+                    break;
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.SEVERE, ERROR_READ, e);
+        }
+        
+        lastLoadedPage = index + count - 1;
+        
+        // add the requested page last, so it is the most recently used one and won't get evicted right away
+        for (int i = count - 1; i > 0; i--)
+            putPage(new Page(index + i, copyPage(buff, i)));
+        
+        return putPage(new Page(index, copyPage(buff, 0)));
+    }
+    
+    private byte[] copyPage(ByteBuffer buff, int page) {
+        byte[] data = new byte[pageSize];
+        System.arraycopy(buff.array(), page * pageSize, data, 0, pageSize);
+        return data;
+    }
+    
+    private Page putPage(Page page) {
+        pages.put(page.index, page);
+        
+        Iterator<Entry<Long, Page>> itr = pages.entrySet().iterator();
+        while (pages.size() > maxPages && itr.hasNext()) {
+            Page eldest = itr.next().getValue();
+            
+            if (eldest.dirty)
+                try {
+                    writePages(List.of(eldest));
+                }
+                catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, ERROR_WRITE, e);
+                }
+            
+            itr.remove();
+        }
+        
+        return page;
+    }
+    
+    /*
+     * Writes the given consecutive pages with a single gathering write, cut off at the current size of the file.
+     */
+    private void writePages(List<Page> run) throws IOException {
+        if (run.isEmpty())
+            return;
+        
+        long start = run.get(0).index * pageSize;
+        List<ByteBuffer> buffers = new ArrayList<>();
+        
+        for (Page page : run) {
+            int length = (int) Math.min(pageSize, size - page.index * pageSize);
+            if (length > 0)
+                buffers.add(ByteBuffer.wrap(page.data, 0, length));
+            page.dirty = false;
+        }
+        
+        if (buffers.isEmpty())
+            return;
+        
+        ByteBuffer[] srcs = buffers.toArray(new ByteBuffer[0]);
+        long end = start + buffers.stream().mapToLong(ByteBuffer::remaining).sum();
+        
+        FileChannel chan = getChannel();
+        chan.position(start);
+        while (chan.position() < end)
+            chan.write(srcs);
+        
+        diskSize = Math.max(diskSize, end);
+    }
+    
+    private static class Page {
+        private final long index;
+        private final byte[] data;
+        private boolean dirty = false;
+        
+        public Page(long index, byte[] data) {
+            this.index = index;
+            this.data = data;
+        }
+    }
+}
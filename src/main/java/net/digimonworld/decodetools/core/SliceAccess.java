@@ -0,0 +1,201 @@
+package net.digimonworld.decodetools.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Access} over a range of another {@link BufferedAccess}, as created by {@link Access#slice(long, long)}.
+ * <p>
+ * Only the positional reads and writes of the source are used, the current position is kept by this instance. Reads
+ * beyond the end of the range return no data, like reads beyond the end of a file, writes beyond it fail.
+ * </p>
+ */
+class SliceAccess extends BufferedAccess {
+    private final BufferedAccess source;
+    private final long offset;
+    private final long length;
+    
+    private long position = 0;
+    
+    SliceAccess(BufferedAccess source, long offset, long length) {
+        super(source.getByteOrder());
+        
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+    }
+    
+    @Override
+    public long getPosition() {
+        return position;
+    }
+    
+    @Override
+    public void setPosition(long address) {
+        position = address;
+    }
+    
+    @Override
+    public long getSize() {
+        return length;
+    }
+    
+    @Override
+    public void close() {
+        // nothing to close, the source is owned by whoever created the slice
+    }
+    
+    @Override
+    public boolean canDuplicate() {
+        return source.canDuplicate();
+    }
+    
+    @Override
+    public SliceAccess duplicate() {
+        SliceAccess copy = new SliceAccess(source.duplicate(), offset, length);
+        copy.position = position;
+        return copy;
+    }
+    
+    @Override
+    public Access slice(long sliceOffset, long sliceLength) {
+        if (sliceOffset < 0 || sliceLength < 0 || sliceOffset + sliceLength > length)
+            throw new IndexOutOfBoundsException("Slice " + sliceOffset + "+" + sliceLength + " is out of bounds for size " + length);
+        
+        return new SliceAccess(canDuplicate() ? source.duplicate() : source, offset + sliceOffset, sliceLength);
+    }
+    
+    @Override
+    public byte readByte(long address) {
+        return isInRange(address, 1) ? source.readByte(offset + address) : super.readByte(address);
+    }
+    
+    @Override
+    public short readShort(long address) {
+        return isInRange(address, 2) ? source.readShort(offset + address) : super.readShort(address);
+    }
+    
+    @Override
+    public char readChar(long address) {
+        return isInRange(address, 2) ? source.readChar(offset + address) : super.readChar(address);
+    }
+    
+    @Override
+    public int readInteger(long address) {
+        return isInRange(address, 4) ? source.readInteger(offset + address) : super.readInteger(address);
+    }
+    
+    @Override
+    public long readLong(long address) {
+        return isInRange(address, 8) ? source.readLong(offset + address) : super.readLong(address);
+    }
+    
+    @Override
+    public float readFloat(long address) {
+        return isInRange(address, 4) ? source.readFloat(offset + address) : super.readFloat(address);
+    }
+    
+    @Override
+    public double readDouble(long address) {
+        return isInRange(address, 8) ? source.readDouble(offset + address) : super.readDouble(address);
+    }
+    
+    @Override
+    public byte readByte() {
+        byte value = readByte(position);
+        position += 1;
+        return value;
+    }
+    
+    @Override
+    public short readShort() {
+        short value = readShort(position);
+        position += 2;
+        return value;
+    }
+    
+    @Override
+    public char readChar() {
+        char value = readChar(position);
+        position += 2;
+        return value;
+    }
+    
+    @Override
+    public int readInteger() {
+        int value = readInteger(position);
+        position += 4;
+        return value;
+    }
+    
+    @Override
+    public long readLong() {
+        long value = readLong(position);
+        position += 8;
+        return value;
+    }
+    
+    @Override
+    public float readFloat() {
+        float value = readFloat(position);
+        position += 4;
+        return value;
+    }
+    
+    @Override
+    public double readDouble() {
+        double value = readDouble(position);
+        position += 8;
+        return value;
+    }
+    
+    @Override
+    public ByteBuffer asByteBuffer(long address, int bufferLength) {
+        checkBounds(address, bufferLength);
+        return source.asByteBuffer(offset + address, bufferLength);
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff) {
+        readBuffer(buff, position);
+        position += buff.remaining();
+    }
+    
+    @Override
+    void readBuffer(ByteBuffer buff, long address) {
+        if (isInRange(address, buff.capacity())) {
+            source.readBuffer(buff, offset + address);
+            return;
+        }
+        
+        // only read the part within the range
+        ByteBuffer part = ByteBuffer.allocate((int) Math.max(0, Math.min(buff.capacity(), length - address)));
+        if (address >= 0 && part.capacity() > 0)
+            source.readBuffer(part, offset + address);
+        
+        buff.clear();
+        buff.put(part);
+        buff.flip();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff) {
+        writeBuffer(buff, position);
+        position += buff.position();
+    }
+    
+    @Override
+    void writeBuffer(ByteBuffer buff, long address) {
+        // the buffer isn't flipped yet, so its position is the number of bytes to write
+        checkBounds(address, buff.position());
+        source.writeBuffer(buff, offset + address);
+    }
+    
+    private boolean isInRange(long address, int count) {
+        return address >= 0 && address + count <= length;
+    }
+    
+    private void checkBounds(long address, int count) {
+        if (!isInRange(address, count))
+            throw new IndexOutOfBoundsException("Range " + address + "+" + count + " is out of bounds for size " + length);
+    }
+}
@@ -62,6 +62,24 @@ public class StreamAccess extends BufferedAccess {
         // nothing to close
     }
     
+    @Override
+    public boolean canDuplicate() {
+        return true;
+    }
+    
+    @Override
+    public StreamAccess duplicate() {
+        return new StreamAccess(chan.duplicate(), getByteOrder());
+    }
+    
+    @Override
+    public StreamAccess slice(long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > getSize())
+            throw new IndexOutOfBoundsException("Slice " + offset + "+" + length + " is out of bounds for size " + getSize());
+        
+        return new StreamAccess(asByteBuffer(offset, (int) length), getByteOrder());
+    }
+    
     /**
      * Returns the {@link ByteBuffer} this instance is using.
      * 
@@ -71,6 +89,15 @@ public class StreamAccess extends BufferedAccess {
         return chan;
     }
     
+    @Override
+    public ByteBuffer asByteBuffer(long address, int length) {
+        ByteBuffer view = chan.duplicate();
+        view.clear();
+        view.position((int) address).limit((int) address + length);
+        
+        return view.slice().order(getByteOrder());
+    }
+    
     @Override
     void readBuffer(ByteBuffer buff) {
         buff.clear();
@@ -109,9 +136,11 @@ public class StreamAccess extends BufferedAccess {
     @Override
     void writeBuffer(ByteBuffer buff, long address) {
         buff.flip();
-
-        for(int i = 0; i < buff.remaining(); i++)
-            chan.put((int) (address + i), buff.get(i));
+        
+        ByteBuffer target = chan.duplicate();
+        target.clear();
+        target.position((int) address);
+        target.put(buff);
     }
 
 }
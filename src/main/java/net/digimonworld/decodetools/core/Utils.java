@@ -2,11 +2,18 @@ package net.digimonworld.decodetools.core;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class Utils {
+    private static final long HASH_PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long HASH_PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    
     private Utils() {
     }
     
@@ -306,29 +313,72 @@ public class Utils {
     
     public static int[] untile(short width, short height, int[] pixelData) {
         int[] data = new int[width * height];
-        
+        untile(width, height, pixelData, data, true);
+        return data;
+    }
+    
+    /**
+     * Untiles the given pixel data into the given destination array, optionally flipping it vertically in the same
+     * pass.
+     * 
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param pixelData the tiled pixel data
+     * @param dst the array to write the untiled pixels into, row by row
+     * @param flip whether to flip the image vertically
+     */
+    public static void untile(int width, int height, int[] pixelData, int[] dst, boolean flip) {
         for (int i = 0; i < height; i++)
             for (int j = 0; j < width; j++) {
-                int posY = height - 1 - i;
+                int posY = flip ? height - 1 - i : i;
                 int coarseY = posY & ~7;
                 int offset = getMortonOffset(j, posY) + coarseY * width;
-                data[i * width + j] = pixelData[offset];
+                dst[i * width + j] = pixelData[offset];
             }
-        return data;
     }
     
     public static int[] tile(int width, int height, int[] pixelData) {
         int[] data = new int[width * height];
-        
+        tile(width, height, pixelData, data, true);
+        return data;
+    }
+    
+    /**
+     * Tiles the given pixel data into the given destination array, optionally flipping it vertically in the same pass.
+     * 
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param pixelData the pixel data, row by row
+     * @param dst the array to write the tiled pixels into
+     * @param flip whether to flip the image vertically
+     */
+    public static void tile(int width, int height, int[] pixelData, int[] dst, boolean flip) {
         for (int i = 0; i < height; i++)
             for (int j = 0; j < width; j++) {
-                int posY = height - 1 - i;
+                int posY = flip ? height - 1 - i : i;
                 int coarseY = posY & ~7;
                 int offset = getMortonOffset(j, posY) + coarseY * width;
-                data[offset] = pixelData[i * width + j];
+                dst[offset] = pixelData[i * width + j];
             }
+    }
+    
+    /**
+     * Flips the given row by row pixel data vertically, in place.
+     * 
+     * @param width the width of the image
+     * @param height the height of the image
+     * @param pixelData the pixel data to flip
+     */
+    public static void flipRows(int width, int height, int[] pixelData) {
+        int[] row = new int[width];
         
-        return data;
+        for (int i = 0; i < height / 2; i++) {
+            int top = i * width;
+            int bottom = (height - 1 - i) * width;
+            System.arraycopy(pixelData, top, row, 0, width);
+            System.arraycopy(pixelData, bottom, pixelData, top, width);
+            System.arraycopy(row, 0, pixelData, bottom, width);
+        }
     }
     
     private static int getMortonOffset(int x, int y) {
@@ -366,6 +416,79 @@ public class Utils {
             list.add(value);
     }
     
+    /**
+     * Replaces all characters of the given name that aren't safe to use in a file name with underscores.
+     * 
+     * @param name the name to sanitize, e.g. the name of a texture
+     * @return the sanitized name
+     */
+    public static String sanitizeFileName(String name) {
+        return name.replaceAll("[^\\w.$-]", "_");
+    }
+    
+    /**
+     * Computes a fast, non-cryptographic 64-bit hash of the given data, for finding identical content.
+     * 
+     * @param seed a value to mix into the hash, e.g. the length or format of the data
+     * @param data the data to hash
+     * @return the hash of the data
+     */
+    public static long hash(long seed, byte[] data) {
+        ByteBuffer buff = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        long hash = HASH_PRIME_2 ^ seed;
+        
+        // a simple multiply-rotate hash, consuming 8 bytes per step
+        while (buff.remaining() >= 8)
+            hash = Long.rotateLeft(hash ^ (buff.getLong() * HASH_PRIME_1), 31) * HASH_PRIME_2;
+        
+        while (buff.hasRemaining())
+            hash = Long.rotateLeft(hash ^ ((buff.get() & 0xFF) * HASH_PRIME_1), 11) * HASH_PRIME_2;
+        
+        return hash ^ (hash >>> 29);
+    }
+    
+    /**
+     * Computes a fast, non-cryptographic 64-bit hash of the given data, like {@link #hash(long, byte[])}.
+     * 
+     * @param seed a value to mix into the hash, e.g. the size of the data
+     * @param data the data to hash
+     * @return the hash of the data
+     */
+    public static long hash(long seed, int[] data) {
+        long hash = HASH_PRIME_2 ^ seed;
+        
+        for (int value : data)
+            hash = Long.rotateLeft(hash ^ ((value & 0xFFFFFFFFL) * HASH_PRIME_1), 31) * HASH_PRIME_2;
+        
+        return hash ^ (hash >>> 29);
+    }
+    
+    /**
+     * Waits for all tasks of a shut down executor to finish, even when interrupted in the meantime. The interrupt
+     * status is restored afterwards.
+     * <p>
+     * This is meant for releasing resources used by the tasks, which must not happen while any of them is still
+     * running.
+     * </p>
+     * 
+     * @param executor the executor to wait for, it must have been shut down already
+     */
+    public static void awaitTerminationUninterruptibly(ExecutorService executor) {
+        boolean interrupted = false;
+        
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+    
     public static long parseLongOrDefault(String val, long defaultVal) {
         try {
             return Long.parseLong(val);
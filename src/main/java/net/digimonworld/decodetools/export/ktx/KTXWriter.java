@@ -0,0 +1,128 @@
+package net.digimonworld.decodetools.export.ktx;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import net.digimonworld.decodetools.Mipmaps;
+import net.digimonworld.decodetools.core.Utils;
+import net.digimonworld.decodetools.res.kcap.GMIPKCAP;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+
+/**
+ * Writes textures as uncompressed RGBA8 KTX 1.1 files, optionally including their mipmap chain.
+ * 
+ * {@link}https://registry.khronos.org/KTX/specs/1.0/ktxspec.v1.html}
+ */
+public class KTXWriter {
+    private static final byte[] IDENTIFIER = { (byte) 0xAB, 0x4B, 0x54, 0x58, 0x20, 0x31, 0x31, (byte) 0xBB, 0x0D, 0x0A, 0x1A, 0x0A };
+    private static final int ENDIANNESS = 0x04030201;
+    
+    private static final int GL_UNSIGNED_BYTE = 0x1401;
+    private static final int GL_RGBA = 0x1908;
+    private static final int GL_RGBA8 = 0x8058;
+    
+    // rows are stored top to bottom, like in a BufferedImage
+    private static final String ORIENTATION_KEY = "KTXorientation";
+    private static final String ORIENTATION_VALUE = "S=r,T=d";
+    
+    private static final int HEADER_SIZE = 0x40;
+    private static final int MIN_MIPMAP_SIZE = 1;
+    
+    private KTXWriter() {
+    }
+    
+    /**
+     * Creates a KTX file containing the given levels.
+     * 
+     * @param levels the levels of the texture, starting with the largest one
+     * @return the KTX file
+     */
+    public static byte[] write(List<BufferedImage> levels) {
+        if (levels.isEmpty())
+            throw new IllegalArgumentException("A KTX file needs at least one level.");
+        
+        byte[] keyValue = createKeyValue(ORIENTATION_KEY, ORIENTATION_VALUE);
+        
+        int size = HEADER_SIZE + keyValue.length;
+        for (BufferedImage level : levels)
+            size += 4 + level.getWidth() * level.getHeight() * 4;
+        
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(IDENTIFIER);
+        buffer.putInt(ENDIANNESS);
+        buffer.putInt(GL_UNSIGNED_BYTE); // glType
+        buffer.putInt(1); // glTypeSize
+        buffer.putInt(GL_RGBA); // glFormat
+        buffer.putInt(GL_RGBA8); // glInternalFormat
+        buffer.putInt(GL_RGBA); // glBaseInternalFormat
+        buffer.putInt(levels.get(0).getWidth());
+        buffer.putInt(levels.get(0).getHeight());
+        buffer.putInt(0); // pixelDepth
+        buffer.putInt(0); // numberOfArrayElements
+        buffer.putInt(1); // numberOfFaces
+        buffer.putInt(levels.size());
+        buffer.putInt(keyValue.length);
+        buffer.put(keyValue);
+        
+        // every row is a multiple of 4 bytes long, so no padding is needed
+        for (BufferedImage level : levels) {
+            int[] pixels = level.getRGB(0, 0, level.getWidth(), level.getHeight(), null, 0, level.getWidth());
+            buffer.putInt(pixels.length * 4);
+            
+            for (int pixel : pixels) {
+                buffer.put((byte) (pixel >>> 16));
+                buffer.put((byte) (pixel >>> 8));
+                buffer.put((byte) pixel);
+                buffer.put((byte) (pixel >>> 24));
+            }
+        }
+        
+        return buffer.array();
+    }
+    
+    /**
+     * Exports all textures of a GMIP into the given directory, one KTX file per texture. Every texture gets decoded
+     * only once, its mipmap chain is generated from the decoded image.
+     * 
+     * @param gmip the GMIP to export
+     * @param directory the directory to export into
+     * @param mipmaps whether to include the full mipmap chain
+     * @throws IOException if writing a file fails
+     */
+    public static void exportGMIP(GMIPKCAP gmip, File directory, boolean mipmaps) throws IOException {
+        Files.createDirectories(directory.toPath());
+        
+        List<GMIOPayload> entries = gmip.getGMIOEntries();
+        for (int i = 0; i < entries.size(); i++) {
+            GMIOPayload gmio = entries.get(i);
+            BufferedImage image = gmio.getImage();
+            
+            if (image == null)
+                continue;
+            
+            List<BufferedImage> levels = Mipmaps.generate(image, MIN_MIPMAP_SIZE, mipmaps ? Integer.MAX_VALUE : 1);
+            String name = String.format("%03d_%s.ktx", i, gmio.hasName() ? Utils.sanitizeFileName(gmio.getName()) : "GMIO");
+            
+            Files.write(new File(directory, name).toPath(), write(levels));
+        }
+    }
+    
+    private static byte[] createKeyValue(String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        int keyAndValueSize = keyBytes.length + 1 + valueBytes.length + 1;
+        
+        ByteBuffer buffer = ByteBuffer.allocate(4 + Utils.align(keyAndValueSize, 4)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(keyAndValueSize);
+        buffer.put(keyBytes).put((byte) 0);
+        buffer.put(valueBytes).put((byte) 0);
+        
+        return buffer.array();
+    }
+}
@@ -0,0 +1,207 @@
+package net.digimonworld.decodetools.export.texture;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import javax.imageio.ImageIO;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.core.PNGWriter;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.core.Utils;
+import net.digimonworld.decodetools.export.texture.TextureManifest.Entry;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+
+/**
+ * Exports all textures of a directory of .res files to PNGs and imports them back.
+ * <p>
+ * Every .res file is handled by one of a fixed number of workers, which decodes and encodes its textures. Next to the
+ * PNGs a {@link TextureManifest} gets written, listing the GMIO settings of every texture. When importing only textures
+ * whose PNG or settings got changed are touched, and only .res files with changed textures get written.
+ * </p>
+ */
+public class TextureBatch {
+    private TextureBatch() {
+    }
+    
+    /**
+     * Exports the textures of all .res files in the given directory.
+     *
+     * @param resDir the directory containing the .res files, searched recursively
+     * @param outputDir the directory to write the PNGs and manifest into
+     * @param threads the number of workers to use
+     * @throws IOException if the manifest can't be written
+     */
+    public static void exportTextures(File resDir, File outputDir, int threads) throws IOException {
+        List<File> files = listResFiles(resDir);
+        TextureManifest manifest = new TextureManifest();
+        
+        run(files, threads, "Exported", file -> {
+            String res = relativePath(resDir, file);
+            
+            try (Access access = new MappedAccess(file)) {
+                List<GMIOPayload> textures = getTextures(ResPayload.craft(access));
+                
+                for (int i = 0; i < textures.size(); i++) {
+                    GMIOPayload gmio = textures.get(i);
+                    BufferedImage image = gmio.decodeImage();
+                    if (image == null)
+                        continue;
+                    
+                    String name = String.format("%s/%03d_%s.png", res.substring(0, res.length() - 4), i,
+                                                gmio.hasName() ? Utils.sanitizeFileName(gmio.getName()) : "GMIO");
+                    Path imageFile = outputDir.toPath().resolve(name);
+                    byte[] png = PNGWriter.encode(image);
+                    
+                    Files.createDirectories(imageFile.getParent());
+                    Files.write(imageFile, png);
+                    manifest.add(new Entry(name, res, i, gmio, crc(png)));
+                }
+            }
+        });
+        
+        manifest.save(outputDir.toPath().resolve(TextureManifest.FILE_NAME));
+    }
+    
+    /**
+     * Imports textures exported with {@link #exportTextures(File, File, int)} back into their .res files.
+     *
+     * @param textureDir the directory containing the PNGs and manifest
+     * @param resDir the directory containing the original .res files
+     * @param outputDir the directory to write changed .res files into
+     * @param threads the number of workers to use
+     * @throws IOException if the manifest can't be read
+     */
+    public static void importTextures(File textureDir, File resDir, File outputDir, int threads) throws IOException {
+        TextureManifest manifest = TextureManifest.load(textureDir.toPath().resolve(TextureManifest.FILE_NAME));
+        Map<String, List<Entry>> byRes = manifest.getEntries().stream()
+                                                 .collect(Collectors.groupingBy(Entry::getRes, LinkedHashMap::new, Collectors.toList()));
+        AtomicInteger changedFiles = new AtomicInteger();
+        
+        run(new ArrayList<>(byRes.keySet()), threads, "Imported", res -> {
+            File file = new File(resDir, res);
+            ResPayload payload;
+            
+            // read into memory rather than mapping it, as the output directory may be the res directory
+            try (Access access = new StreamAccess(Files.readAllBytes(file.toPath()))) {
+                payload = ResPayload.craft(access);
+            }
+            
+            List<GMIOPayload> textures = getTextures(payload);
+            boolean changed = false;
+            
+            for (Entry entry : byRes.get(res)) {
+                if (entry.getIndex() >= textures.size()) {
+                    Main.LOGGER.warning(() -> String.format("%s has no texture %d, skipping %s.", res, entry.getIndex(), entry.getImage()));
+                    continue;
+                }
+                
+                changed |= importTexture(textureDir, entry, textures.get(entry.getIndex()));
+            }
+            
+            if (changed) {
+                payload.repack(new File(outputDir, res));
+                changedFiles.incrementAndGet();
+            }
+        });
+        
+        Main.LOGGER.info(() -> String.format("Wrote %d changed .res files.", changedFiles.get()));
+    }
+    
+    private static boolean importTexture(File textureDir, Entry entry, GMIOPayload gmio) throws IOException {
+        Path imageFile = textureDir.toPath().resolve(entry.getImage());
+        boolean changed = false;
+        
+        if (Files.exists(imageFile)) {
+            byte[] png = Files.readAllBytes(imageFile);
+            
+            // an unchanged PNG would only lose precision by getting encoded again
+            if (crc(png) != entry.getCRC()) {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+                if (image == null)
+                    throw new IOException("Not an image: " + imageFile);
+                if (!gmio.setImage(image))
+                    throw new IOException("Invalid resolution: " + imageFile);
+                
+                changed = true;
+            }
+        }
+        else
+            Main.LOGGER.warning(() -> "Missing texture, keeping the original: " + imageFile);
+        
+        return entry.apply(gmio) || changed;
+    }
+    
+    @FunctionalInterface
+    private interface Task<T> {
+        void run(T value) throws IOException;
+    }
+    
+    /*
+     * Runs the given task for every value on a fixed number of workers, logging failures and the progress.
+     */
+    private static <T> void run(List<T> values, int threads, String verb, Task<T> task) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        AtomicInteger handled = new AtomicInteger();
+        
+        for (T value : values)
+            executor.execute(() -> {
+                try {
+                    task.run(value);
+                }
+                catch (IOException | RuntimeException e) {
+                    Main.LOGGER.log(Level.SEVERE, e, () -> "Exception while handling textures of " + value);
+                }
+                
+                int count = handled.incrementAndGet();
+                if (count % 100 == 0 || count == values.size())
+                    Main.LOGGER.info(() -> String.format("%s textures of %d of %d files.", verb, count, values.size()));
+            });
+        
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Main.LOGGER.log(Level.SEVERE, "Interrupted while handling textures: ", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static List<File> listResFiles(File dir) {
+        return Utils.listFiles(dir).stream().filter(a -> a.getName().endsWith(".res")).collect(Collectors.toList());
+    }
+    
+    private static List<GMIOPayload> getTextures(ResPayload payload) {
+        return payload.getElementsWithType(Payload.GMIO).stream().map(GMIOPayload.class::cast).collect(Collectors.toList());
+    }
+    
+    private static String relativePath(File dir, File file) {
+        return dir.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+    
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,186 @@
+package net.digimonworld.decodetools.export.texture;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.digimonworld.decodetools.PixelFormat;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload.TextureFiltering;
+import net.digimonworld.decodetools.res.payload.GMIOPayload.TextureWrap;
+import net.digimonworld.decodetools.res.payload.GMIOPayload.UnknownEnum;
+
+/*
+ * Texture Manifest Format
+ * UTF-8 text, one texture per line, columns separated by tabs. Lines starting with # are comments.
+ *
+ * image      - path of the PNG, relative to the manifest
+ * res        - path of the .res file, relative to the exported directory
+ * index      - index of the GMIO within the .res file, in the order of getElementsWithType(Payload.GMIO)
+ * format     - PixelFormat name
+ * wrapS      - TextureWrap name
+ * wrapT      - TextureWrap name
+ * unknown    - UnknownEnum name
+ * minFilter  - TextureFiltering name
+ * magFilter  - TextureFiltering name
+ * uvWidth    - relative UV width
+ * uvHeight   - relative UV height
+ * crc        - CRC32 of the PNG as exported, in hex
+ */
+/**
+ * A list of exported textures, together with the settings of their GMIO. It's meant to be edited by hand or with a
+ * spreadsheet, changed settings are applied when importing the textures again.
+ */
+public class TextureManifest {
+    public static final String FILE_NAME = "textures.tsv";
+    
+    private static final String HEADER = "#image\tres\tindex\tformat\twrapS\twrapT\tunknown\tminFilter\tmagFilter\tuvWidth\tuvHeight\tcrc";
+    private static final int COLUMNS = 12;
+    
+    private final List<Entry> entries = Collections.synchronizedList(new ArrayList<>());
+    
+    public static TextureManifest load(Path file) throws IOException {
+        TextureManifest manifest = new TextureManifest();
+        
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                
+                String[] columns = line.split("\t");
+                if (columns.length != COLUMNS)
+                    throw new IllegalArgumentException(String.format("Line %d of %s has %d columns, expected %d.", lineNumber, file, columns.length, COLUMNS));
+                
+                manifest.add(new Entry(columns));
+            }
+        }
+        
+        return manifest;
+    }
+    
+    public void save(Path file) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(Entry::getRes).thenComparingInt(Entry::getIndex));
+        
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            
+            for (Entry entry : sorted) {
+                writer.write(entry.toLine());
+                writer.newLine();
+            }
+        }
+    }
+    
+    public void add(Entry entry) {
+        entries.add(entry);
+    }
+    
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+    
+    public static class Entry {
+        private final String image;
+        private final String res;
+        private final int index;
+        
+        private final PixelFormat format;
+        private final TextureWrap wrapS;
+        private final TextureWrap wrapT;
+        private final UnknownEnum unknown;
+        private final TextureFiltering minFilter;
+        private final TextureFiltering magFilter;
+        private final float uvWidth;
+        private final float uvHeight;
+        
+        private final long crc;
+        
+        public Entry(String image, String res, int index, GMIOPayload gmio, long crc) {
+            this.image = image;
+            this.res = res;
+            this.index = index;
+            this.format = gmio.getFormat();
+            this.wrapS = gmio.getWrapS();
+            this.wrapT = gmio.getWrapT();
+            this.unknown = gmio.getUnknown();
+            this.minFilter = gmio.getMinFilter();
+            this.magFilter = gmio.getMagFilter();
+            this.uvWidth = (float) gmio.getUVWidth();
+            this.uvHeight = (float) gmio.getUVHeight();
+            this.crc = crc;
+        }
+        
+        private Entry(String[] columns) {
+            image = columns[0];
+            res = columns[1];
+            index = Integer.parseInt(columns[2]);
+            format = PixelFormat.valueOf(columns[3]);
+            wrapS = TextureWrap.valueOf(columns[4]);
+            wrapT = TextureWrap.valueOf(columns[5]);
+            unknown = UnknownEnum.valueOf(columns[6]);
+            minFilter = TextureFiltering.valueOf(columns[7]);
+            magFilter = TextureFiltering.valueOf(columns[8]);
+            uvWidth = Float.parseFloat(columns[9]);
+            uvHeight = Float.parseFloat(columns[10]);
+            crc = Long.parseLong(columns[11], 16);
+        }
+        
+        private String toLine() {
+            return String.join("\t", image, res, Integer.toString(index), format.name(), wrapS.name(), wrapT.name(),
+                               unknown.name(), minFilter.name(), magFilter.name(), Float.toString(uvWidth),
+                               Float.toString(uvHeight), Long.toHexString(crc));
+        }
+        
+        /**
+         * Applies the settings of this entry to the given GMIO.
+         *
+         * @param gmio the GMIO to apply the settings to
+         * @return whether any setting of the GMIO got changed
+         */
+        public boolean apply(GMIOPayload gmio) {
+            boolean changed = gmio.getFormat() != format || gmio.getWrapS() != wrapS || gmio.getWrapT() != wrapT
+                    || gmio.getUnknown() != unknown || gmio.getMinFilter() != minFilter || gmio.getMagFilter() != magFilter
+                    || (float) gmio.getUVWidth() != uvWidth || (float) gmio.getUVHeight() != uvHeight;
+            
+            gmio.setFormat(format);
+            gmio.setWrapS(wrapS);
+            gmio.setWrapT(wrapT);
+            gmio.setUnknown(unknown);
+            gmio.setMinFilter(minFilter);
+            gmio.setMagFilter(magFilter);
+            gmio.setUVWidth(uvWidth);
+            gmio.setUVHeight(uvHeight);
+            
+            return changed;
+        }
+        
+        public String getImage() {
+            return image;
+        }
+        
+        public String getRes() {
+            return res;
+        }
+        
+        public int getIndex() {
+            return index;
+        }
+        
+        public long getCRC() {
+            return crc;
+        }
+    }
+}
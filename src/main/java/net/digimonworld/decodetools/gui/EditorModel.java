@@ -2,6 +2,8 @@ package net.digimonworld.decodetools.gui;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
 import java.util.Observable;
 import java.util.logging.Level;
 
@@ -12,8 +14,9 @@ import javax.swing.tree.TreeModel;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.gui.util.ResPayloadTreeNodeFactory;
+import net.digimonworld.decodetools.gui.util.ThumbnailCache;
 import net.digimonworld.decodetools.res.ResPayload;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
 import net.digimonworld.decodetools.res.payload.GMIOPayload;
@@ -30,10 +33,12 @@ public class EditorModel extends Observable {
     }
     
     public void setSelectedFile(File selectedFile) {
-        try (Access access = new FileAccess(selectedFile, true)) {
+        // read into memory rather than mapping it, so the file can be saved over
+        try (Access access = new StreamAccess(Files.readAllBytes(selectedFile.toPath()))) {
             ResPayload file = ResPayload.craft(access);
             
             this.selectedFile = selectedFile;
+            ThumbnailCache.getInstance().setSource(selectedFile);
             setSelectedResource(file);
         }
         catch (IOException e1) {
@@ -67,6 +72,9 @@ public class EditorModel extends Observable {
         this.imageListModel = new DefaultListModel<>();
         selectedRes.getElementsWithType(Payload.GMIO).forEach(a -> imageListModel.addElement((GMIOPayload) a));
         
+        // get the thumbnails ready before they are looked at
+        ThumbnailCache.getInstance().prefetch(Collections.list(imageListModel.elements()));
+        
         setChanged();
         notifyObservers();        
     }
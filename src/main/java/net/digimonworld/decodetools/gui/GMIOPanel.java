@@ -33,6 +33,7 @@ import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.PixelFormat;
 import net.digimonworld.decodetools.gui.util.FunctionAction;
 import net.digimonworld.decodetools.gui.util.JImage;
+import net.digimonworld.decodetools.gui.util.ThumbnailCache;
 import net.digimonworld.decodetools.res.payload.GMIOPayload;
 import net.digimonworld.decodetools.res.payload.GMIOPayload.TextureFiltering;
 import net.digimonworld.decodetools.res.payload.GMIOPayload.TextureWrap;
@@ -303,7 +304,12 @@ public class GMIOPanel extends PayloadPanel {
         this.selectedGMIO = file instanceof GMIOPayload ? Optional.ofNullable((GMIOPayload) file) : Optional.empty();
         
         fileNameField.setText(selectedGMIO.map(GMIOPayload::getName).orElse(null));
-        image.setImage(selectedGMIO.map(GMIOPayload::getImage).orElse(null));
+        image.setImage(null);
+        selectedGMIO.ifPresent(a -> ThumbnailCache.getInstance().loadImage(a, b -> {
+            // the selection might have changed while the image got decoded
+            if (selectedGMIO.orElse(null) == a)
+                image.setImage(b);
+        }));
         formatBox.setSelectedItem(selectedGMIO.map(GMIOPayload::getFormat).orElse(null));
         wrapSBox.setSelectedItem(selectedGMIO.map(GMIOPayload::getWrapS).orElse(null));
         wrapTBox.setSelectedItem(selectedGMIO.map(GMIOPayload::getWrapT).orElse(null));
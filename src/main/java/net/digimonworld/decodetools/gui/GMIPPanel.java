@@ -1,12 +1,18 @@
 package net.digimonworld.decodetools.gui;
 
+import java.io.IOException;
+import java.util.logging.Level;
+
+import javax.swing.JFileChooser;
 import javax.swing.JList;
 import javax.swing.DefaultListModel;
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
 
 import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.export.ktx.KTXWriter;
 import net.digimonworld.decodetools.gui.util.FunctionAction;
+import net.digimonworld.decodetools.gui.util.ThumbnailListCellRenderer;
 import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
 import net.digimonworld.decodetools.res.kcap.GMIPKCAP;
 import net.digimonworld.decodetools.res.payload.GMIOPayload;
@@ -26,6 +32,7 @@ public class GMIPPanel extends PayloadPanel {
     private final JButton buttonRemove = new JButton("-");
     private final JButton buttonUp = new JButton("↑");
     private final JButton buttonDown = new JButton("↓");
+    private final JButton buttonExport = new JButton("Export KTX");
     
     private DefaultListModel<GMIOPayload> model = new DefaultListModel<>();
     
@@ -48,6 +55,7 @@ public class GMIPPanel extends PayloadPanel {
         );
 
         list.setModel(model);
+        list.setCellRenderer(new ThumbnailListCellRenderer());
         
         scrollPane.setViewportView(list);
         scrollPane.setColumnHeaderView(panel);
@@ -95,10 +103,27 @@ public class GMIPPanel extends PayloadPanel {
             list.requestFocus();
         }));
         
+        buttonExport.setAction(new FunctionAction("Export KTX", e -> {
+            JFileChooser fileDialogue = new JFileChooser("./Output");
+            fileDialogue.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            fileDialogue.showSaveDialog(null);
+            
+            if (fileDialogue.getSelectedFile() == null)
+                return;
+            
+            try {
+                KTXWriter.exportGMIP(gmip, fileDialogue.getSelectedFile(), true);
+            }
+            catch (IOException ex) {
+                Main.LOGGER.log(Level.WARNING, "Could not export textures.", ex);
+            }
+        }));
+        
         panel.add(buttonAdd);
         panel.add(buttonUp);
         panel.add(buttonDown);
         panel.add(buttonRemove);
+        panel.add(buttonExport);
         setLayout(groupLayout);
     }
     
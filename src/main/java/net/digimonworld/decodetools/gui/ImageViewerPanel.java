@@ -8,6 +8,7 @@ import javax.swing.JList;
 import javax.swing.JScrollPane;
 import javax.swing.LayoutStyle.ComponentPlacement;
 
+import net.digimonworld.decodetools.gui.util.ThumbnailListCellRenderer;
 import net.digimonworld.decodetools.res.payload.GMIOPayload;
 
 import javax.swing.ListSelectionModel;
@@ -23,6 +24,7 @@ public class ImageViewerPanel extends EditorPanel {
     public ImageViewerPanel(EditorModel model) {
         super(model);
         list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setCellRenderer(new ThumbnailListCellRenderer());
         list.addListSelectionListener(a -> {
             GMIOPayload selected = list.getSelectedValue();
             payload.setSelectedFile(selected);
@@ -37,6 +37,7 @@ import net.digimonworld.decodetools.arcv.ARCVFile;
 import net.digimonworld.decodetools.arcv.VCRAFile;
 import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.gui.util.FunctionAction;
 import net.digimonworld.decodetools.gui.util.JProgressFrame;
@@ -384,7 +385,7 @@ public class MainWindow extends JFrame implements Observer {
                             
                             byte[] input = Files.readAllBytes(f.toPath());
                             
-                            Access access = new FileAccess(f, true);
+                            Access access = new StreamAccess(input);
                             ResPayload res = ResPayload.craft(access);
                             access.close();
                             
@@ -6,20 +6,22 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.swing.AbstractAction;
 import javax.swing.GroupLayout;
 import javax.swing.GroupLayout.Alignment;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -31,11 +33,17 @@ import javax.swing.SwingWorker;
 import javax.swing.border.BevelBorder;
 
 import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.MappedAccess;
 import net.digimonworld.decodetools.core.Tuple;
 import net.digimonworld.decodetools.gui.util.LinebreakUtil;
+import net.digimonworld.decodetools.res.BTXIndex;
+import net.digimonworld.decodetools.res.BTXIndex.Match;
 import net.digimonworld.decodetools.res.ResPayload;
 import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.ResSkeleton;
+import net.digimonworld.decodetools.res.ResTextFile;
 import net.digimonworld.decodetools.res.payload.BTXPayload;
 import net.digimonworld.decodetools.res.payload.TNFOPayload;
 import net.digimonworld.decodetools.res.payload.BTXPayload.BTXEntry;
@@ -48,8 +56,9 @@ public class MassStringReplacer extends JFrame {
     private static final String MESSAGE_PROPERTY = "message";
     private static final String PROGRESS_PROPERTY = "progress";
     
-    private transient Map<String, ResPayload> files = new HashMap<>();
+    private transient Map<String, ResTextFile> files = new HashMap<>();
     private transient Set<String> changedFiles = new HashSet<>();
+    private transient BTXIndex index = new BTXIndex();
     
     private TNFOPayload linebreakFont = null;
     
@@ -83,6 +92,7 @@ public class MassStringReplacer extends JFrame {
     private final JSpinner maxWidthSpinner = new JSpinner();
     private final JLabel maxWidthLabel = new JLabel("Max Width");
     private final JButton cleanupButton = new JButton("Cleanup Strings");
+    private final JCheckBox textOnlyCheckBox = new JCheckBox("Load Text Only", true);
     
     public MassStringReplacer() {
         maxWidthSpinner.setModel(new SpinnerNumberModel(252, 100, 480, 1));
@@ -145,7 +155,9 @@ public class MassStringReplacer extends JFrame {
                             .addComponent(linebreakButton)
                             .addPreferredGap(ComponentPlacement.RELATED)
                             .addComponent(digitterLinebreakButton)
-                            .addPreferredGap(ComponentPlacement.RELATED, 251, Short.MAX_VALUE)
+                            .addPreferredGap(ComponentPlacement.RELATED)
+                            .addComponent(textOnlyCheckBox)
+                            .addPreferredGap(ComponentPlacement.RELATED, 120, Short.MAX_VALUE)
                             .addComponent(cleanupButton)))
                     .addContainerGap())
         );
@@ -187,6 +199,7 @@ public class MassStringReplacer extends JFrame {
                     .addGroup(groupLayout.createParallelGroup(Alignment.BASELINE)
                         .addComponent(linebreakButton)
                         .addComponent(digitterLinebreakButton)
+                        .addComponent(textOnlyCheckBox)
                         .addComponent(cleanupButton))
                     .addContainerGap(82, Short.MAX_VALUE))
         );
@@ -199,6 +212,22 @@ public class MassStringReplacer extends JFrame {
         //@formatter:on
     }
     
+    /*
+     * Marks a file as changed, so it gets saved and the search index uses its modified strings.
+     */
+    private void markChanged(String name) {
+        changedFiles.add(name);
+        index.put(name, files.get(name).getBTX());
+    }
+    
+    /*
+     * Finds all strings of the loaded files containing the given text, grouped by file.
+     */
+    private Map<String, List<Match>> findStrings(String text) {
+        return index.find(text).stream().filter(a -> files.containsKey(a.getPath()))
+                    .collect(Collectors.groupingBy(Match::getPath, LinkedHashMap::new, Collectors.toList()));
+    }
+    
     private class CleanupAction extends AbstractAction {
         private static final long serialVersionUID = 561757485888416842L;
 
@@ -212,12 +241,10 @@ public class MassStringReplacer extends JFrame {
             int sizeDiff = 0;
             long fCount = 0;
 
-            for (Entry<String, ResPayload> file : files.entrySet()) {
+            for (Entry<String, ResTextFile> file : files.entrySet()) {
                 boolean replaced = false;
                 
-                for (ResPayload payload : file.getValue().getElementsWithType(Payload.BTX)) {
-                    BTXPayload btx = (BTXPayload) payload;
-                    
+                for (BTXPayload btx : file.getValue().getBTX()) {
                     for(Tuple<Integer, BTXEntry> entry : btx.getEntries()) {
                         String s = entry.getValue().getString();
                         String newString = s.replaceAll("(?m)(^ +)", "");
@@ -238,7 +265,7 @@ public class MassStringReplacer extends JFrame {
                 }
                 
                 if (replaced) {
-                    changedFiles.add(file.getKey());
+                    markChanged(file.getKey());
                     fCount++;
                 }
             }
@@ -267,9 +294,10 @@ public class MassStringReplacer extends JFrame {
 
             messageLabel.setText("Font loaded!");
             
-            try(FileAccess access = new FileAccess(f)) {
-                ResPayload res = ResPayload.craft(access);
-                linebreakFont = (TNFOPayload) res.getElementsWithType(Payload.TNFO).get(0);
+            // only the font is needed, so skip crafting the rest of the file
+            try(Access access = new MappedAccess(f)) {
+                ResSkeleton skeleton = ResSkeleton.read(access);
+                linebreakFont = (TNFOPayload) skeleton.craft(access, skeleton.getElementsWithType(Payload.TNFO).get(0));
             }
             catch (Exception e1) {
                 Main.LOGGER.warning(() -> "Error while loading font, did you enter the GlobalKeepRes.res?");
@@ -291,29 +319,12 @@ public class MassStringReplacer extends JFrame {
             long count = 0;
             long fCount = 0;
             StringBuilder filesFound = new StringBuilder();
-            for (Entry<String, ResPayload> file : files.entrySet()) {
-                boolean replaced = false;
-                
-                List<String> btxIds = new ArrayList<>();
-                int id = 0;
+            for (Entry<String, List<Match>> file : findStrings(input).entrySet()) {
+                List<String> btxIds = file.getValue().stream().map(a -> Integer.toString(a.getBTX())).distinct().collect(Collectors.toList());
                 
-                for (ResPayload payload : file.getValue().getElementsWithType(Payload.BTX)) {
-                    BTXPayload btx = (BTXPayload) payload;
-                    
-                    long lCount = btx.getEntries().stream().map(c -> c.getValue().getString()).filter(c -> c.contains(input)).count();
-                    count += lCount;
-                    
-                    if (lCount > 0) {
-                        replaced = true;
-                        btxIds.add(Integer.toString(id));
-                    }
-                    id++;
-                }
-                
-                if (replaced) {
-                    filesFound.append(file.getKey()).append(" | ").append(String.join(", ", btxIds)).append("\n");
-                    fCount++;
-                }
+                count += file.getValue().size();
+                filesFound.append(file.getKey()).append(" | ").append(String.join(", ", btxIds)).append("\n");
+                fCount++;
             }
             
             messageLabel.setText("Found: " + count + " in " + fCount + " files.");
@@ -335,23 +346,17 @@ public class MassStringReplacer extends JFrame {
             long count = 0;
             long fCount = 0;
             
-            for (Entry<String, ResPayload> file : files.entrySet()) {
-                boolean replaced = false;
+            for (Entry<String, List<Match>> file : findStrings(input).entrySet()) {
+                List<BTXPayload> btx = files.get(file.getKey()).getBTX();
                 
-                for (ResPayload payload : file.getValue().getElementsWithType(Payload.BTX)) {
-                    BTXPayload btx = (BTXPayload) payload;
-                    long lCount = btx.getEntries().stream().map(Tuple::getValue).filter(c -> c.getString().contains(input)).count();
-                    count += lCount;
-                    btx.getEntries().stream().map(Tuple::getValue).filter(c -> c.getString().contains(input))
-                       .forEach(c -> c.setString(c.getString().replace(input, replacement)));
-                    if (lCount > 0)
-                        replaced = true;
+                for (Match match : file.getValue()) {
+                    BTXEntry entry = btx.get(match.getBTX()).getEntries().get(match.getEntry()).getValue();
+                    entry.setString(entry.getString().replace(input, replacement));
+                    count++;
                 }
                 
-                if (replaced) {
-                    fCount++;
-                    changedFiles.add(file.getKey());
-                }
+                fCount++;
+                markChanged(file.getKey());
             }
             
             messageLabel.setText("Replaced " + count + " entries in " + fCount + " files.");
@@ -374,12 +379,10 @@ public class MassStringReplacer extends JFrame {
             if(linebreakFont == null)
                 messageLabel.setText("No font loaded!");
             
-            for (Entry<String, ResPayload> file : files.entrySet()) {
+            for (Entry<String, ResTextFile> file : files.entrySet()) {
                 boolean changed = false;
                 
-                for (ResPayload p : file.getValue().getElementsWithType(Payload.BTX)) {
-                    BTXPayload btx = (BTXPayload) p;
-                    
+                for (BTXPayload btx : file.getValue().getBTX()) {
                     for (Tuple<Integer, BTXEntry> str : btx.getEntries()) {
                         BTXEntry entry = str.getValue();
                         
@@ -399,7 +402,7 @@ public class MassStringReplacer extends JFrame {
                 }
                 
                 if (changed) {
-                    changedFiles.add(file.getKey());
+                    markChanged(file.getKey());
                     fCount++;
                 }
             }
@@ -424,12 +427,10 @@ public class MassStringReplacer extends JFrame {
             if(linebreakFont == null)
                 messageLabel.setText("No font loaded!");
             
-            for (Entry<String, ResPayload> file : files.entrySet()) {
+            for (Entry<String, ResTextFile> file : files.entrySet()) {
                 boolean changed = false;
                 
-                for (ResPayload p : file.getValue().getElementsWithType(Payload.BTX)) {
-                    BTXPayload btx = (BTXPayload) p;
-                    
+                for (BTXPayload btx : file.getValue().getBTX()) {
                     for (Tuple<Integer, BTXEntry> str : btx.getEntries()) {
                         BTXEntry entry = str.getValue();
                         
@@ -449,7 +450,7 @@ public class MassStringReplacer extends JFrame {
                 }
                 
                 if (changed) {
-                    changedFiles.add(file.getKey());
+                    markChanged(file.getKey());
                     fCount++;
                 }
             }
@@ -476,7 +477,7 @@ public class MassStringReplacer extends JFrame {
             if (f == null)
                 return;
             
-            LoadFilesTask task = new LoadFilesTask(f);
+            LoadFilesTask task = new LoadFilesTask(f, textOnlyCheckBox.isSelected());
             
             task.addPropertyChangeListener(progressListener);
             
@@ -532,7 +533,12 @@ public class MassStringReplacer extends JFrame {
             int count = 0;
             setProgress(0);
             for (String name : changedFiles) {
-                files.get(name).repack(new File(input, name));
+                try {
+                    files.get(name).repack(new File(input, name));
+                }
+                catch (IOException e) {
+                    Main.LOGGER.log(Level.WARNING, e, () -> "Could not save " + name);
+                }
                 setProgress((++count * 100) / changedFiles.size());
                 firePropertyChange(MESSAGE_PROPERTY, "", count + " of " + changedFiles.size() + " files saved.");
             }
@@ -553,9 +559,11 @@ public class MassStringReplacer extends JFrame {
     
     private class LoadFilesTask extends SwingWorker<Void, Void> {
         private File input;
+        private boolean textOnly;
         
-        public LoadFilesTask(File dir) {
+        public LoadFilesTask(File dir, boolean textOnly) {
             this.input = dir;
+            this.textOnly = textOnly;
         }
         
         @Override
@@ -565,18 +573,28 @@ public class MassStringReplacer extends JFrame {
             int count = 0;
             setProgress(0);
             for (File ff : dirContent) {
-                try (FileAccess access = new FileAccess(ff, true)) {
-                    try {
-                        files.put(ff.getName(), ResPayload.craft(access));
-                    }
-                    catch (Exception e) {
-                        // do nothing
-                    }
+                try {
+                    files.put(ff.getName(), ResTextFile.load(ff, textOnly));
+                }
+                catch (Exception e) {
+                    // do nothing
                 }
                 setProgress((++count * 100) / dirContent.length);
                 firePropertyChange(MESSAGE_PROPERTY, "", count + " of " + dirContent.length + " files loaded.");
             }
             
+            firePropertyChange(MESSAGE_PROPERTY, "", "Updating search index...");
+            try {
+                index = BTXIndex.update(input, Runtime.getRuntime().availableProcessors());
+            }
+            catch (IOException | RuntimeException e) {
+                Main.LOGGER.log(Level.WARNING, "Could not update the search index, indexing the loaded files: ", e);
+                index = new BTXIndex();
+                files.forEach((a, b) -> index.put(a, b.getBTX()));
+            }
+            changedFiles.forEach(a -> index.put(a, files.get(a).getBTX()));
+            firePropertyChange(MESSAGE_PROPERTY, "", count + " of " + dirContent.length + " files loaded.");
+            
             return null;
         }
         
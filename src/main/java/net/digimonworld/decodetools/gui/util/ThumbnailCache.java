@@ -0,0 +1,359 @@
+package net.digimonworld.decodetools.gui.util;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.Mipmaps;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+
+/**
+ * Caches decoded textures and their thumbnails for the GUI, so browsing through textures doesn't decode them over and
+ * over again.
+ * <p>
+ * Entries are keyed by the file the textures got loaded from and the {@link GMIOPayload#getContentHash() content hash}
+ * of the texture. Decoded images are kept in a small in-memory LRU, thumbnails in a bigger one and as PNG files on
+ * disk, so they survive restarts. The least recently used files get deleted once there are too many of them. All
+ * decoding and disk access is done by a pool of background workers, results get passed to their callbacks on the event
+ * dispatch thread.
+ * </p>
+ */
+public class ThumbnailCache {
+    private static final ThumbnailCache INSTANCE = new ThumbnailCache(Paths.get("./cache/thumbnails"), 64, 16, 1024, 8192);
+    
+    // how many thumbnails get written between two checks of the number of files on disk
+    private static final int PRUNE_INTERVAL = 256;
+    
+    private final Path directory;
+    private final int thumbnailSize;
+    private final int fileCount;
+    private final AtomicInteger writes = new AtomicInteger();
+    
+    private final Map<Key, BufferedImage> images;
+    private final Map<Key, BufferedImage> thumbnails;
+    private final Map<Key, List<Consumer<BufferedImage>>> pendingImages = new HashMap<>();
+    private final Map<Key, List<Consumer<BufferedImage>>> pendingThumbnails = new HashMap<>();
+    private final LinkedBlockingDeque<Runnable> queue;
+    private final ExecutorService executor;
+    
+    private String source = "";
+    
+    /**
+     * Creates a new cache.
+     *
+     * @param directory the directory to store thumbnails in
+     * @param thumbnailSize the maximum width and height of a thumbnail
+     * @param imageCount the number of decoded images to keep in memory
+     * @param thumbnailCount the number of thumbnails to keep in memory
+     * @param fileCount the number of thumbnails to keep on disk
+     */
+    public ThumbnailCache(Path directory, int thumbnailSize, int imageCount, int thumbnailCount, int fileCount) {
+        this.directory = directory;
+        this.thumbnailSize = thumbnailSize;
+        this.fileCount = fileCount;
+        this.images = createLRU(imageCount);
+        this.thumbnails = createLRU(thumbnailCount);
+        
+        // the most recent request is usually for what the user is looking at right now, so it gets handled first
+        this.queue = new LinkedBlockingDeque<Runnable>() {
+            private static final long serialVersionUID = 2791628398817946520L;
+            
+            @Override
+            public boolean offer(Runnable e) {
+                return offerFirst(e);
+            }
+        };
+        
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, r -> {
+            Thread thread = new Thread(r, "ThumbnailCache");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public int getThumbnailSize() {
+        return thumbnailSize;
+    }
+    
+    public static ThumbnailCache getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Sets the file textures get loaded from, which gets part of the key for all following requests. Requests for the
+     * textures of the previous file that haven't been started yet get dropped, without calling their callbacks.
+     *
+     * @param file the file, or null if there is none
+     */
+    public synchronized void setSource(File file) {
+        String newSource = file == null ? "" : file.getAbsolutePath();
+        if (newSource.equals(source))
+            return;
+        
+        source = newSource;
+        queue.removeIf(a -> {
+            Task task = (Task) a;
+            if (task.key.source.equals(newSource))
+                return false;
+            
+            task.pending.remove(task.key);
+            return true;
+        });
+    }
+    
+    /**
+     * Loads the decoded image of the given texture.
+     * <p>
+     * The callback gets called immediately if the image is in memory, otherwise the image gets decoded in the
+     * background and the callback gets called later on the event dispatch thread.
+     * </p>
+     *
+     * @param gmio the texture to load the image of
+     * @param callback the callback receiving the image, which might be null
+     */
+    public void loadImage(GMIOPayload gmio, Consumer<BufferedImage> callback) {
+        Key key = createKey(gmio);
+        BufferedImage image = getCached(images, key);
+        
+        if (image != null)
+            callback.accept(image);
+        else if (enqueue(pendingImages, key, callback))
+            executor.execute(new Task(key, pendingImages, () -> {
+                BufferedImage decoded = null;
+                try {
+                    decoded = gmio.decodeImage();
+                    putCached(images, key, decoded);
+                }
+                finally {
+                    complete(pendingImages, key, decoded);
+                }
+            }));
+    }
+    
+    /**
+     * Loads the thumbnail of the given texture, which is at most as big as the thumbnail size of this cache.
+     * <p>
+     * The callback gets called immediately if the thumbnail is in memory, otherwise it gets read from disk or created in
+     * the background and the callback gets called later on the event dispatch thread.
+     * </p>
+     *
+     * @param gmio the texture to load the thumbnail of
+     * @param callback the callback receiving the thumbnail, which might be null
+     */
+    public void loadThumbnail(GMIOPayload gmio, Consumer<BufferedImage> callback) {
+        Key key = createKey(gmio);
+        BufferedImage thumbnail = getCached(thumbnails, key);
+        
+        if (thumbnail != null)
+            callback.accept(thumbnail);
+        else if (enqueue(pendingThumbnails, key, callback))
+            executor.execute(new Task(key, pendingThumbnails, () -> {
+                BufferedImage created = null;
+                try {
+                    created = readOrCreateThumbnail(gmio, key);
+                    putCached(thumbnails, key, created);
+                }
+                finally {
+                    complete(pendingThumbnails, key, created);
+                }
+            }));
+    }
+    
+    /**
+     * Gets the thumbnail of the given texture, if it's in memory.
+     *
+     * @param gmio the texture to get the thumbnail of
+     * @return the thumbnail, or null if it's not in memory
+     */
+    public BufferedImage getThumbnail(GMIOPayload gmio) {
+        return getCached(thumbnails, createKey(gmio));
+    }
+    
+    /**
+     * Loads the thumbnails of the given textures in the background, so they are available once they get viewed.
+     *
+     * @param textures the textures to load the thumbnails of
+     */
+    public void prefetch(Iterable<GMIOPayload> textures) {
+        textures.forEach(a -> loadThumbnail(a, b -> {}));
+    }
+    
+    private BufferedImage readOrCreateThumbnail(GMIOPayload gmio, Key key) {
+        Path file = directory.resolve(key.getFileName());
+        
+        if (Files.exists(file)) {
+            try {
+                BufferedImage thumbnail = ImageIO.read(file.toFile());
+                if (thumbnail != null) {
+                    // the modification time tells pruning which thumbnails got used recently
+                    file.toFile().setLastModified(System.currentTimeMillis());
+                    return thumbnail;
+                }
+            }
+            catch (IOException e) {
+                Main.LOGGER.log(Level.FINE, e, () -> "Could not read cached thumbnail " + file);
+            }
+        }
+        
+        BufferedImage image = getCached(images, key);
+        if (image == null)
+            image = gmio.decodeImage();
+        if (image == null)
+            return null;
+        
+        BufferedImage thumbnail = Mipmaps.thumbnail(image, thumbnailSize);
+        
+        try {
+            Files.createDirectories(directory);
+            ImageIO.write(thumbnail, "PNG", file.toFile());
+        }
+        catch (IOException e) {
+            Main.LOGGER.log(Level.WARNING, e, () -> "Could not write cached thumbnail " + file);
+        }
+        
+        if (writes.getAndIncrement() % PRUNE_INTERVAL == 0)
+            prune();
+        
+        return thumbnail;
+    }
+    
+    /*
+     * Deletes the least recently used thumbnails from disk, until at most fileCount are left.
+     */
+    private void prune() {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.endsWith(".png"));
+        if (files == null || files.length <= fileCount)
+            return;
+        
+        // the modification time might change while sorting, so take it once
+        long[] modified = Arrays.stream(files).mapToLong(File::lastModified).toArray();
+        Integer[] order = new Integer[files.length];
+        Arrays.setAll(order, a -> a);
+        Arrays.sort(order, Comparator.comparingLong(a -> modified[a]));
+        
+        for (int i = 0; i < files.length - fileCount; i++) {
+            Path file = files[order[i]].toPath();
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException e) {
+                Main.LOGGER.log(Level.FINE, e, () -> "Could not delete cached thumbnail " + file);
+            }
+        }
+    }
+    
+    private synchronized Key createKey(GMIOPayload gmio) {
+        return new Key(source, gmio.getContentHash());
+    }
+    
+    private synchronized BufferedImage getCached(Map<Key, BufferedImage> map, Key key) {
+        return map.get(key);
+    }
+    
+    private synchronized void putCached(Map<Key, BufferedImage> map, Key key, BufferedImage image) {
+        if (image != null)
+            map.put(key, image);
+    }
+    
+    /*
+     * Adds a callback for the given key, returns whether it's the first one, i.e. whether the key still needs to be
+     * loaded.
+     */
+    private synchronized boolean enqueue(Map<Key, List<Consumer<BufferedImage>>> pending, Key key, Consumer<BufferedImage> callback) {
+        List<Consumer<BufferedImage>> callbacks = pending.computeIfAbsent(key, a -> new ArrayList<>());
+        callbacks.add(callback);
+        return callbacks.size() == 1;
+    }
+    
+    private void complete(Map<Key, List<Consumer<BufferedImage>>> pending, Key key, BufferedImage image) {
+        List<Consumer<BufferedImage>> callbacks;
+        synchronized (this) {
+            callbacks = pending.remove(key);
+        }
+        
+        SwingUtilities.invokeLater(() -> callbacks.forEach(a -> a.accept(image)));
+    }
+    
+    private static Map<Key, BufferedImage> createLRU(int maxSize) {
+        return new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2853741209586743151L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+    
+    /*
+     * A queued request, which knows its key so it can be dropped once its source isn't viewed anymore.
+     */
+    private static class Task implements Runnable {
+        private final Key key;
+        private final Map<Key, List<Consumer<BufferedImage>>> pending;
+        private final Runnable action;
+        
+        public Task(Key key, Map<Key, List<Consumer<BufferedImage>>> pending, Runnable action) {
+            this.key = key;
+            this.pending = pending;
+            this.action = action;
+        }
+        
+        @Override
+        public void run() {
+            action.run();
+        }
+    }
+    
+    private static class Key {
+        private final String source;
+        private final long hash;
+        
+        public Key(String source, long hash) {
+            this.source = source;
+            this.hash = hash;
+        }
+        
+        public String getFileName() {
+            return String.format("%08x%016x.png", source.hashCode(), hash);
+        }
+        
+        @Override
+        public int hashCode() {
+            return source.hashCode() * 31 + Long.hashCode(hash);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            
+            Key other = (Key) obj;
+            return hash == other.hash && source.equals(other.source);
+        }
+    }
+}
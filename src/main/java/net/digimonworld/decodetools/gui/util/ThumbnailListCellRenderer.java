@@ -0,0 +1,52 @@
+package net.digimonworld.decodetools.gui.util;
+
+import java.awt.Component;
+import java.awt.image.BufferedImage;
+
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.ImageIcon;
+import javax.swing.JList;
+
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+
+/**
+ * Renders GMIOs in a list with their thumbnail. Thumbnails that aren't loaded yet get requested from the
+ * {@link ThumbnailCache} and an empty icon of the same size is shown until they are available.
+ */
+public class ThumbnailListCellRenderer extends DefaultListCellRenderer {
+    private static final long serialVersionUID = -3297451938206187625L;
+    
+    private final transient ThumbnailCache cache = ThumbnailCache.getInstance();
+    private final ImageIcon placeholder;
+    
+    public ThumbnailListCellRenderer() {
+        int size = cache.getThumbnailSize();
+        placeholder = new ImageIcon(new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB));
+    }
+    
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+        super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+        
+        if (!(value instanceof GMIOPayload))
+            return this;
+        
+        GMIOPayload gmio = (GMIOPayload) value;
+        setIcon(placeholder);
+        
+        // empty textures have no thumbnail
+        if (gmio.getWidth() == 0)
+            return this;
+        
+        BufferedImage thumbnail = cache.getThumbnail(gmio);
+        if (thumbnail != null)
+            setIcon(new ImageIcon(thumbnail));
+        else
+            cache.loadThumbnail(gmio, a -> {
+                if (a != null)
+                    list.repaint();
+            });
+        
+        return this;
+    }
+}
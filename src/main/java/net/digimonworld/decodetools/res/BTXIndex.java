@@ -0,0 +1,326 @@
+package net.digimonworld.decodetools.res;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.core.Tuple;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.ResSkeleton.Element;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+import net.digimonworld.decodetools.res.payload.BTXPayload.BTXEntry;
+
+/*
+ * BTX Index Format
+ * UTF-8 text, one string per line, columns separated by tabs. Lines starting with # are comments.
+ *
+ * path       - path of the .res file, relative to the indexed directory
+ * size       - size of the file in bytes when it got indexed, -1 if it has to be read again
+ * modified   - last modification time of the file in milliseconds when it got indexed, -1 if it has to be read again
+ * btx        - index of the BTX within the file, in the order of getElementsWithType(Payload.BTX), -1 for files
+ *              without any strings
+ * entry      - index of the string within the BTX
+ * id         - id of the string
+ * string     - the string, with \, tabs and line breaks escaped as \\, \t, \n and \r
+ */
+/**
+ * A search index over the strings of all BTX in the .res files of a directory.
+ * <p>
+ * The strings are stored on disk and only files whose size or modification time changed are read again when it gets
+ * updated, reading only their BTX. Searches go through an in-memory trigram index, so only strings containing all
+ * trigrams of a query get compared with it.
+ * </p>
+ */
+public class BTXIndex extends DirectoryIndex<BTXIndex.IndexedStrings> {
+    private static final Path DEFAULT_DIRECTORY = Paths.get("./cache/btxindex");
+    
+    private static final String HEADER = "#path\tsize\tmodified\tbtx\tentry\tid\tstring";
+    private static final int GRAM_SIZE = 3;
+    
+    private Map<Long, List<Match>> postings = null;
+    
+    public BTXIndex() {
+        super(HEADER);
+    }
+    
+    /**
+     * Gets the default location of the index for the given directory, within the ./cache directory.
+     *
+     * @param dir the indexed directory
+     * @return the path of the index file
+     */
+    public static Path getDefaultFile(File dir) {
+        return getDefaultFile(DEFAULT_DIRECTORY, dir);
+    }
+    
+    /**
+     * Loads the index stored in the given file.
+     *
+     * @param file the index file
+     * @return the loaded index, empty if the file doesn't exist
+     * @throws IOException if the file can't be read
+     */
+    public static BTXIndex load(Path file) throws IOException {
+        BTXIndex index = new BTXIndex();
+        index.read(file);
+        return index;
+    }
+    
+    /**
+     * Loads the index of the given directory from its default location, updates it and saves it again.
+     *
+     * @param dir the directory containing the .res files, searched recursively
+     * @param threads the number of workers to use
+     * @return the updated index
+     * @throws IOException if the index can't be read or written
+     */
+    public static BTXIndex update(File dir, int threads) throws IOException {
+        return update(getDefaultFile(dir), dir, threads, BTXIndex::new);
+    }
+    
+    @Override
+    protected void parseLine(String[] values) {
+        String path = values[0];
+        IndexedStrings indexed = files.computeIfAbsent(path, a -> new IndexedStrings(Long.parseLong(values[1]), Long.parseLong(values[2])));
+        
+        int btx = Integer.parseInt(values[3]);
+        if (btx != -1)
+            indexed.matches.add(new Match(path, btx, Integer.parseInt(values[4]), Integer.parseInt(values[5]), unescape(values[6])));
+    }
+    
+    @Override
+    protected List<String> toLines(String path, IndexedStrings indexed) {
+        String prefix = prefix(path, indexed);
+        
+        if (indexed.matches.isEmpty())
+            return Collections.singletonList(prefix + "\t-1\t-1\t-1\t");
+        
+        return indexed.matches.stream()
+                              .map(a -> String.join("\t", prefix, Integer.toString(a.btx), Integer.toString(a.entry),
+                                                    Integer.toString(a.id), escape(a.string)))
+                              .collect(Collectors.toList());
+    }
+    
+    @Override
+    protected IndexedStrings readFile(String path, File file) {
+        // take the metadata before reading, so a file changed in the meantime gets read again next time
+        IndexedStrings indexed = new IndexedStrings(file.length(), file.lastModified());
+        
+        try (Access access = new MappedAccess(file)) {
+            ResSkeleton skeleton = ResSkeleton.read(access);
+            List<Element> elements = skeleton.getElementsWithType(Payload.BTX);
+            
+            for (int i = 0; i < elements.size(); i++)
+                addMatches(indexed, path, i, (BTXPayload) skeleton.craft(access, elements.get(i)));
+            
+            return indexed;
+        }
+        catch (IOException | RuntimeException e) {
+            // without metadata, so the file gets read again with the next update
+            Main.LOGGER.log(Level.WARNING, e, () -> "Could not index strings of " + file);
+            return new IndexedStrings(-1, -1);
+        }
+    }
+    
+    private static void addMatches(IndexedStrings indexed, String path, int btx, BTXPayload payload) {
+        List<Tuple<Integer, BTXEntry>> entries = payload.getEntries();
+        
+        for (int i = 0; i < entries.size(); i++)
+            indexed.matches.add(new Match(path, btx, i, entries.get(i).getKey(), entries.get(i).getValue().getString()));
+    }
+    
+    /**
+     * Replaces the indexed strings of a file with the ones of the given, possibly modified, payload. The file is read
+     * again on the next update from disk.
+     *
+     * @param path the path of the file, relative to the indexed directory
+     * @param payload the content of the file
+     */
+    public void put(String path, ResPayload payload) {
+        put(path, payload.getElementsWithType(Payload.BTX).stream().map(BTXPayload.class::cast).collect(Collectors.toList()));
+    }
+    
+    /**
+     * Replaces the indexed strings of a file with the given, possibly modified, BTX. The file is read again on the next
+     * update from disk.
+     *
+     * @param path the path of the file, relative to the indexed directory
+     * @param btx the BTX of the file, in the order of {@link ResPayload#getElementsWithType(Payload)}
+     */
+    public void put(String path, List<BTXPayload> btx) {
+        IndexedStrings indexed = new IndexedStrings(-1, -1);
+        
+        for (int i = 0; i < btx.size(); i++)
+            addMatches(indexed, path, i, btx.get(i));
+        
+        files.put(path, indexed);
+        changed();
+    }
+    
+    /**
+     * Finds all strings containing the given query.
+     *
+     * @param query the text to search for
+     * @return the matching strings, sorted by file, BTX and entry
+     */
+    public List<Match> find(String query) {
+        List<Match> candidates;
+        
+        if (query.length() < GRAM_SIZE)
+            candidates = files.values().stream().flatMap(a -> a.matches.stream()).collect(Collectors.toList());
+        else {
+            Map<Long, List<Match>> index = getPostings();
+            
+            // every trigram of the query must be in a match, so the rarest one gives the fewest candidates
+            candidates = null;
+            for (int i = 0; i <= query.length() - GRAM_SIZE; i++) {
+                List<Match> list = index.getOrDefault(gram(query, i), Collections.emptyList());
+                if (candidates == null || list.size() < candidates.size())
+                    candidates = list;
+            }
+        }
+        
+        return candidates.stream().filter(a -> a.string.contains(query))
+                         .sorted(Comparator.comparing(Match::getPath).thenComparingInt(Match::getBTX).thenComparingInt(Match::getEntry))
+                         .collect(Collectors.toList());
+    }
+    
+    @Override
+    protected synchronized void changed() {
+        postings = null;
+    }
+    
+    private synchronized Map<Long, List<Match>> getPostings() {
+        if (postings != null)
+            return postings;
+        
+        Map<Long, List<Match>> map = new HashMap<>();
+        Set<Long> grams = new HashSet<>();
+        
+        for (IndexedStrings indexed : files.values())
+            for (Match match : indexed.matches) {
+                grams.clear();
+                for (int i = 0; i <= match.string.length() - GRAM_SIZE; i++)
+                    grams.add(gram(match.string, i));
+                
+                grams.forEach(a -> map.computeIfAbsent(a, b -> new ArrayList<>()).add(match));
+            }
+        
+        postings = map;
+        return map;
+    }
+    
+    private static long gram(String string, int offset) {
+        return ((long) string.charAt(offset) << 32) | ((long) string.charAt(offset + 1) << 16) | string.charAt(offset + 2);
+    }
+    
+    private static String escape(String string) {
+        return string.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+    
+    private static String unescape(String string) {
+        StringBuilder builder = new StringBuilder(string.length());
+        
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c != '\\' || i + 1 == string.length()) {
+                builder.append(c);
+                continue;
+            }
+            
+            char next = string.charAt(++i);
+            switch (next) {
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                default:
+                    builder.append(next);
+                    break;
+            }
+        }
+        
+        return builder.toString();
+    }
+    
+    static class IndexedStrings extends IndexedFile {
+        private final List<Match> matches = new ArrayList<>();
+        
+        private IndexedStrings(long size, long modified) {
+            super(size, modified);
+        }
+    }
+    
+    /**
+     * A single indexed string.
+     */
+    public static class Match {
+        private final String path;
+        private final int btx;
+        private final int entry;
+        private final int id;
+        private final String string;
+        
+        private Match(String path, int btx, int entry, int id, String string) {
+            this.path = path;
+            this.btx = btx;
+            this.entry = entry;
+            this.id = id;
+            this.string = string;
+        }
+        
+        /**
+         * Gets the path of the file containing the string, relative to the indexed directory.
+         *
+         * @return the path of the file
+         */
+        public String getPath() {
+            return path;
+        }
+        
+        /**
+         * Gets the index of the BTX within the file, in the order of {@link ResPayload#getElementsWithType(Payload)}.
+         *
+         * @return the index of the BTX
+         */
+        public int getBTX() {
+            return btx;
+        }
+        
+        /**
+         * Gets the index of the string within its BTX.
+         *
+         * @return the index of the string
+         */
+        public int getEntry() {
+            return entry;
+        }
+        
+        public int getId() {
+            return id;
+        }
+        
+        public String getString() {
+            return string;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package net.digimonworld.decodetools.res;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.core.Utils;
+
+/*
+ * Directory Index Format
+ * UTF-8 text, columns separated by tabs. Lines starting with # are comments, the first line is the header.
+ *
+ * path       - path of the .res file, relative to the indexed directory
+ * size       - size of the file in bytes when it got indexed, -1 if it has to be read again
+ * modified   - last modification time of the file in milliseconds when it got indexed, -1 if it has to be read again
+ * ...        - the columns of the concrete index
+ */
+/**
+ * Base of the on-disk indices over the .res files of a directory.
+ * <p>
+ * Every indexed file remembers its size and modification time, so an update only reads files that are new or changed
+ * since they got indexed.
+ * </p>
+ *
+ * @param <T> the type of the per file data
+ */
+abstract class DirectoryIndex<T extends DirectoryIndex.IndexedFile> {
+    protected final Map<String, T> files = new ConcurrentHashMap<>();
+    
+    private final String header;
+    private final int columns;
+    
+    protected DirectoryIndex(String header) {
+        this.header = header;
+        this.columns = header.split("\t").length;
+    }
+    
+    /**
+     * Gets the location of the index for the given directory within the given cache directory.
+     *
+     * @param cacheDirectory the directory containing all indices of a kind
+     * @param dir the indexed directory
+     * @return the path of the index file
+     */
+    protected static Path getDefaultFile(Path cacheDirectory, File dir) {
+        return cacheDirectory.resolve(String.format("%08x.tsv", dir.getAbsolutePath().hashCode()));
+    }
+    
+    /**
+     * Loads the index of the given directory from the given file, updates it and saves it again if anything changed.
+     * An invalid index file gets discarded and the index is built from scratch.
+     *
+     * @param file the index file
+     * @param dir the directory containing the .res files, searched recursively
+     * @param threads the number of workers to use
+     * @param factory creates an empty index
+     * @return the updated index
+     * @throws IOException if the index can't be read or written
+     */
+    protected static <I extends DirectoryIndex<?>> I update(Path file, File dir, int threads, Supplier<I> factory)
+            throws IOException {
+        I index = factory.get();
+        
+        try {
+            index.read(file);
+        }
+        catch (IllegalArgumentException e) {
+            Main.LOGGER.log(Level.WARNING, e, () -> "Discarding invalid index " + file);
+            index = factory.get();
+        }
+        
+        if (index.update(dir.toPath(), threads)) {
+            Files.createDirectories(file.getParent());
+            index.save(file);
+        }
+        
+        return index;
+    }
+    
+    /**
+     * Reads the index stored in the given file into this one, doing nothing if the file doesn't exist.
+     *
+     * @param file the index file
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file isn't a valid index
+     */
+    protected void read(Path file) throws IOException {
+        if (!Files.exists(file))
+            return;
+        
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                
+                String[] values = line.split("\t", -1);
+                if (values.length != columns)
+                    throw new IllegalArgumentException(String.format("Line %d of %s has %d columns, expected %d.", lineNumber, file, values.length, columns));
+                
+                parseLine(values);
+            }
+        }
+    }
+    
+    /**
+     * Adds the content of a single line of an index file to this index.
+     *
+     * @param values the columns of the line, as many as the header has
+     */
+    protected abstract void parseLine(String[] values);
+    
+    public void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(header);
+            writer.newLine();
+            
+            for (Map.Entry<String, T> entry : new TreeMap<>(files).entrySet())
+                for (String line : toLines(entry.getKey(), entry.getValue())) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+        }
+    }
+    
+    /**
+     * Gets the lines of the index file for a single file, each starting with the given path, size and modification
+     * time.
+     *
+     * @param path the path of the file, relative to the indexed directory
+     * @param indexed the data of the file
+     * @return the lines, at least one
+     */
+    protected abstract List<String> toLines(String path, T indexed);
+    
+    protected static String prefix(String path, IndexedFile indexed) {
+        return String.join("\t", path, Long.toString(indexed.size), Long.toString(indexed.modified));
+    }
+    
+    /**
+     * Brings the index up to date with the given directory. Files that are new or changed since they got indexed are
+     * read, entries of files that no longer exist are removed.
+     *
+     * @param dir the directory containing the .res files, searched recursively
+     * @param threads the number of workers to use
+     * @return whether the index got changed
+     */
+    public boolean update(Path dir, int threads) {
+        Map<String, File> current = Utils.listFiles(dir.toFile()).stream()
+                                         .filter(a -> a.getName().endsWith(".res"))
+                                         .collect(Collectors.toMap(a -> relativePath(dir, a), Function.identity()));
+        
+        boolean removed = files.keySet().retainAll(current.keySet());
+        List<Map.Entry<String, File>> changed = current.entrySet().stream().filter(a -> {
+            T indexed = files.get(a.getKey());
+            return indexed == null || indexed.size != a.getValue().length() || indexed.modified != a.getValue().lastModified();
+        }).collect(Collectors.toList());
+        
+        if (changed.isEmpty()) {
+            if (removed)
+                changed();
+            return removed;
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        AtomicInteger handled = new AtomicInteger();
+        
+        for (Map.Entry<String, File> file : changed)
+            executor.execute(() -> {
+                files.put(file.getKey(), readFile(file.getKey(), file.getValue()));
+                
+                int count = handled.incrementAndGet();
+                if (count % 1000 == 0 || count == changed.size())
+                    Main.LOGGER.info(() -> String.format("Indexed %d of %d files.", count, changed.size()));
+            });
+        
+        executor.shutdown();
+        Utils.awaitTerminationUninterruptibly(executor);
+        
+        changed();
+        return true;
+    }
+    
+    /**
+     * Reads the data of a single file. Implementations should take the size and modification time before reading, so
+     * a file changed in the meantime gets read again next time.
+     *
+     * @param path the path of the file, relative to the indexed directory
+     * @param file the file
+     * @return the data of the file
+     */
+    protected abstract T readFile(String path, File file);
+    
+    /**
+     * Called after the indexed files changed.
+     */
+    protected void changed() {
+    }
+    
+    public int getFileCount() {
+        return files.size();
+    }
+    
+    private static String relativePath(Path dir, File file) {
+        return dir.relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+    }
+    
+    /**
+     * The data of a single indexed file.
+     */
+    protected static class IndexedFile {
+        protected final long size;
+        protected final long modified;
+        
+        protected IndexedFile(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
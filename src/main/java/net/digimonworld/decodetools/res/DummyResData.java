@@ -1,13 +1,11 @@
 package net.digimonworld.decodetools.res;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 
 import net.digimonworld.decodetools.core.Utils;
 
 public class DummyResData implements IResData {
-    private final List<ResDataEntry> list = new ArrayList<>();
+    private final ResDataIndex index = new ResDataIndex();
     private final Optional<DummyResData> parent;
     
     private int count = 0;
@@ -22,20 +20,51 @@ public class DummyResData implements IResData {
     }
     
     public int add(byte[] data, int size, boolean onlyOnce) {
-        Optional<ResDataEntry> entry = list.stream().filter(a -> onlyOnce && a.isEqual(data)).findFirst();
+        int existing = onlyOnce ? index.find(data) : -1;
         
-        if (entry.isPresent())
-            return entry.get().getAddress();
+        if (existing != -1)
+            return existing;
         
-        byte[] padding = new byte[Utils.align(getSize(), 0x80) - getSize()];
-        currentSize += padding.length;
+        int address = append(size);
         
-        int address = currentSize + getOffset();
-        count++;
+        if (onlyOnce)
+            index.add(data, address);
+        
+        return address;
+    }
+    
+    /**
+     * Adds data that is only known by its size and a fingerprint of its content, without materializing it. Data with
+     * the same size and fingerprint is considered equal.
+     * <p>
+     * When writing the data has to be added via {@link ResData#add(byte[], long, boolean)} with the same fingerprint,
+     * so it gets deduplicated just like here and ends up at the same address.
+     * </p>
+     * 
+     * @param size the size of the data
+     * @param fingerprint a hash of the data's content
+     * @param onlyOnce whether the data should be deduplicated
+     * @return the address of the data
+     */
+    public int reserve(int size, long fingerprint, boolean onlyOnce) {
+        int existing = onlyOnce ? index.find(size, fingerprint) : -1;
+        
+        if (existing != -1)
+            return existing;
+        
+        int address = append(size);
         
         if (onlyOnce)
-            list.add(new ResDataEntry(data, address));
+            index.add(size, fingerprint, address);
         
+        return address;
+    }
+    
+    private int append(int size) {
+        currentSize = Utils.align(getSize(), 0x80);
+        
+        int address = currentSize + getOffset();
+        count++;
         currentSize += size;
         
         return address;
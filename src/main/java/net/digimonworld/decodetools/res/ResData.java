@@ -1,20 +1,29 @@
 package net.digimonworld.decodetools.res;
 
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.Utils;
 
+/**
+ * Collects the data section of a .res file while its KCAP structure is being written.
+ * <p>
+ * The data is kept as a list of segments referencing the added arrays instead of being copied into a single stream.
+ * Nested instances get appended to their parent by reference, so each byte only gets copied once, when it is written
+ * into the destination via {@link #writeTo(Access)}. As such arrays passed to this class must not be modified
+ * afterwards.
+ * </p>
+ */
 public class ResData implements IResData, Closeable {
-    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-    private final List<ResDataEntry> list = new ArrayList<>();
+    private final List<byte[]> segments = new ArrayList<>();
+    private final ResDataIndex index = new ResDataIndex();
     private final Optional<ResData> parent;
     
     private int count = 0;
+    private int size = 0;
     
     public ResData(ResData parent) {
         this.parent = Optional.ofNullable(parent);
@@ -26,49 +35,89 @@ public class ResData implements IResData, Closeable {
     
     @Override
     public int add(byte[] data, boolean onlyOnce) {
-        Optional<ResDataEntry> entry = list.stream().filter(a -> onlyOnce && a.isEqual(data)).findFirst();
+        int existing = onlyOnce ? index.find(data) : -1;
         
-        if (entry.isPresent()) {
-            return entry.get().getAddress();
+        if (existing != -1) {
+            return existing;
         }
-
-        stream.writeBytes(new byte[Utils.align(getSize(), 0x80) - getSize()]);
         
-        int address = stream.size() + getOffset();
-        count++;
+        int address = addEntry(data);
         
         if (onlyOnce)
-            list.add(new ResDataEntry(data, address));
+            index.add(data, address);
+        
+        return address;
+    }
+    
+    /**
+     * Adds data that has been reserved via {@link DummyResData#reserve(int, long, boolean)} in the layout pass. It
+     * gets deduplicated by its length and the given fingerprint instead of its content, exactly like it was when
+     * reserving it, so both agree on the layout.
+     * 
+     * @param data the data to add
+     * @param fingerprint the fingerprint the data got reserved with
+     * @param onlyOnce whether the data should be deduplicated
+     * @return the address of the data
+     */
+    public int add(byte[] data, long fingerprint, boolean onlyOnce) {
+        int existing = onlyOnce ? index.find(data.length, fingerprint) : -1;
+        
+        if (existing != -1)
+            return existing;
         
-        stream.write(data, 0, data.length);
+        int address = addEntry(data);
+        
+        if (onlyOnce)
+            index.add(data.length, fingerprint, address);
+        
+        return address;
+    }
+    
+    private int addEntry(byte[] data) {
+        pad();
+        
+        int address = size + getOffset();
+        count++;
+        append(data);
         
         return address;
     }
     
     public void add(ResData data) {
         if(data.getSize() > 0) {
-            stream.writeBytes(new byte[Utils.align(getSize(), 0x80) - getSize()]);
-            stream.writeBytes(data.getStream().toByteArray());
+            pad();
+            data.segments.forEach(this::append);
             this.count += data.getDataEntries();
         }
     }
     
+    /**
+     * Writes the collected data into the given Access at its current position.
+     * 
+     * @param dest the Access to write into
+     */
+    public void writeTo(Access dest) {
+        segments.forEach(dest::writeByteArray);
+    }
+    
+    private void pad() {
+        int padding = Utils.align(size, 0x80) - size;
+        if (padding > 0)
+            append(new byte[padding]);
+    }
+    
+    private void append(byte[] segment) {
+        segments.add(segment);
+        size += segment.length;
+    }
+    
     private int getOffset() {
         return Utils.align(parent.map(IResData::getCurrentAddress).orElse(0), 0x80);
     }
     
     @Override
     public void close() {
-        try {
-            stream.close();
-        }
-        catch (IOException e) {
-            // nothing to catch, will never happen with ByteArrayOutputStream
-        }
-    }
-    
-    public ByteArrayOutputStream getStream() {
-        return stream;
+        // segments may be referenced by a parent, so there is nothing to release
     }
     
     @Override
@@ -78,7 +127,7 @@ public class ResData implements IResData, Closeable {
     
     @Override
     public int getSize() {
-        return stream.size();
+        return size;
     }
     
     @Override
@@ -0,0 +1,99 @@
+package net.digimonworld.decodetools.res;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.digimonworld.decodetools.core.Utils;
+import net.digimonworld.decodetools.res.IResData.ResDataEntry;
+
+/**
+ * A content addressed index of the data added to an {@link IResData}, used to find previously added identical data
+ * without comparing it against every entry.
+ * <p>
+ * Entries are bucketed by their length and a 64-bit hash of their content, only the entries of a matching bucket get
+ * compared byte by byte.
+ * </p>
+ */
+class ResDataIndex {
+    private final Map<Key, List<ResDataEntry>> entries = new HashMap<>();
+    private final Map<Key, Integer> fingerprints = new HashMap<>();
+    
+    /**
+     * Gets the address of previously added data equal to the given data.
+     *
+     * @param data the data to look for
+     * @return the address of the equal data, or -1 if there is none
+     */
+    public int find(byte[] data) {
+        List<ResDataEntry> candidates = entries.get(new Key(data));
+        
+        if (candidates != null)
+            for (ResDataEntry entry : candidates)
+                if (entry.isEqual(data))
+                    return entry.getAddress();
+        
+        return -1;
+    }
+    
+    /**
+     * Adds the given data with its address to the index.
+     *
+     * @param data the data to add
+     * @param address the address the data has been written to
+     */
+    public void add(byte[] data, int address) {
+        entries.computeIfAbsent(new Key(data), a -> new ArrayList<>(1)).add(new ResDataEntry(data, address));
+    }
+    
+    /**
+     * Gets the address of previously added data with the given length and fingerprint.
+     *
+     * @param length the length of the data
+     * @param fingerprint the fingerprint of the data
+     * @return the address of the matching data, or -1 if there is none
+     */
+    public int find(int length, long fingerprint) {
+        return fingerprints.getOrDefault(new Key(length, fingerprint), -1);
+    }
+    
+    /**
+     * Adds data only known by its length and fingerprint with its address to the index.
+     *
+     * @param length the length of the data
+     * @param fingerprint the fingerprint of the data
+     * @param address the address the data has been assigned to
+     */
+    public void add(int length, long fingerprint, int address) {
+        fingerprints.putIfAbsent(new Key(length, fingerprint), address);
+    }
+    
+    private static class Key {
+        private final int length;
+        private final long hash;
+        
+        public Key(byte[] data) {
+            this(data.length, Utils.hash(data.length, data));
+        }
+        
+        public Key(int length, long hash) {
+            this.length = length;
+            this.hash = hash;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            
+            Key other = (Key) obj;
+            return length == other.length && hash == other.hash;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package net.digimonworld.decodetools.res;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
+
+/*
+ * Res Index Format
+ * UTF-8 text, one .res file per line, columns separated by tabs. Lines starting with # are comments.
+ *
+ * path       - path of the .res file, relative to the indexed directory
+ * size       - size of the file in bytes when it got indexed
+ * modified   - last modification time of the file in milliseconds when it got indexed
+ * payloads   - comma separated Payload names of all elements, empty if the file couldn't be read
+ * kcaps      - comma separated KCAPType names of all KCAPs
+ */
+/**
+ * An index of the payload types contained in the .res files of a directory, built from their {@link ResSkeleton}.
+ * <p>
+ * The index is stored on disk and only files whose size or modification time changed are read again when it gets
+ * updated, so finding all files with a certain type is fast even for the whole game.
+ * </p>
+ */
+public class ResIndex extends DirectoryIndex<ResIndex.Entry> {
+    private static final Path DEFAULT_DIRECTORY = Paths.get("./cache/resindex");
+    
+    private static final String HEADER = "#path\tsize\tmodified\tpayloads\tkcaps";
+    
+    public ResIndex() {
+        super(HEADER);
+    }
+    
+    /**
+     * Gets the default location of the index for the given directory, within the ./cache directory.
+     *
+     * @param dir the indexed directory
+     * @return the path of the index file
+     */
+    public static Path getDefaultFile(File dir) {
+        return getDefaultFile(DEFAULT_DIRECTORY, dir);
+    }
+    
+    /**
+     * Loads the index stored in the given file.
+     *
+     * @param file the index file
+     * @return the loaded index, empty if the file doesn't exist
+     * @throws IOException if the file can't be read
+     */
+    public static ResIndex load(Path file) throws IOException {
+        ResIndex index = new ResIndex();
+        index.read(file);
+        return index;
+    }
+    
+    /**
+     * Loads the index of the given directory from its default location, updates it and saves it again.
+     *
+     * @param dir the directory containing the .res files, searched recursively
+     * @param threads the number of workers to use
+     * @return the updated index
+     * @throws IOException if the index can't be read or written
+     */
+    public static ResIndex update(File dir, int threads) throws IOException {
+        return update(getDefaultFile(dir), dir, threads, ResIndex::new);
+    }
+    
+    @Override
+    protected void parseLine(String[] values) {
+        files.put(values[0], new Entry(values));
+    }
+    
+    @Override
+    protected List<String> toLines(String path, Entry indexed) {
+        return Collections.singletonList(String.join("\t", prefix(path, indexed), join(indexed.payloads), join(indexed.kcaps)));
+    }
+    
+    @Override
+    protected Entry readFile(String path, File file) {
+        // take the metadata before reading, so a file changed in the meantime gets read again next time
+        long size = file.length();
+        long modified = file.lastModified();
+        
+        try (Access access = new MappedAccess(file)) {
+            ResSkeleton skeleton = ResSkeleton.read(access);
+            return new Entry(path, size, modified, skeleton.getTypes(), skeleton.getKCAPTypes());
+        }
+        catch (IOException | RuntimeException e) {
+            Main.LOGGER.log(Level.WARNING, e, () -> "Could not index " + file);
+            return new Entry(path, size, modified, EnumSet.noneOf(Payload.class), EnumSet.noneOf(KCAPType.class));
+        }
+    }
+    
+    private static String join(Set<? extends Enum<?>> set) {
+        return set.stream().map(Enum::name).collect(Collectors.joining(","));
+    }
+    
+    /**
+     * Gets all indexed files containing at least one element of the given type.
+     *
+     * @param type the type to look for
+     * @return the sorted paths of the files, relative to the indexed directory
+     */
+    public List<String> getFiles(Payload type) {
+        return files.values().stream().filter(a -> a.payloads.contains(type)).map(a -> a.path).sorted()
+                      .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets all indexed files containing at least one KCAP of the given type.
+     *
+     * @param type the type to look for
+     * @return the sorted paths of the files, relative to the indexed directory
+     */
+    public List<String> getFiles(KCAPType type) {
+        return files.values().stream().filter(a -> a.kcaps.contains(type)).map(a -> a.path).sorted()
+                      .collect(Collectors.toList());
+    }
+    
+    static class Entry extends IndexedFile {
+        private final String path;
+        private final Set<Payload> payloads;
+        private final Set<KCAPType> kcaps;
+        
+        private Entry(String path, long size, long modified, Set<Payload> payloads, Set<KCAPType> kcaps) {
+            super(size, modified);
+            this.path = path;
+            this.payloads = payloads;
+            this.kcaps = kcaps;
+        }
+        
+        private Entry(String[] columns) {
+            super(Long.parseLong(columns[1]), Long.parseLong(columns[2]));
+            path = columns[0];
+            payloads = parse(columns[3], Payload.class);
+            kcaps = parse(columns[4], KCAPType.class);
+        }
+        
+        private static <T extends Enum<T>> Set<T> parse(String column, Class<T> clazz) {
+            Set<T> set = EnumSet.noneOf(clazz);
+            if (!column.isEmpty())
+                Arrays.stream(column.split(",")).forEach(a -> set.add(Enum.valueOf(clazz, a)));
+            return Collections.unmodifiableSet(set);
+        }
+    }
+}
@@ -10,9 +10,10 @@ import java.util.logging.Level;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.core.Access;
-import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.PagedFileAccess;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
 import net.digimonworld.decodetools.res.payload.BTXPayload;
 import net.digimonworld.decodetools.res.payload.CTPPPayload;
 import net.digimonworld.decodetools.res.payload.GMIOPayload;
@@ -97,6 +98,33 @@ public abstract class ResPayload {
         return parent != null ? parent.getSizeOfRoot() : getSize();
     }
     
+    /**
+     * Starts a layout pass, computing the sizes of this entry and all its children once and caching them, so writing
+     * the entry doesn't have to recompute them on every level of the tree.
+     * <p>
+     * Structural changes through the modification operations of a KCAP invalidate the cached sizes of it and its
+     * parents, but changes to the content of an entry don't. The pass should thus be ended by {@link #clearLayout()}
+     * once the sizes are no longer needed.
+     * </p>
+     */
+    public void computeLayout() {
+    }
+    
+    /**
+     * Ends a layout pass started by {@link #computeLayout()}, discarding the cached sizes of this entry and all its
+     * children.
+     */
+    public void clearLayout() {
+    }
+    
+    /**
+     * Discards the cached sizes of this entry and all its parents, to be called when the size of the entry changed.
+     */
+    public void invalidateSize() {
+        if (parent != null)
+            parent.invalidateSize();
+    }
+    
     /**
      * Writes the resource entry to given then {@link Access} and eventual data to the given {@link IResData}
      * starting from the current position of each.
@@ -130,7 +158,7 @@ public abstract class ResPayload {
      * @return the newly created ResPayload
      */
     public static ResPayload craft(Access source) {
-        int dataStart = Payload.valueOf(null, source.readLong(0)).getDataStart(source);
+        int dataStart = Payload.valueOf((KCAPType) null, source.readLong(0)).getDataStart(source);
         return ResPayload.craft(source, dataStart, (AbstractKCAP) null, -1, null);
     }
     
@@ -170,17 +198,21 @@ public abstract class ResPayload {
                 Main.LOGGER.log(Level.WARNING, "Exception while writing new .res file.", e1);
             }
         
-        try (Access dest = new FileAccess(file); ResData data = new ResData()) {
+        try (Access dest = new PagedFileAccess(file); ResData data = new ResData()) {
+            computeLayout();
             writeKCAP(dest, data);
             
             if(data.getSize() != 0) {
                 dest.setPosition(Utils.align(getSizeOfRoot(), 0x80));
-                dest.writeByteArray(data.getStream().toByteArray());
+                data.writeTo(dest);
             }
         }
         catch (IOException e) {
             Main.LOGGER.log(Level.WARNING, "Exception while writing new .res file.", e);
         }
+        finally {
+            clearLayout();
+        }
     }
 
     @Override
@@ -271,6 +303,18 @@ public abstract class ResPayload {
          * @return the type of the Payload identified by the parent and/or the first 8-bytes of data
          */
         public static Payload valueOf(AbstractKCAP parent, long value) {
+            return valueOf(parent == null ? null : parent.getKCAPType(), value);
+        }
+        
+        /**
+         * Returns the Payload that are identified by the first 8 bytes of it's structure as well as the type of it's
+         * parent KCAP, see {@link #valueOf(AbstractKCAP, long)}.
+         * 
+         * @param parentType the {@link KCAPType} of the parent or null if there is none
+         * @param value the first 8-bytes of the Payload's structure
+         * @return the type of the Payload identified by the parent type and/or the first 8-bytes of data
+         */
+        public static Payload valueOf(KCAPType parentType, long value) {
             //split the long value to compare them to the 4-byte magic value
             int left = (int) (value >>> 32);
             int right = (int) (value & 0xFFFFFFFF);
@@ -289,10 +333,10 @@ public abstract class ResPayload {
                 return BTX;
             
             //some payloads depend on the extension of the parent KCAP
-            if (parent == null || parent.getKCAPType() == null)
+            if (parentType == null)
                 return GENERIC;
             
-            switch (parent.getKCAPType()) {
+            switch (parentType) {
                 case HSEM:
                     return HSEM;
                 case LRTM:
@@ -0,0 +1,228 @@
+package net.digimonworld.decodetools.res;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
+
+/**
+ * The structure of a resource file, i.e. the type, position and size of all its elements, without their content.
+ * <p>
+ * Reading it only touches the KCAP headers, their pointer tables and the first 8 bytes of every element, which is all
+ * {@link Payload#valueOf(KCAPType, long)} needs to identify them. This makes it a lot faster than
+ * {@link ResPayload#craft(Access)} when only the contained types are of interest. Single elements can still be
+ * crafted fully via {@link #craft(Access, Element)}.
+ * </p>
+ * <p>
+ * The elements are listed in the same order {@link ResPayload#getElementsWithType(Payload)} would return them.
+ * </p>
+ */
+public class ResSkeleton {
+    private final int dataStart;
+    private final List<Element> elements = new ArrayList<>();
+    
+    private ResSkeleton(int dataStart) {
+        this.dataStart = dataStart;
+    }
+    
+    /**
+     * Reads the skeleton of the resource file starting at address 0 of the given {@link Access}.
+     * <p>
+     * Only absolute reads are used, so the position of the Access is left unchanged.
+     * </p>
+     *
+     * @param source the Access to read from
+     * @return the skeleton of the resource file
+     * @throws IllegalArgumentException if the structure of the file is invalid
+     */
+    public static ResSkeleton read(Access source) {
+        Payload rootType = Payload.valueOf((KCAPType) null, readHead(source, 0));
+        ResSkeleton skeleton = new ResSkeleton(rootType.getDataStart(source));
+        
+        int rootSize = rootType == Payload.KCAP ? source.readInteger(0x08) : -1;
+        skeleton.readElement(source, new Element(null, 0, rootType, 0, rootSize));
+        
+        return skeleton;
+    }
+    
+    private void readElement(Access source, Element element) {
+        elements.add(element);
+        
+        if (element.type != Payload.KCAP)
+            return;
+        
+        long start = element.offset;
+        if (source.readInteger(start + 0x04) != 1)
+            throw new IllegalArgumentException("The KCAP at " + start + " is not of Version 1 and thus not supported.");
+        
+        element.kcapType = KCAPType.valueOf(source.readInteger(start + 0x20));
+        
+        int entries = source.readInteger(start + 0x10);
+        int headerSize = source.readInteger(start + 0x18);
+        if (entries < 0 || headerSize < 0 || start + headerSize + entries * 8L > source.getSize())
+            throw new IllegalArgumentException("The KCAP at " + start + " has a pointer table beyond the end of the file.");
+        
+        int[] pointers = source.readIntegerArray(entries * 2, start + headerSize);
+        
+        for (int i = 0; i < entries; i++) {
+            int offset = pointers[i * 2];
+            int size = pointers[i * 2 + 1];
+            
+            if (size == 0) // Void entries
+                continue;
+            if (offset <= 0)
+                throw new IllegalArgumentException("The KCAP at " + start + " has an invalid pointer to " + offset);
+            
+            Payload type = Payload.valueOf(element.kcapType, readHead(source, start + offset));
+            readElement(source, new Element(element, i, type, start + offset, size));
+        }
+    }
+    
+    private static long readHead(Access source, long address) {
+        if (address < 0 || address + 8 > source.getSize())
+            throw new IllegalArgumentException("Tried to read an element at " + address + ", which is beyond the end of the file.");
+        
+        return source.readLong(address);
+    }
+    
+    /**
+     * Crafts the given element, like {@link ResPayload#craft(Access, int, AbstractKCAP, int, String)} would while
+     * crafting the whole file. The element won't have a parent though.
+     *
+     * @param source the Access the skeleton got read from
+     * @param element the element to craft
+     * @return the newly created ResPayload
+     */
+    public ResPayload craft(Access source, Element element) {
+        source.setPosition(element.offset);
+        return ResPayload.craft(source, dataStart, (AbstractKCAP) null, element.size, null);
+    }
+    
+    /**
+     * Gets the address where the res data of the file starts.
+     *
+     * @return the address of the res data
+     */
+    public int getDataStart() {
+        return dataStart;
+    }
+    
+    /**
+     * Gets the root element of the file.
+     *
+     * @return the root element
+     */
+    public Element getRoot() {
+        return elements.get(0);
+    }
+    
+    /**
+     * Gets all elements of the file, excluding Void entries.
+     *
+     * @return an immutable list of all elements
+     */
+    public List<Element> getElements() {
+        return Collections.unmodifiableList(elements);
+    }
+    
+    public List<Element> getElementsWithType(Payload type) {
+        return elements.stream().filter(a -> a.type == type).collect(Collectors.toList());
+    }
+    
+    public List<Element> getElementsWithType(KCAPType type) {
+        return elements.stream().filter(a -> a.kcapType == type).collect(Collectors.toList());
+    }
+    
+    public boolean contains(Payload type) {
+        return elements.stream().anyMatch(a -> a.type == type);
+    }
+    
+    public Set<Payload> getTypes() {
+        Set<Payload> types = EnumSet.noneOf(Payload.class);
+        elements.forEach(a -> types.add(a.type));
+        return types;
+    }
+    
+    public Set<KCAPType> getKCAPTypes() {
+        Set<KCAPType> types = EnumSet.noneOf(KCAPType.class);
+        elements.stream().filter(a -> a.kcapType != null).forEach(a -> types.add(a.kcapType));
+        return types;
+    }
+    
+    /**
+     * A single element of a resource file.
+     */
+    public static class Element {
+        private final Element parent;
+        private final int index;
+        private final Payload type;
+        private final long offset;
+        private final int size;
+        
+        private KCAPType kcapType;
+        
+        private Element(Element parent, int index, Payload type, long offset, int size) {
+            this.parent = parent;
+            this.index = index;
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+        }
+        
+        /**
+         * Gets the KCAP containing this element.
+         *
+         * @return the parent element or null if this is the root
+         */
+        public Element getParent() {
+            return parent;
+        }
+        
+        /**
+         * Gets the index of the element within its parent, counting Void entries as well.
+         *
+         * @return the index within the parent
+         */
+        public int getIndex() {
+            return index;
+        }
+        
+        public Payload getType() {
+            return type;
+        }
+        
+        /**
+         * Gets the extension of the element if it's a KCAP.
+         *
+         * @return the KCAPType or null if the element is no KCAP
+         */
+        public KCAPType getKCAPType() {
+            return kcapType;
+        }
+        
+        /**
+         * Gets the absolute address of the element within the file.
+         *
+         * @return the address of the element
+         */
+        public long getOffset() {
+            return offset;
+        }
+        
+        /**
+         * Gets the size of the element as defined by its parent KCAP.
+         *
+         * @return the size of the element, or -1 for a root element that isn't a KCAP
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package net.digimonworld.decodetools.res;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.FileAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.core.Utils;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.ResSkeleton.Element;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+
+/**
+ * The strings of a .res file, i.e. its BTX, for tools that only work with text.
+ * <p>
+ * In text only mode just the {@link ResSkeleton} of the file and its BTX are kept in memory, instead of the whole
+ * crafted file. Writing the file then writes the BTX anew and copies everything else from the original file, fixing
+ * the pointer tables and sizes of the KCAPs containing them. This works for BTX within normal KCAPs, which is where the
+ * game keeps them, any other file gets crafted fully when writing it. The result is the same as repacking the fully
+ * crafted file.
+ * </p>
+ */
+public class ResTextFile {
+    private static final int COPY_BUFFER_SIZE = 0x100000;
+    
+    private final File source;
+    private final ResPayload payload;
+    private final List<BTXPayload> btx;
+    
+    private ResSkeleton skeleton;
+    
+    private ResTextFile(File source, ResPayload payload, ResSkeleton skeleton, List<BTXPayload> btx) {
+        this.source = source;
+        this.payload = payload;
+        this.skeleton = skeleton;
+        this.btx = btx;
+    }
+    
+    /**
+     * Loads the strings of the given .res file.
+     *
+     * @param file the .res file to load
+     * @param textOnly whether to keep only the BTX in memory, rather than the whole crafted file
+     * @return the loaded file
+     * @throws IOException if the file can't be read
+     */
+    public static ResTextFile load(File file, boolean textOnly) throws IOException {
+        try (Access access = read(file)) {
+            if (!textOnly) {
+                ResPayload payload = ResPayload.craft(access);
+                return new ResTextFile(file, payload, null, getBTX(payload));
+            }
+            
+            ResSkeleton skeleton = ResSkeleton.read(access);
+            List<BTXPayload> btx = new ArrayList<>();
+            for (Element element : skeleton.getElementsWithType(Payload.BTX))
+                btx.add((BTXPayload) skeleton.craft(access, element));
+            
+            return new ResTextFile(file, null, skeleton, btx);
+        }
+    }
+    
+    /*
+     * The file gets read into memory rather than mapped, since it's going to be replaced when saving it in place.
+     */
+    private static Access read(File file) throws IOException {
+        return new StreamAccess(Files.readAllBytes(file.toPath()));
+    }
+    
+    private static List<BTXPayload> getBTX(ResPayload payload) {
+        return payload.getElementsWithType(Payload.BTX).stream().map(BTXPayload.class::cast).collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets the BTX of the file, in the order of {@link ResPayload#getElementsWithType(Payload)}.
+     *
+     * @return an immutable list of the BTX
+     */
+    public List<BTXPayload> getBTX() {
+        return Collections.unmodifiableList(btx);
+    }
+    
+    public boolean isTextOnly() {
+        return payload == null;
+    }
+    
+    /**
+     * Writes the file with its current strings to the given file, which may be the file it got loaded from.
+     *
+     * @param file the file to write into
+     * @throws IOException if the file can't be read or written
+     */
+    public void repack(File file) throws IOException {
+        if (!isTextOnly()) {
+            payload.repack(file);
+            return;
+        }
+        
+        Optional.ofNullable(file.getAbsoluteFile().getParentFile()).ifPresent(File::mkdirs);
+        Path temp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+        
+        try {
+            try (Access src = read(source)) {
+                if (canSplice())
+                    try (Access dest = new FileAccess(temp.toFile())) {
+                        splice(src, dest);
+                    }
+                else
+                    repackFully(src, temp.toFile());
+            }
+            
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+        
+        // the offsets of the skeleton are only valid for the original file
+        if (Files.isSameFile(file.toPath(), source.toPath()))
+            try (Access access = read(source)) {
+                skeleton = ResSkeleton.read(access);
+            }
+    }
+    
+    /*
+     * Whether all BTX are in a chain of normal KCAPs, whose layout is known.
+     */
+    private boolean canSplice() {
+        for (Element element : skeleton.getElementsWithType(Payload.BTX))
+            for (Element parent = element.getParent(); parent != null; parent = parent.getParent())
+                if (parent.getKCAPType() != KCAPType.NONE)
+                    return false;
+        
+        return true;
+    }
+    
+    private void repackFully(Access src, File file) {
+        ResPayload full = ResPayload.craft(src);
+        List<BTXPayload> fullBTX = getBTX(full);
+        
+        for (int i = 0; i < btx.size(); i++) {
+            fullBTX.get(i).getEntries().clear();
+            fullBTX.get(i).getEntries().addAll(btx.get(i).getEntries());
+        }
+        
+        full.repack(file);
+    }
+    
+    private void splice(Access src, Access dest) {
+        Map<Element, BTXPayload> replacements = new HashMap<>();
+        List<Element> elements = skeleton.getElementsWithType(Payload.BTX);
+        for (int i = 0; i < elements.size(); i++)
+            replacements.put(elements.get(i), btx.get(i));
+        
+        Element root = skeleton.getRoot();
+        if (replacements.isEmpty()) {
+            copy(src, 0, dest, 0, src.getSize());
+            return;
+        }
+        
+        int rootSize = writeElement(src, dest, root, 0, replacements);
+        
+        // only KCAPs can have res data, which starts aligned after them and is addressed relative to its start
+        if (root.getType() == Payload.KCAP && src.getSize() > skeleton.getDataStart())
+            copy(src, skeleton.getDataStart(), dest, Utils.align(rootSize, 0x80), src.getSize() - skeleton.getDataStart());
+    }
+    
+    /*
+     * Writes the element to the given address, returning its new size.
+     */
+    private int writeElement(Access src, Access dest, Element element, long address, Map<Element, BTXPayload> replacements) {
+        BTXPayload replacement = replacements.get(element);
+        if (replacement != null) {
+            dest.setPosition(address);
+            try (ResData data = new ResData()) {
+                replacement.writeKCAP(dest, data);
+            }
+            return replacement.getSize();
+        }
+        
+        List<Element> children = skeleton.getElements().stream().filter(a -> a.getParent() == element).collect(Collectors.toList());
+        if (children.stream().noneMatch(a -> containsReplacement(a, replacements))) {
+            copy(src, element.getOffset(), dest, address, element.getSize());
+            return element.getSize();
+        }
+        
+        // normal KCAP, the header and pointer table are followed by the entries, aligned like NormalKCAP does
+        long start = element.getOffset();
+        int entries = src.readInteger(start + 0x10);
+        int[] pointers = src.readIntegerArray(entries * 2, start + 0x20);
+        int alignment = children.stream().allMatch(a -> (a.getOffset() - start) % 0x10 == 0) ? 0x10 : 0x04;
+        
+        copy(src, start, dest, address, children.get(0).getOffset() - start);
+        
+        long oldEnd = children.get(0).getOffset() - start;
+        long newEnd = oldEnd;
+        for (Element child : children) {
+            long oldOffset = child.getOffset() - start;
+            long newOffset = Utils.align(newEnd, alignment) + Math.max(0, oldOffset - Utils.align(oldEnd, alignment));
+            int newSize = writeElement(src, dest, child, address + newOffset, replacements);
+            
+            pointers[child.getIndex() * 2] = (int) newOffset;
+            pointers[child.getIndex() * 2 + 1] = newSize;
+            oldEnd = oldOffset + child.getSize();
+            newEnd = newOffset + newSize;
+        }
+        
+        // keep anything after the last entry
+        long trailing = Math.max(0, element.getSize() - oldEnd);
+        copy(src, start + oldEnd, dest, address + newEnd, trailing);
+        
+        int size = (int) (newEnd + trailing);
+        dest.writeInteger(size, address + 0x08);
+        for (int i = 0; i < pointers.length; i++)
+            dest.writeInteger(pointers[i], address + 0x20 + i * 4L);
+        
+        return size;
+    }
+    
+    private static boolean containsReplacement(Element element, Map<Element, BTXPayload> replacements) {
+        for (Element replaced : replacements.keySet())
+            for (Element a = replaced; a != null; a = a.getParent())
+                if (a == element)
+                    return true;
+        
+        return false;
+    }
+    
+    private static void copy(Access src, long srcAddress, Access dest, long destAddress, long length) {
+        for (long i = 0; i < length; i += COPY_BUFFER_SIZE) {
+            int chunk = (int) Math.min(COPY_BUFFER_SIZE, length - i);
+            dest.writeByteArray(src.readByteArray(chunk, srcAddress + i), destAddress + i);
+        }
+    }
+}
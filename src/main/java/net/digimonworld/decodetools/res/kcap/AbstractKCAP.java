@@ -6,11 +6,15 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.res.DummyResData;
 import net.digimonworld.decodetools.res.NameablePayload;
 import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.payload.VoidPayload;
 
 /*
  * TODO reduce code redundancy, especially with in reading/writing/size calculation
@@ -20,14 +24,59 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
     
     protected static final int VERSION = 1;
     
+    // entries at least this big are worth being parsed on their own thread, even without data in the data section
+    private static final int PARALLEL_THRESHOLD = 0x4000;
+    
+    private static volatile boolean parallelParsing = true;
+    
     private int unknown;
     
+    // the size as computed by the last layout pass, -1 if there is no valid one
+    private int cachedSize = -1;
+    
     protected AbstractKCAP(AbstractKCAP parent, int unknown) {
         super(parent);
         
         this.unknown = unknown;
     }
     
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Within a layout pass, started by {@link #computeLayout()}, the size is computed only once and then reused.
+     * </p>
+     */
+    @Override
+    public final int getSize() {
+        return cachedSize != -1 ? cachedSize : computeSize();
+    }
+    
+    /**
+     * Computes the size of this KCAP, including all its children. Implementations should get the size of their
+     * children via {@link ResPayload#getSize()}, so cached sizes get used.
+     * 
+     * @return the size of this KCAP
+     */
+    protected abstract int computeSize();
+    
+    @Override
+    public void computeLayout() {
+        getEntries().forEach(ResPayload::computeLayout);
+        cachedSize = computeSize();
+    }
+    
+    @Override
+    public void clearLayout() {
+        cachedSize = -1;
+        getEntries().forEach(ResPayload::clearLayout);
+    }
+    
+    @Override
+    public void invalidateSize() {
+        cachedSize = -1;
+        super.invalidateSize();
+    }
+    
     public int getUnknown() {
         return unknown;
     }
@@ -120,6 +169,21 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         }
     }
     
+    /**
+     * Sets whether the entries of a KCAP may be parsed in parallel. This only happens if the {@link Access} they get
+     * parsed from {@link Access#canDuplicate() can be duplicated} and there is enough work to be worth it, i.e. for
+     * KCAPs of textures, vertices and indices or KCAPs with at least two big entries. The result is the same either way.
+     * 
+     * @param enabled true to allow parallel parsing, false to always parse sequentially
+     */
+    public static void setParallelParsing(boolean enabled) {
+        parallelParsing = enabled;
+    }
+    
+    public static boolean isParallelParsing() {
+        return parallelParsing;
+    }
+    
     public static AbstractKCAP craftKCAP(Access source, int dataStart, AbstractKCAP parent, int size, String name) {
         return craftKCAP(source, parent, dataStart);
     }
@@ -226,6 +290,10 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         public int getSize() {
             return size;
         }
+        
+        public boolean isVoid() {
+            return offset == 0 && size == 0;
+        }
     }
     
     static class NamePointer {
@@ -254,6 +322,72 @@ public abstract class AbstractKCAP extends ResPayload implements Iterable<ResPay
         return pointer;
     }
     
+    /*
+     * Crafts the entries the given pointers point to and passes them in order to the consumer, Void pointers result in
+     * a VoidPayload.
+     * 
+     * When parallel parsing is possible every entry gets parsed from its own duplicate of the source in the common
+     * fork-join pool, otherwise they get parsed one after another, each being passed to the consumer before the next
+     * one gets parsed. Either way the source ends up at the end of the last non-Void entry, just like when parsing
+     * sequentially.
+     * 
+     * dataHeavy marks entries that read most of their content from the data section, like GMIOs, whose size within
+     * the KCAP says nothing about the work needed to parse them.
+     */
+    static void craftEntries(Access source, int dataStart, AbstractKCAP parent, KCAPInformation info, List<KCAPPointer> pointers,
+                             Map<Integer, String> names, boolean dataHeavy, Consumer<ResPayload> consumer) {
+        if (!isParallelizable(source, parent, info, pointers, dataHeavy)) {
+            for (int i = 0; i < pointers.size(); i++) {
+                KCAPPointer p = pointers.get(i);
+                
+                if (p.isVoid())
+                    consumer.accept(new VoidPayload(parent));
+                else {
+                    source.setPosition(info.startAddress + p.getOffset());
+                    consumer.accept(ResPayload.craft(source, dataStart, parent, p.getSize(), names.get(i)));
+                }
+            }
+            
+            return;
+        }
+        
+        long[] endPositions = new long[pointers.size()];
+        List<ResPayload> entries = IntStream.range(0, pointers.size()).parallel().mapToObj(i -> {
+            KCAPPointer p = pointers.get(i);
+            if (p.isVoid())
+                return new VoidPayload(parent);
+            
+            Access view = source.duplicate();
+            view.setPosition(info.startAddress + p.getOffset());
+            ResPayload payload = ResPayload.craft(view, dataStart, parent, p.getSize(), names.get(i));
+            endPositions[i] = view.getPosition();
+            return payload;
+        }).collect(Collectors.toList());
+        
+        for (int i = pointers.size() - 1; i >= 0; i--)
+            if (!pointers.get(i).isVoid()) {
+                source.setPosition(endPositions[i]);
+                break;
+            }
+        
+        entries.forEach(consumer);
+    }
+    
+    private static boolean isParallelizable(Access source, AbstractKCAP parent, KCAPInformation info, List<KCAPPointer> pointers,
+                                            boolean dataHeavy) {
+        if (!parallelParsing || !source.canDuplicate())
+            return false;
+        
+        int minSize = dataHeavy ? 1 : PARALLEL_THRESHOLD;
+        if (pointers.stream().filter(a -> a.getSize() >= minSize).count() < 2)
+            return false;
+        
+        // BTX take their file id from the number of entries their parent already has, so they have to be parsed in order
+        return pointers.stream()
+                       .filter(a -> !a.isVoid())
+                       .noneMatch(a -> Payload.valueOf(parent, source.readLong(info.startAddress + a.getOffset())) == Payload.BTX);
+    }
+    
     static Map<Integer, String> loadNames(Access source, KCAPInformation info) {
         // make sure we're actually at the payload start
         long expectedPayloadStart = info.startAddress + info.payloadStart;
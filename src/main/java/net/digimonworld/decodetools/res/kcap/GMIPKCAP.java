@@ -51,22 +51,16 @@ public class GMIPKCAP extends AbstractKCAP {
         // load the names
         Map<Integer, String> names = loadNames(source, info);
         
-        // load the entries
-        for (int i = 0; i < info.entries; ++i) {
-            KCAPPointer p = pointer.get(i);
-            String name = names.getOrDefault(i, null); // give entries a name if they have one
-            
-            if (p.getOffset() == 0 && p.getSize() == 0)
-                throw new IllegalArgumentException("Got a Void pointer, but only GMIO entries are allowed.");
-            
-            source.setPosition(info.startAddress + p.getOffset());
-            ResPayload payload = ResPayload.craft(source, dataStart, this, p.getSize(), name);
-            
+        if (pointer.stream().anyMatch(KCAPPointer::isVoid))
+            throw new IllegalArgumentException("Got a Void pointer, but only GMIO entries are allowed.");
+        
+        // load the entries, giving them a name if they have one
+        craftEntries(source, dataStart, this, info, pointer, names, true, payload -> {
             if (payload.getType() != Payload.GMIO)
                 throw new IllegalArgumentException("Got a " + payload.getType() + " entry, but only GMIO entries are allowed.");
             
             entries.add((GMIOPayload) payload);
-        }
+        });
         
         // make sure we're at the end of the KCAP
         long expectedEnd = info.startAddress + info.size;
@@ -81,14 +75,17 @@ public class GMIPKCAP extends AbstractKCAP {
     public void add(GMIOPayload gmio) {
         gmio.setParent(this);
         entries.add(gmio);
+        invalidateSize();
     }
     
     public void remove(int index) {
         entries.remove(index);
+        invalidateSize();
     }
     
     public void swap(int id1, int id2) {
         Collections.swap(entries, id1, id2);
+        invalidateSize();
     }
     
     @Override
@@ -112,7 +109,7 @@ public class GMIPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x30; // side of header
         size += getEntryCount() * 0x08; // size of pointer map
         
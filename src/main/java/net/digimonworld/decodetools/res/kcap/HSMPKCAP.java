@@ -208,7 +208,7 @@ public class HSMPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x4C;
         size += name.length() + 2;
         size = Utils.align(size, 0x10);
@@ -290,18 +290,22 @@ public class HSMPKCAP extends AbstractKCAP {
     
     public void setXDIP(XDIPKCAP xdip) {
         this.xdip = xdip;
+        invalidateSize();
     }
     
     public void setXTVP(XTVPKCAP xtvp) {
         this.xtvp = xtvp;
+        invalidateSize();
     }
     
     public void setHSEM(HSEMKCAP hsem) {
         this.hsem = hsem;
+        invalidateSize();
     }
 
     public void setTNOJ(TNOJKCAP tnoj) {
         this.tnoj = tnoj;
+        invalidateSize();
     }
     
     public TNOJKCAP getTNOJ() {
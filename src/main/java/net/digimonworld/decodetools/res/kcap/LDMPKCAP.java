@@ -63,7 +63,7 @@ public class LDMPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x30; // size of header
         size += getEntryCount() * 0x08; // size of pointer map
         
@@ -9,7 +9,6 @@ import net.digimonworld.decodetools.core.Access;
 import net.digimonworld.decodetools.core.Utils;
 import net.digimonworld.decodetools.res.ResData;
 import net.digimonworld.decodetools.res.ResPayload;
-import net.digimonworld.decodetools.res.payload.VoidPayload;
 
 public class NormalKCAP extends AbstractKCAP {
     
@@ -29,15 +28,8 @@ public class NormalKCAP extends AbstractKCAP {
         diff = Utils.align(diff, 0x10) - diff;
         source.readByteArray((int) diff); // padding
         
-        // load the content
-        for (KCAPPointer p : pointer) {
-            if (p.getOffset() == 0 && p.getSize() == 0) // those empty entries exist and have to be preserved
-                entries.add(new VoidPayload(this));
-            else {
-                source.setPosition(info.startAddress + p.getOffset());
-                entries.add(ResPayload.craft(source, dataStart, this, p.getSize(), null));
-            }
-        }
+        // load the content, empty entries exist and have to be preserved
+        craftEntries(source, dataStart, this, info, pointer, Collections.emptyMap(), false, entries::add);
         
         // make sure we're at the end of the KCAP
         long expectedEnd = info.startAddress + info.size;
@@ -78,7 +70,7 @@ public class NormalKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x20; // size of header
         size += getEntryCount() * 0x08; // size of pointer map
         
@@ -118,7 +118,7 @@ public class TDTMKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x40; // header
         size += tdtmEntry.size() * 0x08; // TDTM header entries
         size = Utils.align(size, 0x10); // padding
@@ -39,18 +39,15 @@ public class XDIPKCAP extends AbstractKCAP {
         
         List<KCAPPointer> pointer = loadKCAPPointer(source, info.entries);
         
-        for (KCAPPointer p : pointer) {
-            if (p.getOffset() == 0 && p.getSize() == 0)
-                throw new IllegalArgumentException("Got a Void pointer, but only XDIO entries are allowed.");
-            
-            source.setPosition(info.startAddress + p.getOffset());
-            ResPayload payload = ResPayload.craft(source, dataStart, this, p.getSize(), null);
-            
+        if (pointer.stream().anyMatch(KCAPPointer::isVoid))
+            throw new IllegalArgumentException("Got a Void pointer, but only XDIO entries are allowed.");
+        
+        craftEntries(source, dataStart, this, info, pointer, Collections.emptyMap(), true, payload -> {
             if (payload.getType() != Payload.XDIO)
                 throw new IllegalArgumentException("Got a " + payload.getType() + " entry, but only XDIO entries are allowed.");
             
             entries.add((XDIOPayload) payload);
-        }
+        });
         
         // make sure we're at the end of the KCAP
         long expectedEnd = info.startAddress + info.size;
@@ -79,7 +76,7 @@ public class XDIPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x30;
         size += getEntryCount() * 0x08;
         
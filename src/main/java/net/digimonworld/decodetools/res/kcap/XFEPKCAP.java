@@ -56,12 +56,8 @@ public class XFEPKCAP extends AbstractKCAP {
         unknown1 = source.readShort();
         short unk2DataArraySize = source.readShort();
         
-        for (int i = 0; i < 5; i++)
-            unknownData1[i] = source.readInteger();
-        
-        unknownData2 = new int[unk2DataArraySize];
-        for (int i = 0; i < unk2DataArraySize; i++)
-            unknownData2[i] = source.readInteger();
+        unknownData1 = source.readIntegerArray(5);
+        unknownData2 = source.readIntegerArray(unk2DataArraySize);
         
         name = source.readASCIIString();
         
@@ -168,7 +164,7 @@ public class XFEPKCAP extends AbstractKCAP {
     }
     
     @Override
-    public int getSize() {
+    protected int computeSize() {
         int size = 0x40 + unknownData2.length * 4;
         size += name.length() + 2;
         size = Utils.align(size, 0x10);
@@ -205,10 +201,8 @@ public class XFEPKCAP extends AbstractKCAP {
         dest.writeInteger(XFEP_VERSION);
         dest.writeShort(unknown1);
         dest.writeShort((short) unknownData2.length);
-        for (int val : unknownData1)
-            dest.writeInteger(val);
-        for (int val : unknownData2)
-            dest.writeInteger(val);
+        dest.writeIntegerArray(unknownData1);
+        dest.writeIntegerArray(unknownData2);
         
         dest.writeString(name, "ASCII");
         dest.writeByte((byte) 0); // null terminator
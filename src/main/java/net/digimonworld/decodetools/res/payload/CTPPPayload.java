@@ -11,10 +11,7 @@ public class CTPPPayload extends ResPayload {
     public CTPPPayload(Access source, int dataStart, AbstractKCAP parent, int size, String name) {
         super(parent);
         
-        data = new int[size / 4];
-        
-        for (int i = 0; i < data.length; i++)
-            data[i] = source.readInteger();
+        data = source.readIntegerArray(size / 4);
     }
     
     @Override
@@ -29,7 +26,6 @@ public class CTPPPayload extends ResPayload {
     
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
-        for (int i : data)
-            dest.writeInteger(i);
+        dest.writeIntegerArray(data);
     }
 }
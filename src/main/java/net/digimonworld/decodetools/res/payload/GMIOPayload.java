@@ -1,7 +1,6 @@
 package net.digimonworld.decodetools.res.payload;
 
 import java.awt.image.BufferedImage;
-import java.nio.ByteBuffer;
 
 import net.digimonworld.decodetools.Main;
 import net.digimonworld.decodetools.PixelFormat;
@@ -42,7 +41,7 @@ public class GMIOPayload extends NameablePayload {
     // always 0x01 (4 byte)
     // always 0x00 (4 byte)
     
-    private PixelFormat format;
+    // format (4 byte), part of the texture
     // always 0x00 (4 byte)
     // hasExtraData (4 byte)
     // extraDataSize (4 byte)
@@ -52,7 +51,8 @@ public class GMIOPayload extends NameablePayload {
     // helper members
     private float uvWidth;
     private float uvHeight;
-    private BufferedImage image;
+    // replaced as a whole on every change, so other threads can read it without locking
+    private volatile Texture texture;
     
     /**
      * Creates an empty GMIO
@@ -69,12 +69,11 @@ public class GMIOPayload extends NameablePayload {
         this.minFilter = TextureFiltering.LINEAR;
         this.magFilter = TextureFiltering.LINEAR;
         
-        this.format = PixelFormat.RGBA8;
         this.extraData = new byte[0];
         
         this.uvHeight = 1f;
         this.uvWidth = 1f;
-        this.image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB);
+        this.texture = new Texture(PixelFormat.RGBA8, new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB), null, 0, 0);
     }
     
     public GMIOPayload(Access source, int dataStart, AbstractKCAP parent, int size, String name) {
@@ -113,7 +112,8 @@ public class GMIOPayload extends NameablePayload {
             source.readInteger(); // always 1
             source.readInteger(); // always 0
         }
-        format = PixelFormat.valueOf(source.readInteger());
+        PixelFormat format = PixelFormat.valueOf(source.readInteger());
+        texture = new Texture(format, null, null, 0, 0);
         
         source.readInteger(); // always 0
         boolean hasExtraData = source.readInteger() == 1;
@@ -127,23 +127,12 @@ public class GMIOPayload extends NameablePayload {
         uvWidth = (float) uvSizeX / width;
         uvHeight = (float) uvSizeY / height;
         
-        byte[] pixelData = source.readByteArray((width * height * format.getBPP()) / 8, (long) dataPointer + dataStart);
+        byte[] pixelData = source.readByteArray(format.getDataSize(width, height), (long) dataPointer + dataStart);
         
         if (format != PixelFormat.SHADER && (width < 4 || height < 4))
             Main.LOGGER.severe("Found image with width or height smaller than 4. Those are not supported.");
-        else {
-            int[] convertedPixels = format.convertToRGBA(pixelData, width, height);
-            convertedPixels = format.isTiled() ? Utils.untile(width, height, convertedPixels) : convertedPixels;
-            
-            BufferedImage i = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-            i.setRGB(0, 0, width, height, convertedPixels, 0, width);
-            
-            // flip image to make them logical for humans
-            if (format != PixelFormat.ETC1 && format != PixelFormat.ETC1A4)
-                i = Utils.mirrorImageVertical(i);
-            
-            image = i;
-        }
+        else
+            texture = new Texture(format, null, pixelData, width, height);
     }
     
     public double getUVHeight() {
@@ -179,11 +168,15 @@ public class GMIOPayload extends NameablePayload {
     }
 
     public int getWidth() {
-        return image != null ? image.getWidth() : 0;
+        return texture.getWidth();
     }
     
     public int getHeight() {
-        return image != null ? image.getHeight() : 0;
+        return texture.getHeight();
+    }
+    
+    private boolean hasImage() {
+        return texture.hasImage();
     }
     
     public TextureFiltering getMagFilter() {
@@ -227,24 +220,70 @@ public class GMIOPayload extends NameablePayload {
     }
     
     public PixelFormat getFormat() {
-        return format;
+        return texture.format;
     }
     
-    public void setFormat(PixelFormat format) {
-        this.format = format;
+    public synchronized void setFormat(PixelFormat format) {
+        if (format == texture.format)
+            return;
+        
+        // the raw data is only valid for the old format, so the image has to be re-encoded
+        texture = new Texture(format, getImage(), null, 0, 0);
     }
     
-    public BufferedImage getImage() {
-        return image;
+    /**
+     * Gets the image of this texture, decoding it on the first call.
+     * <p>
+     * As long as the texture isn't changed via {@link #setImage(BufferedImage)} or {@link #setFormat(PixelFormat)} its
+     * original pixel data gets written back when saving, modifications done directly to the returned image are not
+     * considered.
+     * </p>
+     * 
+     * @return the image of this texture, or null if there is none
+     */
+    public synchronized BufferedImage getImage() {
+        Texture current = texture;
+        if (current.image == null && current.rawData != null)
+            texture = current.withImage(current.decode());
+        
+        return texture.image;
     }
     
-    public boolean setImage(BufferedImage image) {
+    /**
+     * Gets the image of this texture like {@link #getImage()}, but without keeping the decoded image around if it
+     * hasn't been decoded yet. Meant for previews, which shouldn't pin the images of every viewed texture in memory.
+     * <p>
+     * This method may be called from any thread.
+     * </p>
+     * 
+     * @return the image of this texture, or null if there is none
+     */
+    public BufferedImage decodeImage() {
+        return texture.decode();
+    }
+    
+    /**
+     * Gets a hash of the content of this texture, i.e. its format, size and pixels. The hash of an unmodified texture
+     * gets computed from its pixel data, that of a modified one from its image, and only once until it gets modified
+     * again.
+     * <p>
+     * This method may be called from any thread.
+     * </p>
+     * 
+     * @return the content hash
+     */
+    public long getContentHash() {
+        return texture.getHash();
+    }
+    
+    public synchronized boolean setImage(BufferedImage image) {
+        PixelFormat format = texture.format;
         if (!isValidResolution(image, format)) {
             Main.LOGGER.severe(() -> String.format("Tried to import image with resolution %dx%d, which is not a power of 4 or smaller than 4.", image.getWidth(), image.getHeight()));
             return false;
         }
         
-        this.image = image;
+        texture = new Texture(format, image, null, 0, 0);
         return true;
     }
     
@@ -264,16 +303,23 @@ public class GMIOPayload extends NameablePayload {
     
     @Override
     public void writeKCAP(Access dest, ResData dataStream) {
+        Texture current = texture;
+        PixelFormat format = current.format;
+        BufferedImage image = current.image;
+        
         int dataAddress = 0xFFFFFFFF;
-        if (image != null) {
+        if (current.rawData != null)
+            dataAddress = dataStream.add(current.rawData, hasName());
+        else if (image != null) {
             if (!isValidResolution(image, format))
                 Main.LOGGER.severe(() -> String.format("Saving image %s with illegal resolution: %dx%d | This file will cause problems!",
                                                        getName(),
                                                        image.getWidth(),
                                                        image.getHeight()));
             
+            // deduplicated by the fingerprint it got reserved with in the layout pass, so both passes agree
             byte[] pixelData = format.convertToFormat(image);
-            dataAddress = dataStream.add(pixelData, hasName());
+            dataAddress = dataStream.add(pixelData, current.getHash(), hasName());
         }
         
         dest.writeInteger(getType().getMagicValue());
@@ -284,8 +330,8 @@ public class GMIOPayload extends NameablePayload {
         dest.writeInteger(dataAddress);
         
         dest.writeInteger(format.hasAlpha() ? 2 : 0);
-        dest.writeShort(image == null ? 0 : (short) (image.getWidth() * uvWidth)); // uv width?
-        dest.writeShort(image == null ? 0 : (short) (image.getHeight() * uvHeight)); // uv height?
+        dest.writeShort(!current.hasImage() ? 0 : (short) (current.getWidth() * uvWidth)); // uv width?
+        dest.writeShort(!current.hasImage() ? 0 : (short) (current.getHeight() * uvHeight)); // uv height?
         dest.writeShort((short) 1); // always 1
         dest.writeShort(format.getUnknown());
         dest.writeByte((byte) (isShaderTexture() ? 1 : 0));
@@ -296,8 +342,8 @@ public class GMIOPayload extends NameablePayload {
         dest.writeByte((byte) unknown.ordinal());
         dest.writeByte((byte) (minFilter.getValue() << 4 | magFilter.getValue()));
         dest.writeByte((byte) 0);
-        dest.writeShort(image == null ? 0 : (short) image.getWidth()); // width
-        dest.writeShort(image == null ? 0 : (short) image.getHeight()); // height
+        dest.writeShort((short) current.getWidth()); // width
+        dest.writeShort((short) current.getHeight()); // height
         dest.writeInteger(1);
         dest.writeInteger(0);
         
@@ -311,31 +357,24 @@ public class GMIOPayload extends NameablePayload {
     
     @Override
     public void fillDummyResData(DummyResData data) {
-        if (image == null)
-            return;
-        
-        byte[] pixelData;
-        int size;
+        Texture current = texture;
         
-        if (format == PixelFormat.ETC1 || format == PixelFormat.ETC1A4) {
-            int[] rgbData = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
-            ByteBuffer buffer = ByteBuffer.allocate(rgbData.length * 4);
-            for (int i : rgbData)
-                buffer.putInt(i);
-            pixelData = buffer.array();
-            size = image.getWidth() * image.getHeight() * format.getBPP() / 8;
-        }
-        else {
-            pixelData = format.convertToFormat(image);
-            size = pixelData.length;
+        if (current.rawData != null) {
+            data.add(current.rawData, current.rawData.length, hasName());
+            return;
         }
         
-        data.add(pixelData, size, hasName());
+        if (current.image == null)
+            return;
+        
+        // only the size matters here, so don't encode the image. Its hash stands in for the encoded data.
+        int size = current.format.getDataSize(current.getWidth(), current.getHeight());
+        data.reserve(size, current.getHash(), hasName());
     }
     
     @Override
     public String toString() {
-        return hasName() ? getName() : "GMIO " + " " + format + " " + getWidth() + " " + getHeight();
+        return hasName() ? getName() : "GMIO " + " " + getFormat() + " " + getWidth() + " " + getHeight();
     }
     
     private static boolean isValidResolution(BufferedImage image, PixelFormat format) {
@@ -350,6 +389,78 @@ public class GMIOPayload extends NameablePayload {
         
         return width >= 4 && height >= 4;
     }
+    
+    /*
+     * The pixels of a texture in the format they get encoded in. Instances are never modified, apart from caching
+     * their hash, so they can be shared between threads.
+     */
+    private static class Texture {
+        private final PixelFormat format;
+        private final BufferedImage image;
+        
+        // the pixel data as read from the file, kept until the texture gets modified. Decoded on first access to the image.
+        private final byte[] rawData;
+        private final int rawWidth;
+        private final int rawHeight;
+        
+        private volatile long hash;
+        
+        private Texture(PixelFormat format, BufferedImage image, byte[] rawData, int rawWidth, int rawHeight) {
+            this.format = format;
+            this.image = image;
+            this.rawData = rawData;
+            this.rawWidth = rawWidth;
+            this.rawHeight = rawHeight;
+        }
+        
+        private Texture withImage(BufferedImage decoded) {
+            Texture texture = new Texture(format, decoded, rawData, rawWidth, rawHeight);
+            texture.hash = hash;
+            return texture;
+        }
+        
+        private BufferedImage decode() {
+            if (image == null && rawData != null)
+                return format.decodeImage(rawData, rawWidth, rawHeight);
+            
+            return image;
+        }
+        
+        private boolean hasImage() {
+            return rawData != null || image != null;
+        }
+        
+        private int getWidth() {
+            if (rawData != null)
+                return rawWidth;
+            
+            return image != null ? image.getWidth() : 0;
+        }
+        
+        private int getHeight() {
+            if (rawData != null)
+                return rawHeight;
+            
+            return image != null ? image.getHeight() : 0;
+        }
+        
+        /*
+         * The raw data if there is any, as an unmodified texture gets written back as is. Otherwise the image and the
+         * format it gets encoded in, standing in for the encoded data.
+         */
+        private long getHash() {
+            if (hash == 0 && hasImage()) {
+                long seed = (long) format.ordinal() << 32 ^ getWidth() << 16 ^ getHeight();
+                
+                if (rawData != null)
+                    hash = Utils.hash(seed, rawData);
+                else
+                    hash = Utils.hash(seed, image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()));
+            }
+            
+            return hash;
+        }
+    }
 
     public enum TextureWrap {
         CLAMP_TO_EDGE(1),
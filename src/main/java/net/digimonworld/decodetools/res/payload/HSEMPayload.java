@@ -72,9 +72,7 @@ public class HSEMPayload extends ResPayload {
         int numEntries = source.readInteger();
         this.unknown2 = source.readInteger();
         
-        for (int i = 0; i < 10; i++) {
-            this.headerData[i] = source.readFloat();
-        }
+        this.headerData = source.readFloatArray(10);
         
         this.unknown3 = source.readInteger();
         this.unknown4 = source.readInteger();
@@ -104,8 +102,7 @@ public class HSEMPayload extends ResPayload {
         dest.writeInteger(entries.size());
         dest.writeInteger(unknown2);
         
-        for (float f : headerData)
-            dest.writeFloat(f);
+        dest.writeFloatArray(headerData);
         
         dest.writeInteger(unknown3);
         dest.writeInteger(unknown4);
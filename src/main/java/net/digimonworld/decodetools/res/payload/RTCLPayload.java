@@ -21,8 +21,7 @@ public class RTCLPayload extends NameablePayload {
         locIndex = source.readInteger();
         unknown4 = source.readInteger();
         
-        for (int i = 0; i < matrix.length; i++)
-            matrix[i] = source.readFloat();
+        matrix = source.readFloatArray(matrix.length);
     }
     
     public int getId() {
@@ -58,7 +57,6 @@ public class RTCLPayload extends NameablePayload {
         dest.writeInteger(locIndex);
         dest.writeInteger(unknown4);
         
-        for (float i : matrix)
-            dest.writeFloat(i);
+        dest.writeFloatArray(matrix);
     }
 }
@@ -78,8 +78,7 @@ public class TNOJPayload extends NameablePayload {
         unknown1 = source.readInteger();
         unknown2 = source.readInteger();
         
-        for (int i = 0; i < 16; i++)
-            matrix[i] = source.readFloat();
+        matrix = source.readFloatArray(16);
         
         xOffset = source.readFloat();
         yOffset = source.readFloat();
@@ -144,8 +143,7 @@ public class TNOJPayload extends NameablePayload {
         dest.writeInteger(unknown1);
         dest.writeInteger(unknown2);
         
-        for (float f : matrix)
-            dest.writeFloat(f);
+        dest.writeFloatArray(matrix);
         
         dest.writeFloat(xOffset);
         dest.writeFloat(yOffset);
@@ -58,10 +58,7 @@ public class TREPPayload extends ResPayload {
             source.readInteger(); // arraySize * 2
         }
         
-        array = new short[arraySize];
-        
-        for (int i = 0; i < arraySize; i++)
-            array[i] = source.readShort();
+        array = source.readShortArray(arraySize);
         
         if (array.length % 2 == 1)
             source.readShort();
@@ -107,8 +104,7 @@ public class TREPPayload extends ResPayload {
             dest.writeInteger(array.length * 2);
         }
         
-        for (short val : array)
-            dest.writeShort(val);
+        dest.writeShortArray(array);
         
         if (array.length % 2 == 1)
             dest.writeShort((short) 0);
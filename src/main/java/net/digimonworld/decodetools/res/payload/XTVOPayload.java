@@ -99,29 +99,22 @@ public class XTVOPayload extends ResPayload {
         short attributeCount = source.readShort();
         source.readShort(); // attributePtr, always 0x74?
         
-        for (int i = 0; i < 4; i++)
-            mTex0[i] = source.readFloat();
-        for (int i = 0; i < 4; i++)
-            mTex1[i] = source.readFloat();
-        for (int i = 0; i < 4; i++)
-            mTex2[i] = source.readFloat();
-        for (int i = 0; i < 4; i++)
-            mTex3[i] = source.readFloat();
+        mTex0 = source.readFloatArray(4);
+        mTex1 = source.readFloatArray(4);
+        mTex2 = source.readFloatArray(4);
+        mTex3 = source.readFloatArray(4);
         
         for (int i = 0; i < attributeCount; i++) {
             XTVOAttribute attrib = new XTVOAttribute(source);
             attributes.put(attrib.getRegisterId(), attrib);
         }
         
-        ByteBuffer b = ByteBuffer.wrap(source.readByteArray(dataSize, (long) dataStart + dataPointer));
-        b.order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer b = source.asByteBuffer((long) dataStart + dataPointer, dataSize);
         
         for (int i = 0; i < numEntries; i++) {
-            byte[] buffArray = new byte[entrySize];
-            b.get(buffArray);
-            ByteBuffer buff = ByteBuffer.wrap(buffArray);
-            buff.order(ByteOrder.LITTLE_ENDIAN);
-            data.add(new XTVOVertex(buff, attributes.values()));
+            ByteBuffer buff = b.duplicate();
+            buff.position(i * entrySize).limit((i + 1) * entrySize);
+            data.add(new XTVOVertex(buff.slice().order(ByteOrder.LITTLE_ENDIAN), attributes.values()));
         }
         
         dataStartOnLoad = (long) dataStart + dataPointer;
@@ -172,14 +165,10 @@ public class XTVOPayload extends ResPayload {
         dest.writeShort((short) attributes.size());
         dest.writeShort((short) 0x74); //
         
-        for (float f : mTex0)
-            dest.writeFloat(f);
-        for (float f : mTex1)
-            dest.writeFloat(f);
-        for (float f : mTex2)
-            dest.writeFloat(f);
-        for (float f : mTex3)
-            dest.writeFloat(f);
+        dest.writeFloatArray(mTex0);
+        dest.writeFloatArray(mTex1);
+        dest.writeFloatArray(mTex2);
+        dest.writeFloatArray(mTex3);
         
         for (XTVOAttribute attr : attributes.values())
             attr.writeKCAP(dest);
@@ -0,0 +1,95 @@
+package net.digimonworld.decodetools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.ETC1Encoder.Quality;
+
+public class ETC1EncoderTests {
+    
+    private static int[] createGradient(int width, int height) {
+        int[] pixels = new int[width * height];
+        
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++) {
+                int r = x * 255 / (width - 1);
+                int g = y * 255 / (height - 1);
+                int b = (x + y) * 255 / (width + height - 2);
+                pixels[y * width + x] = ((x * 16) & 0xFF) << 24 | r << 16 | g << 8 | b;
+            }
+        
+        return pixels;
+    }
+    
+    private static double meanSquaredError(int[] expected, int[] actual) {
+        long error = 0;
+        
+        for (int i = 0; i < expected.length; i++)
+            for (int shift = 0; shift < 24; shift += 8) {
+                int diff = ((expected[i] >>> shift) & 0xFF) - ((actual[i] >>> shift) & 0xFF);
+                error += diff * diff;
+            }
+        
+        return error / (expected.length * 3.0);
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        int width = 32;
+        int height = 16;
+        int[] pixels = createGradient(width, height);
+        
+        // the channels change in different directions, which ETC1 can only approximate
+        double previousError = Double.MAX_VALUE;
+        for (Quality quality : Quality.values()) {
+            byte[] data = ETC1Encoder.encode(pixels, width, height, false, quality);
+            assertEquals(width * height / 2, data.length);
+            
+            double error = meanSquaredError(pixels, PixelFormatDecoder.convertFromETC1(data, width, height));
+            assertTrue(quality + " error too high: " + error, error < 64);
+            assertTrue(quality + " is worse than a lower quality", error <= previousError);
+            previousError = error;
+        }
+    }
+    
+    @Test
+    public void testSolidColor() {
+        int[] pixels = new int[8 * 8];
+        Arrays.fill(pixels, 0xFF336699);
+        
+        int[] decoded = PixelFormatDecoder.convertFromETC1(ETC1Encoder.encode(pixels, 8, 8, false, Quality.FAST), 8, 8);
+        
+        for (int i = 0; i < pixels.length; i++)
+            for (int shift = 0; shift < 24; shift += 8)
+                assertTrue(Math.abs(((pixels[i] >>> shift) & 0xFF) - ((decoded[i] >>> shift) & 0xFF)) <= 4);
+    }
+    
+    @Test
+    public void testAlpha() {
+        int width = 16;
+        int height = 8;
+        int[] pixels = createGradient(width, height);
+        
+        byte[] data = ETC1Encoder.encode(pixels, width, height, true, Quality.MEDIUM);
+        assertEquals(width * height, data.length);
+        
+        int[] decoded = PixelFormatDecoder.convertFromETC1A4(data, width, height);
+        
+        // the alpha values of the gradient are multiples of 16, so they differ from their 4-bit version by at most 8
+        for (int i = 0; i < pixels.length; i++)
+            assertTrue(Math.abs((pixels[i] >>> 24) - (decoded[i] >>> 24)) <= 8);
+        
+        // 4-bit values survive exactly
+        int[] exact = new int[8 * 8];
+        for (int i = 0; i < exact.length; i++)
+            exact[i] = (i % 16) * 0x11 << 24;
+        
+        int[] decodedExact = PixelFormatDecoder.convertFromETC1A4(ETC1Encoder.encode(exact, 8, 8, true, Quality.FAST), 8, 8);
+        for (int i = 0; i < exact.length; i++)
+            assertEquals(exact[i] >>> 24, decodedExact[i] >>> 24);
+    }
+}
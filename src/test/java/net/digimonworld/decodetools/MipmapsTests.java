@@ -0,0 +1,104 @@
+package net.digimonworld.decodetools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MipmapsTests {
+    
+    private static BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                image.setRGB(x, y, 0xFF000000 | (x * 8) << 16 | (y * 8) << 8 | 0x40);
+        
+        return image;
+    }
+    
+    @Test
+    public void testGenerate() {
+        BufferedImage image = createImage(32, 16);
+        List<BufferedImage> levels = Mipmaps.generate(image, 4, Integer.MAX_VALUE);
+        
+        assertEquals(Mipmaps.getLevelCount(32, 16, 4), levels.size());
+        assertEquals(3, levels.size());
+        assertSame(image, levels.get(0));
+        assertEquals(8, levels.get(2).getWidth());
+        assertEquals(4, levels.get(2).getHeight());
+        
+        // 2x2 averages of a linear gradient
+        assertEquals(0xFF040440, levels.get(1).getRGB(0, 0));
+        assertEquals(2, Mipmaps.generate(image, 4, 2).size());
+    }
+    
+    @Test
+    public void testResize() {
+        BufferedImage solid = new BufferedImage(10, 6, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 10; x++)
+            for (int y = 0; y < 6; y++)
+                solid.setRGB(x, y, 0x80336699);
+        
+        for (int[] size : new int[][] { { 3, 2 }, { 17, 9 }, { 10, 6 } }) {
+            BufferedImage resized = Mipmaps.resize(solid, size[0], size[1]);
+            assertEquals(size[0], resized.getWidth());
+            assertEquals(size[1], resized.getHeight());
+            
+            for (int pixel : resized.getRGB(0, 0, size[0], size[1], null, 0, size[0]))
+                assertEquals(0x80336699, pixel);
+        }
+        
+        BufferedImage thumbnail = Mipmaps.thumbnail(createImage(32, 16), 8);
+        assertEquals(8, thumbnail.getWidth());
+        assertEquals(4, thumbnail.getHeight());
+    }
+    
+    @Test
+    public void testMipChain() {
+        List<BufferedImage> levels = Mipmaps.generate(createImage(32, 16), 8, Integer.MAX_VALUE);
+        
+        byte[] data = PixelFormat.RGBA8.encodeMipChain(levels);
+        assertEquals(PixelFormat.RGBA8.getDataSize(32, 16) + PixelFormat.RGBA8.getDataSize(16, 8), data.length);
+        
+        List<BufferedImage> decoded = PixelFormat.RGBA8.decodeMipChain(data, 32, 16, levels.size());
+        for (int i = 0; i < levels.size(); i++) {
+            BufferedImage expected = levels.get(i);
+            int width = expected.getWidth();
+            int height = expected.getHeight();
+            
+            assertArrayEquals(expected.getRGB(0, 0, width, height, null, 0, width),
+                              decoded.get(i).getRGB(0, 0, width, height, null, 0, width));
+        }
+    }
+    
+    @Test
+    public void testBlockMipChain() {
+        // ETC1 levels below 4x4 still take up a whole block each
+        List<BufferedImage> levels = Mipmaps.generate(createImage(16, 16), 1, Integer.MAX_VALUE);
+        assertEquals(5, levels.size());
+        
+        for (PixelFormat format : new PixelFormat[] { PixelFormat.ETC1, PixelFormat.ETC1A4 }) {
+            byte[] data = format.encodeMipChain(levels);
+            assertEquals(format.getDataSize(16, 16) + format.getDataSize(8, 8) + format.getDataSize(4, 4) * 3,
+                         data.length);
+            
+            // every level must decode just like it does when encoded on its own
+            List<BufferedImage> decoded = format.decodeMipChain(data, 16, 16, levels.size());
+            for (int i = 0; i < levels.size(); i++) {
+                BufferedImage level = levels.get(i);
+                int width = level.getWidth();
+                int height = level.getHeight();
+                BufferedImage expected = format.decodeImage(format.convertToFormat(level), width, height);
+                
+                assertEquals(width, decoded.get(i).getWidth());
+                assertEquals(height, decoded.get(i).getHeight());
+                assertArrayEquals(expected.getRGB(0, 0, width, height, null, 0, width),
+                                  decoded.get(i).getRGB(0, 0, width, height, null, 0, width));
+            }
+        }
+    }
+}
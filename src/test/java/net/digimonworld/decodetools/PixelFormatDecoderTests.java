@@ -1,6 +1,14 @@
 package net.digimonworld.decodetools;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -35,4 +43,66 @@ public class PixelFormatDecoderTests {
         assertEquals(0b11111111, Utils.extend6To8(-1));
         assertEquals(0b00000000, Utils.extend6To8(0b000000));
     }
+
+    @Test
+    public void testConvertInto() {
+        byte[] data = new byte[8 * 8 * 4];
+        new Random(1).nextBytes(data);
+
+        for (PixelFormat format : PixelFormat.values()) {
+            int[] expected = format.convertToRGBA(data, 8, 8);
+            int[] dst = new int[expected.length];
+
+            assertSame(dst, format.convertInto(data, 8, 8, dst));
+            assertArrayEquals(expected, dst);
+
+            // a smaller destination only receives the leading pixels
+            int[] small = format.convertInto(data, 8, 8, new int[16]);
+            for (int i = 0; i < small.length; i++)
+                assertEquals(expected[i], small[i]);
+        }
+
+        assertEquals(0xFF000000 | 0x10 << 16 | 0x20 << 8 | 0x30, PixelFormatDecoder.convertFromRGB8(new byte[] { 0x30, 0x20, 0x10 }, 1, 1)[0]);
+        assertEquals(0xFF0000FF, PixelFormatDecoder.convertFromRGB565(new byte[] { 0x1F, 0x00 }, 1, 1)[0]);
+    }
+
+    private static int channelSum(int argb) {
+        return (argb >>> 24) + (argb >>> 16 & 0xFF) + (argb >>> 8 & 0xFF) + (argb & 0xFF);
+    }
+
+    @Test
+    public void testOrientation() {
+        // opaque white on top of transparent black, which stays distinguishable in every format
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 16; x++)
+            for (int y = 0; y < 8; y++)
+                image.setRGB(x, y, 0xFFFFFFFF);
+
+        for (PixelFormat format : PixelFormat.values()) {
+            BufferedImage decoded = format.decodeImage(format.convertToFormat(image), 16, 16);
+
+            for (int x = 0; x < 16; x++)
+                assertTrue(format.name(), channelSum(decoded.getRGB(x, 2)) > channelSum(decoded.getRGB(x, 13)));
+        }
+    }
+
+    @Test
+    public void testETC1Block() {
+        // differential and flipped, base colors (255, 0, 132) and (247, 24, 132), codeword tables 7 and 0
+        long high = 31L << 27 | 7L << 24 | 3L << 16 | 16L << 11 | 7L << 5 | 0b11;
+        long msb = 1L << 1 | 1L << 6 | 1L << 15;
+        long lsb = 1L << 1 | 1L << 6 | 1L << 9;
+        long value = high << 32 | msb << 16 | lsb;
+
+        ByteBuffer buffer = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(value);
+        int[] pixels = PixelFormatDecoder.convertFromETC1(buffer.array(), 8, 8);
+
+        // pixel ids are x * 4 + y, the upper sub block uses table 7 and the lower one table 0
+        assertEquals(0xFFFF2FB3, pixels[0 * 8 + 0]); // +47
+        assertEquals(0xFF480000, pixels[1 * 8 + 0]); // -183, clamped at 0
+        assertEquals(0xFFFFB7FF, pixels[1 * 8 + 2]); // +183, clamped at 255
+        assertEquals(0xFFEF107C, pixels[2 * 8 + 1]); // -8
+        assertEquals(0xFFF51682, pixels[3 * 8 + 3]); // -2
+    }
 }
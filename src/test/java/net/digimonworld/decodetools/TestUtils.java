@@ -2,6 +2,9 @@ package net.digimonworld.decodetools;
 
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.concurrent.Callable;
 
 public class TestUtils {
@@ -20,4 +23,31 @@ public class TestUtils {
         if (!expected.isInstance(ee))
             fail("Expected <" + expected.getName() + "> to be thrown.");
     }
+
+    /**
+     * Creates a temporary file with the given content, which gets deleted when the JVM exits.
+     * 
+     * @param data the content of the file
+     * @return the created file
+     * @throws IOException if the file can't be written
+     */
+    public static File createTestFile(byte[] data) throws IOException {
+        File file = File.createTempFile("decodeTools", ".bin");
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    /**
+     * Creates test data of the given length, with no byte being equal to the ones next to it.
+     * 
+     * @param length the length of the data
+     * @return the created data
+     */
+    public static byte[] createTestData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+            data[i] = (byte) (i * 7 + 3);
+        return data;
+    }
 }
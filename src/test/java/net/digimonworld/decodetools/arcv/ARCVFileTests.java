@@ -0,0 +1,118 @@
+package net.digimonworld.decodetools.arcv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.TestUtils;
+import net.digimonworld.decodetools.core.DeleteDirectoryFileVisitor;
+
+public class ARCVFileTests {
+    private static final String[] RES_FILES = { "LanguageKeep_jp.res", "btxSpeakers.res", "btxNoSpeakers.res" };
+    
+    /*
+     * Asserts that both directories contain the same archive.
+     */
+    private static void assertSameArchive(Path expected, Path actual) throws IOException {
+        assertArrayEquals(Files.readAllBytes(expected.resolve("ARCV0.BIN")), Files.readAllBytes(actual.resolve("ARCV0.BIN")));
+        assertArrayEquals(Files.readAllBytes(expected.resolve("ARCVINFO.BIN")), Files.readAllBytes(actual.resolve("ARCVINFO.BIN")));
+    }
+    
+    @Test
+    public void testIncrementalRebuild() throws IOException {
+        Path input = Files.createTempDirectory("arcvInput");
+        Path incrementalOutput = Files.createTempDirectory("arcvIncremental");
+        Path fullOutput = Files.createTempDirectory("arcvFull");
+        
+        try {
+            for (String name : RES_FILES)
+                try (InputStream in = ARCVFileTests.class.getResourceAsStream("/" + name)) {
+                    Files.copy(in, input.resolve(name));
+                }
+            
+            // compressible and too small to be compressed
+            byte[] data = new byte[0x3000];
+            for (int i = 0; i < data.length; i++)
+                data[i] = (byte) (i / 0x100);
+            Files.write(input.resolve("data.bin"), data);
+            Files.write(input.resolve("small.bin"), new byte[0x100]);
+            
+            ARCVFile arcv = new ARCVFile(input.toFile());
+            arcv.saveFiles(incrementalOutput.toFile(), 2, true);
+            
+            // touched without changes, changed with the same size and changed with a different size
+            Path touched = input.resolve(RES_FILES[1]);
+            Files.setLastModifiedTime(touched, FileTime.fromMillis(Files.getLastModifiedTime(touched).toMillis() + 10000));
+            data[0x1234] = 0x55;
+            Files.write(input.resolve("data.bin"), data);
+            Files.write(input.resolve("small.bin"), new byte[0x180]);
+            
+            arcv.saveFiles(incrementalOutput.toFile(), 2, true);
+            arcv.saveFiles(fullOutput.toFile(), 2, false);
+            assertSameArchive(fullOutput, incrementalOutput);
+            
+            // a second incremental build reuses everything
+            arcv.saveFiles(incrementalOutput.toFile(), 2, true);
+            assertSameArchive(fullOutput, incrementalOutput);
+            
+            assertFalse(Files.exists(fullOutput.resolve("ARCV0.BIN.manifest")));
+        }
+        finally {
+            Files.walkFileTree(input, new DeleteDirectoryFileVisitor());
+            Files.walkFileTree(incrementalOutput, new DeleteDirectoryFileVisitor());
+            Files.walkFileTree(fullOutput, new DeleteDirectoryFileVisitor());
+        }
+    }
+    
+    @Test
+    public void testFailedFileAbortsRebuild() throws IOException {
+        Path input = Files.createTempDirectory("arcvInput");
+        Path output = Files.createTempDirectory("arcvOutput");
+        
+        try {
+            for (int i = 0; i < 8; i++)
+                Files.write(input.resolve(String.format("file%d.bin", i)), new byte[0x2000 + i]);
+            
+            ARCVFile arcv = new ARCVFile(input.toFile());
+            arcv.saveFiles(output.toFile(), 2, true);
+            
+            byte[] archive = Files.readAllBytes(output.resolve("ARCV0.BIN"));
+            byte[] info = Files.readAllBytes(output.resolve("ARCVINFO.BIN"));
+            byte[] manifest = Files.readAllBytes(output.resolve("ARCV0.BIN.manifest"));
+            
+            // a KCAP of an unsupported version can't be loaded
+            ByteBuffer broken = ByteBuffer.allocate(0x40).order(ByteOrder.LITTLE_ENDIAN);
+            broken.putInt(0x5041434B).putInt(2);
+            Files.write(input.resolve("file4.bin"), broken.array());
+            
+            TestUtils.assertException(IOException.class, () -> {
+                arcv.saveFiles(output.toFile(), 2, true);
+                return null;
+            });
+            
+            // the previous build is left untouched
+            assertFalse(Files.exists(output.resolve("ARCV0.BIN.tmp")));
+            assertArrayEquals(archive, Files.readAllBytes(output.resolve("ARCV0.BIN")));
+            assertArrayEquals(info, Files.readAllBytes(output.resolve("ARCVINFO.BIN")));
+            assertArrayEquals(manifest, Files.readAllBytes(output.resolve("ARCV0.BIN.manifest")));
+            
+            Files.delete(input.resolve("file4.bin"));
+            arcv.saveFiles(output.toFile(), 2, true);
+            assertTrue(Files.size(output.resolve("ARCV0.BIN")) < archive.length);
+        }
+        finally {
+            Files.walkFileTree(input, new DeleteDirectoryFileVisitor());
+            Files.walkFileTree(output, new DeleteDirectoryFileVisitor());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package net.digimonworld.decodetools.arcv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.TestUtils;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.DeleteDirectoryFileVisitor;
+
+public class ARCVReaderTests {
+    
+    private static Map<String, byte[]> createInput(Path dir) throws IOException {
+        Map<String, byte[]> files = new HashMap<>();
+        Random random = new Random(1);
+        
+        // small files stay uncompressed, big ones get compressed
+        byte[] smallData = new byte[0x40];
+        random.nextBytes(smallData);
+        files.put("small.bin", smallData);
+        files.put("sub/zeros.bin", new byte[0x8000]);
+        
+        byte[] randomData = new byte[0x3000];
+        random.nextBytes(randomData);
+        files.put("sub/deeper/random.bin", randomData);
+        
+        for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+            Path file = dir.resolve(entry.getKey());
+            Files.createDirectories(file.getParent());
+            Files.write(file, entry.getValue());
+        }
+        
+        return files;
+    }
+    
+    @Test
+    public void testOpen() throws IOException {
+        Path input = Files.createTempDirectory("arcvInput");
+        Path output = Files.createTempDirectory("arcvOutput");
+        
+        try {
+            Map<String, byte[]> files = createInput(input);
+            new ARCVFile(input.toFile()).saveFiles(output.toFile(), 2);
+            
+            try (ARCVReader reader = new ARCVReader(output)) {
+                assertEquals(files.size(), reader.list().size());
+                
+                for (Map.Entry<String, byte[]> entry : files.entrySet()) {
+                    assertTrue(reader.exists(entry.getKey()));
+                    
+                    // the second read is served from the cache
+                    for (int i = 0; i < 2; i++)
+                        try (Access access = reader.open(entry.getKey())) {
+                            assertEquals(entry.getValue().length, access.getSize());
+                            assertArrayEquals(entry.getValue(), access.readByteArray(entry.getValue().length));
+                        }
+                }
+                
+                assertTrue(reader.exists("sub\\zeros.bin"));
+                assertFalse(reader.exists("missing.bin"));
+                TestUtils.assertException(FileNotFoundException.class, () -> reader.open("missing.bin"));
+            }
+        }
+        finally {
+            Files.walkFileTree(input, new DeleteDirectoryFileVisitor());
+            Files.walkFileTree(output, new DeleteDirectoryFileVisitor());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package net.digimonworld.decodetools.core;
+
+import static net.digimonworld.decodetools.TestUtils.assertException;
+import static net.digimonworld.decodetools.TestUtils.createTestData;
+import static net.digimonworld.decodetools.TestUtils.createTestFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class MappedAccessTests {
+    
+    @Test
+    public void testMatchesStreamAccess() throws IOException {
+        byte[] data = createTestData(0x100);
+        
+        // use a tiny chunk size, so that values span multiple chunks
+        try (MappedAccess mapped = new MappedAccess(createTestFile(data), ByteOrder.LITTLE_ENDIAN, 0x10);
+                StreamAccess stream = new StreamAccess(data)) {
+            assertEquals(data.length, mapped.getSize());
+            
+            for (int i = 0; i <= data.length - 8; i++) {
+                assertEquals(stream.readByte(i), mapped.readByte(i));
+                assertEquals(stream.readShort(i), mapped.readShort(i));
+                assertEquals(stream.readInteger(i), mapped.readInteger(i));
+                assertEquals(stream.readLong(i), mapped.readLong(i));
+                assertEquals(stream.readFloat(i), mapped.readFloat(i), 0.0f);
+            }
+            
+            assertArrayEquals(Arrays.copyOfRange(data, 0x0E, 0x44), mapped.readByteArray(0x36, 0x0E));
+        }
+    }
+    
+    @Test
+    public void testBulkReads() throws IOException {
+        byte[] data = createTestData(0x40);
+        
+        try (MappedAccess mapped = new MappedAccess(createTestFile(data), ByteOrder.BIG_ENDIAN, 0x10);
+                StreamAccess stream = new StreamAccess(ByteBuffer.wrap(data), ByteOrder.BIG_ENDIAN)) {
+            // within a chunk and spanning multiple chunks
+            for (long address : new long[] { 0x02, 0x0C }) {
+                for (int i = 0; i < 4; i++) {
+                    assertEquals(stream.readShort(address + i * 2), mapped.readShortArray(4, address)[i]);
+                    assertEquals(stream.readInteger(address + i * 4), mapped.readIntegerArray(4, address)[i]);
+                    assertEquals(stream.readFloat(address + i * 4), mapped.readFloatArray(4, address)[i], 0.0f);
+                }
+                
+                assertEquals(stream.readInteger(address), mapped.asByteBuffer(address, 8).getInt());
+                assertArrayEquals(stream.readFloatArray(4, address), mapped.readFloatArray(4, address), 0.0f);
+            }
+            
+            mapped.setPosition(0x0E);
+            mapped.readIntegerArray(3);
+            assertEquals(0x1A, mapped.getPosition());
+        }
+    }
+    
+    @Test
+    public void testBulkWrites() {
+        float[] floats = { 1.0f, -2.5f, 3.25f };
+        int[] ints = { 1, -2, 0x12345678 };
+        
+        try (StreamAccess stream = new StreamAccess(new byte[0x20])) {
+            stream.writeFloatArray(floats);
+            stream.writeIntegerArray(ints, 0x10);
+            assertEquals(0x0C, stream.getPosition());
+            
+            assertEquals(-2.5f, stream.readFloat(0x04), 0.0f);
+            assertArrayEquals(floats, stream.readFloatArray(3, 0x00), 0.0f);
+            assertArrayEquals(ints, stream.readIntegerArray(3, 0x10));
+        }
+    }
+    
+    @Test
+    public void testPosition() throws IOException {
+        byte[] data = createTestData(0x40);
+        
+        try (MappedAccess mapped = new MappedAccess(createTestFile(data), ByteOrder.BIG_ENDIAN, 0x10)) {
+            mapped.setPosition(0x0E);
+            assertEquals(ByteBuffer.wrap(data, 0x0E, 4).getInt(), mapped.readInteger());
+            assertEquals(0x12, mapped.getPosition());
+            
+            mapped.readByteArray(0x10);
+            assertEquals(0x22, mapped.getPosition());
+            
+            assertEquals(data[0x01], mapped.readByteOffset(-0x21));
+            assertEquals(0x22, mapped.getPosition());
+        }
+    }
+    
+    @Test
+    public void testDuplicate() throws IOException {
+        byte[] data = createTestData(0x40);
+        
+        try (MappedAccess mapped = new MappedAccess(createTestFile(data), ByteOrder.BIG_ENDIAN, 0x10)) {
+            mapped.setPosition(0x0E);
+            assertTrue(mapped.canDuplicate());
+            
+            // both have their own position
+            MappedAccess copy = mapped.duplicate();
+            assertEquals(0x0E, copy.getPosition());
+            assertEquals(ByteBuffer.wrap(data, 0x0E, 4).getInt(), copy.readInteger());
+            assertEquals(0x0E, mapped.getPosition());
+            
+            mapped.readLong();
+            assertEquals(0x16, mapped.getPosition());
+            assertEquals(0x12, copy.getPosition());
+            assertEquals(ByteBuffer.wrap(data, 0x12, 4).getInt(), copy.readInteger());
+        }
+    }
+    
+    @Test
+    public void testReadOnly() throws IOException {
+        try (MappedAccess mapped = new MappedAccess(createTestFile(createTestData(0x10)))) {
+            assertException(UnsupportedOperationException.class, () -> {
+                mapped.writeInteger(1, 0);
+                return null;
+            });
+            assertException(UnsupportedOperationException.class, () -> {
+                mapped.writeByteArray(new byte[4]);
+                return null;
+            });
+        }
+    }
+    
+    @Test
+    public void testClose() throws IOException {
+        byte[] data = createTestData(0x40);
+        File file = createTestFile(data);
+        
+        MappedAccess mapped = new MappedAccess(file, ByteOrder.BIG_ENDIAN, 0x10);
+        MappedAccess copy = mapped.duplicate();
+        
+        // closing a duplicate doesn't release the mapping
+        copy.close();
+        assertEquals(ByteBuffer.wrap(data, 0x0E, 4).getInt(), mapped.readInteger(0x0E));
+        
+        mapped.close();
+        mapped.close();
+        assertException(IllegalStateException.class, () -> mapped.readInteger(0x00));
+        assertException(IllegalStateException.class, () -> mapped.readInteger(0x0E));
+        assertException(IllegalStateException.class, () -> copy.readByteArray(0x10, 0x00));
+        
+        // the file is no longer in use and can be replaced
+        Files.write(file.toPath(), new byte[0x10]);
+        assertTrue(file.delete());
+    }
+    
+    @Test
+    public void testEmptyFile() throws IOException {
+        try (MappedAccess mapped = new MappedAccess(createTestFile(new byte[0]))) {
+            assertEquals(0, mapped.getSize());
+            assertEquals(0, mapped.readByteArray(0).length);
+        }
+    }
+}
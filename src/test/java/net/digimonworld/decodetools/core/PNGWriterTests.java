@@ -0,0 +1,35 @@
+package net.digimonworld.decodetools.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class PNGWriterTests {
+    
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(4);
+        
+        for (int[] size : new int[][] { { 1, 1 }, { 7, 3 }, { 64, 32 } }) {
+            BufferedImage image = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+            for (int x = 0; x < size[0]; x++)
+                for (int y = 0; y < size[1]; y++)
+                    image.setRGB(x, y, random.nextInt());
+            
+            BufferedImage read = ImageIO.read(new ByteArrayInputStream(PNGWriter.encode(image)));
+            
+            assertEquals(size[0], read.getWidth());
+            assertEquals(size[1], read.getHeight());
+            assertArrayEquals(image.getRGB(0, 0, size[0], size[1], null, 0, size[0]),
+                              read.getRGB(0, 0, size[0], size[1], null, 0, size[0]));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package net.digimonworld.decodetools.core;
+
+import static net.digimonworld.decodetools.TestUtils.createTestFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+public class PagedFileAccessTests {
+    
+    /*
+     * Performs the same operations on the given Access, mixing relative and absolute reads and writes across multiple
+     * pages.
+     */
+    private static void writeTestData(Access access) {
+        for (int i = 0; i < 0x20; i++)
+            access.writeInteger(i * 0x01010101);
+        
+        access.writeLong(0x1122334455667788L, 0x0E);
+        access.setPosition(0x64);
+        access.writeShort((short) 0x1234);
+        access.writeFloatArray(new float[] { 1.0f, 2.0f, 3.0f }, 0x3F);
+        access.setPosition(0x18);
+        access.writeByteArray(new byte[] { 1, 2, 3 });
+    }
+    
+    @Test
+    public void testMatchesFileAccess() throws IOException {
+        File expectedFile = createTestFile(new byte[0x08]);
+        File actualFile = createTestFile(new byte[0x08]);
+        
+        try (FileAccess expected = new FileAccess(expectedFile);
+                PagedFileAccess actual = new PagedFileAccess(actualFile, ByteOrder.LITTLE_ENDIAN, false, 0x10, 2)) {
+            writeTestData(expected);
+            writeTestData(actual);
+            
+            assertEquals(expected.getSize(), actual.getSize());
+            assertEquals(expected.getPosition(), actual.getPosition());
+            
+            for (int i = 0; i < expected.getSize() - 4; i++)
+                assertEquals(expected.readInteger(i), actual.readInteger(i));
+        }
+        
+        assertArrayEquals(Files.readAllBytes(expectedFile.toPath()), Files.readAllBytes(actualFile.toPath()));
+    }
+    
+    @Test
+    public void testReadAhead() throws IOException {
+        byte[] data = new byte[0x100];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (i * 3);
+        
+        try (PagedFileAccess access = new PagedFileAccess(createTestFile(data), ByteOrder.BIG_ENDIAN, true, 0x10, 3)) {
+            for (int i = 0; i < data.length; i++)
+                assertEquals(data[i], access.readByte());
+            
+            assertEquals(data.length, access.getPosition());
+            assertArrayEquals(data, access.readByteArray(data.length, 0));
+        }
+    }
+    
+    @Test
+    public void testExtendFile() throws IOException {
+        File file = createTestFile(new byte[0]);
+        
+        try (PagedFileAccess access = new PagedFileAccess(file)) {
+            access.setPosition(0x20010);
+            access.writeInteger(-1);
+            
+            assertEquals(0x20014, access.getSize());
+            assertEquals(0, access.readInteger(0x10000));
+        }
+        
+        assertEquals(0x20014, file.length());
+    }
+}
@@ -0,0 +1,157 @@
+package net.digimonworld.decodetools.core;
+
+import static net.digimonworld.decodetools.TestUtils.assertException;
+import static net.digimonworld.decodetools.TestUtils.createTestData;
+import static net.digimonworld.decodetools.TestUtils.createTestFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class SliceAccessTests {
+    
+    /*
+     * Checks that the given slice of the test data behaves like an Access over just the sliced range.
+     */
+    private static void assertSlice(byte[] data, Access source) {
+        Access slice = source.slice(0x0E, 0x20);
+        ByteBuffer expected = ByteBuffer.wrap(data, 0x0E, 0x20).slice().order(ByteOrder.LITTLE_ENDIAN);
+        
+        assertEquals(0x20, slice.getSize());
+        assertEquals(0, slice.getPosition());
+        
+        for (int i = 0; i <= 0x20 - 8; i++) {
+            assertEquals(expected.get(i), slice.readByte(i));
+            assertEquals(expected.getShort(i), slice.readShort(i));
+            assertEquals(expected.getInt(i), slice.readInteger(i));
+            assertEquals(expected.getLong(i), slice.readLong(i));
+        }
+        
+        assertEquals(expected.getInt(0), slice.readInteger());
+        assertEquals(expected.getLong(4), slice.readLong());
+        assertEquals(0x0C, slice.getPosition());
+        assertArrayEquals(Arrays.copyOfRange(data, 0x1A, 0x22), slice.readByteArray(8));
+        assertArrayEquals(new int[] { expected.getInt(0x10), expected.getInt(0x14) }, slice.readIntegerArray(2, 0x10));
+        
+        // the source is unaffected, slices of slices are relative to their slice
+        assertEquals(0, source.getPosition());
+        assertEquals(expected.getShort(0x12), slice.slice(0x10, 0x08).readShort(0x02));
+        
+        assertException(IndexOutOfBoundsException.class, () -> source.slice(0x30, 0x20));
+        assertException(IndexOutOfBoundsException.class, () -> slice.slice(0x10, 0x11));
+    }
+    
+    @Test
+    public void testSlice() throws IOException {
+        byte[] data = createTestData(0x40);
+        File file = createTestFile(data);
+        
+        try (Access stream = new StreamAccess(data);
+                Access mapped = new MappedAccess(file, ByteOrder.LITTLE_ENDIAN, 0x10);
+                Access fileAccess = new FileAccess(file, true);
+                Access paged = new PagedFileAccess(file, ByteOrder.LITTLE_ENDIAN, true, 0x10, 2)) {
+            assertSlice(data, stream);
+            assertSlice(data, mapped);
+            assertSlice(data, fileAccess);
+            assertSlice(data, paged);
+        }
+    }
+    
+    @Test
+    public void testSliceBounds() throws IOException {
+        byte[] data = createTestData(0x40);
+        
+        try (Access access = new FileAccess(createTestFile(data), true)) {
+            Access slice = access.slice(0x30, 0x08);
+            
+            // like a file, reading beyond the end only returns what's left
+            assertArrayEquals(Arrays.copyOf(Arrays.copyOfRange(data, 0x34, 0x38), 8), slice.readByteArray(8, 0x04));
+            assertArrayEquals(new byte[4], slice.readByteArray(4, 0x08));
+            assertException(IndexOutOfBoundsException.class, () -> slice.asByteBuffer(0x04, 0x08));
+        }
+    }
+    
+    @Test
+    public void testSliceWrite() throws IOException {
+        File file = createTestFile(new byte[0x20]);
+        
+        try (Access access = new FileAccess(file)) {
+            Access slice = access.slice(0x10, 0x08);
+            slice.writeInteger(0x12345678);
+            slice.writeShort((short) 0x1234, 0x06);
+            
+            assertEquals(0x04, slice.getPosition());
+            assertEquals(0x12345678, access.readInteger(0x10));
+            assertEquals(0x1234, access.readShort(0x16));
+            assertException(IndexOutOfBoundsException.class, () -> {
+                slice.writeInteger(0, 0x06);
+                return null;
+            });
+        }
+    }
+    
+    @Test
+    public void testDuplicate() throws IOException {
+        File file = createTestFile(createTestData(0x40));
+        
+        try (FileAccess access = new FileAccess(file, true);
+                PagedFileAccess paged = new PagedFileAccess(file, true);
+                PagedFileAccess writable = new PagedFileAccess(file, false)) {
+            access.setPosition(0x10);
+            
+            FileAccess copy = access.duplicate();
+            assertEquals(access.readInteger(), copy.readInteger());
+            assertEquals(0x14, copy.getPosition());
+            copy.readLong();
+            assertEquals(0x14, access.getPosition());
+            
+            // closing a duplicate keeps the original open
+            copy.close();
+            assertEquals(access.readInteger(0x20), paged.duplicate().readInteger(0x20));
+            
+            assertTrue(paged.canDuplicate());
+            assertFalse(writable.canDuplicate());
+            assertException(UnsupportedOperationException.class, writable::duplicate);
+        }
+    }
+    
+    @Test
+    public void testConcurrentDuplicates() throws Exception {
+        byte[] data = createTestData(0x10000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        
+        try (Access access = new FileAccess(createTestFile(data), true)) {
+            List<Future<byte[]>> results = new ArrayList<>();
+            
+            for (int i = 0; i < 8; i++)
+                results.add(executor.submit(() -> {
+                    Access copy = access.duplicate();
+                    byte[] read = new byte[data.length];
+                    
+                    for (int j = 0; j < read.length; j += 4)
+                        ByteBuffer.wrap(read, j, 4).order(ByteOrder.LITTLE_ENDIAN).putInt(copy.readInteger());
+                    
+                    return read;
+                }));
+            
+            for (Future<byte[]> result : results)
+                assertArrayEquals(data, result.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
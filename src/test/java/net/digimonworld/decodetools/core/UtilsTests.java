@@ -3,6 +3,7 @@ package net.digimonworld.decodetools.core;
 import static net.digimonworld.decodetools.TestUtils.assertException;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
@@ -16,6 +17,10 @@ import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.imageio.ImageIO;
 
@@ -180,6 +185,29 @@ public class UtilsTests {
         assertException(IllegalArgumentException.class, () -> Utils.mirrorImageVertical(null));
     }
     
+    @Test
+    public void testTile() {
+        int width = 16;
+        int height = 8;
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] = i;
+        
+        int[] flipped = pixels.clone();
+        Utils.flipRows(width, height, flipped);
+        assertEquals(pixels[(height - 1) * width + 3], flipped[3]);
+        
+        // tiling with a flip equals flipping first and then tiling without one
+        int[] tiled = new int[pixels.length];
+        Utils.tile(width, height, flipped, tiled, false);
+        assertTrue(Arrays.equals(Utils.tile(width, height, pixels), tiled));
+        
+        int[] untiled = new int[pixels.length];
+        Utils.untile(width, height, tiled, untiled, false);
+        assertTrue(Arrays.equals(flipped, untiled));
+        assertTrue(Arrays.equals(pixels, Utils.untile((short) width, (short) height, tiled)));
+    }
+    
     //FIXME the order is not guaranteed, check if it's necessary and act accordingly
     @Test
     public void testListFiles() throws IOException {
@@ -226,6 +254,52 @@ public class UtilsTests {
         assertEquals(0b111111, m.invoke(null, 0xFFFFFFFF, 0xFFFFFFFF));
     }
     
+    @Test
+    public void testHash() {
+        byte[] bytes = new byte[13];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) (i * 31);
+        
+        assertEquals(Utils.hash(13, bytes), Utils.hash(13, bytes.clone()));
+        assertNotEquals(Utils.hash(13, bytes), Utils.hash(14, bytes));
+        
+        // both the 8 byte steps and the remaining bytes matter
+        for (int i : new int[] { 3, 12 }) {
+            byte[] changed = bytes.clone();
+            changed[i] ^= 1;
+            assertNotEquals(Utils.hash(13, bytes), Utils.hash(13, changed));
+        }
+        
+        int[] ints = { 1, 2, 0xFFFFFFFF };
+        assertEquals(Utils.hash(3, ints), Utils.hash(3, ints.clone()));
+        assertNotEquals(Utils.hash(3, ints), Utils.hash(3, new int[] { 1, 2, 0x7FFFFFFF }));
+    }
+    
+    @Test
+    public void testAwaitTerminationUninterruptibly() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        
+        executor.execute(() -> {
+            started.countDown();
+            // busy, like an Inflater that doesn't react to interrupts
+            long end = System.nanoTime() + 200000000L;
+            while (System.nanoTime() < end)
+                Thread.onSpinWait();
+            finished.set(true);
+        });
+        
+        started.await();
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+        Utils.awaitTerminationUninterruptibly(executor);
+        
+        assertTrue(finished.get());
+        assertTrue(executor.isTerminated());
+        assertTrue(Thread.interrupted());
+    }
+    
     /*
      * TODO public static int[] untile(short width, short height, int[] pixelData) {
      * TODO public static int[] tile(int width, int height, int[] pixelData) {
@@ -0,0 +1,106 @@
+package net.digimonworld.decodetools.export.texture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.DeleteDirectoryFileVisitor;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.core.Utils;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAPTests;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload.TextureWrap;
+
+public class TextureBatchTests {
+    
+    private static List<GMIOPayload> readTextures(Path file) throws IOException {
+        try (Access access = new StreamAccess(Files.readAllBytes(file))) {
+            return ResPayload.craft(access).getElementsWithType(Payload.GMIO).stream().map(GMIOPayload.class::cast)
+                             .collect(Collectors.toList());
+        }
+    }
+    
+    private static int[] getPixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+    
+    private static List<String> listFiles(Path dir) {
+        return Utils.listFiles(dir.toFile()).stream().map(a -> dir.relativize(a.toPath()).toString().replace(File.separatorChar, '/'))
+                    .sorted().collect(Collectors.toList());
+    }
+    
+    @Test
+    public void testExportImport() throws IOException {
+        Path resDir = Files.createTempDirectory("textureRes");
+        Path textureDir = Files.createTempDirectory("textureExport");
+        Path outputDir = Files.createTempDirectory("textureImport");
+        
+        try {
+            Files.createDirectories(resDir.resolve("sub"));
+            Files.copy(AbstractKCAPTests.createTestFile().toPath(), resDir.resolve("a.res"));
+            Files.copy(AbstractKCAPTests.createTestFile().toPath(), resDir.resolve("sub/b.res"));
+            
+            TextureBatch.exportTextures(resDir.toFile(), textureDir.toFile(), 2);
+            assertEquals(16, TextureManifest.load(textureDir.resolve(TextureManifest.FILE_NAME)).getEntries().size());
+            assertTrue(Files.exists(textureDir.resolve("sub/b/007_texture2.png")));
+            
+            // nothing changed, so nothing gets written
+            TextureBatch.importTextures(textureDir.toFile(), resDir.toFile(), outputDir.toFile(), 2);
+            assertTrue(listFiles(outputDir).isEmpty());
+            
+            // an edited PNG in one file and an edited setting in the other
+            BufferedImage edited = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+            edited.setRGB(3, 4, 0xFF123456);
+            ImageIO.write(edited, "PNG", textureDir.resolve("a/002_texture2.png").toFile());
+            
+            Path manifestFile = textureDir.resolve(TextureManifest.FILE_NAME);
+            List<String> lines = Files.readAllLines(manifestFile, StandardCharsets.UTF_8).stream().map(a -> {
+                String[] columns = a.split("\t");
+                if (!columns[0].equals("sub/b/006_texture1.png"))
+                    return a;
+                
+                columns[4] = TextureWrap.MIRRORED_REPEAT.name();
+                return String.join("\t", columns);
+            }).collect(Collectors.toList());
+            Files.write(manifestFile, lines, StandardCharsets.UTF_8);
+            
+            TextureBatch.importTextures(textureDir.toFile(), resDir.toFile(), outputDir.toFile(), 2);
+            assertEquals(List.of("a.res", "sub/b.res"), listFiles(outputDir));
+            
+            List<GMIOPayload> originalTextures = readTextures(resDir.resolve("a.res"));
+            List<GMIOPayload> importedA = readTextures(outputDir.resolve("a.res"));
+            List<GMIOPayload> importedB = readTextures(outputDir.resolve("sub/b.res"));
+            
+            for (int i = 0; i < originalTextures.size(); i++) {
+                BufferedImage expected = i == 2 ? edited : originalTextures.get(i).getImage();
+                TextureWrap expectedWrap = i == 6 ? TextureWrap.MIRRORED_REPEAT : originalTextures.get(i).getWrapS();
+                
+                assertArrayEquals(getPixels(expected), getPixels(importedA.get(i).getImage()));
+                assertArrayEquals(getPixels(originalTextures.get(i).getImage()), getPixels(importedB.get(i).getImage()));
+                assertEquals(originalTextures.get(i).getWrapS(), importedA.get(i).getWrapS());
+                assertEquals(expectedWrap, importedB.get(i).getWrapS());
+            }
+        }
+        finally {
+            Files.walkFileTree(resDir, new DeleteDirectoryFileVisitor());
+            Files.walkFileTree(textureDir, new DeleteDirectoryFileVisitor());
+            Files.walkFileTree(outputDir, new DeleteDirectoryFileVisitor());
+        }
+    }
+}
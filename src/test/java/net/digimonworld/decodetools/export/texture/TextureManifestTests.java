@@ -0,0 +1,56 @@
+package net.digimonworld.decodetools.export.texture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.PixelFormat;
+import net.digimonworld.decodetools.export.texture.TextureManifest.Entry;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload.TextureWrap;
+
+public class TextureManifestTests {
+    
+    @Test
+    public void testSaveLoad() throws IOException {
+        GMIOPayload gmio = new GMIOPayload(null);
+        gmio.setFormat(PixelFormat.ETC1A4);
+        gmio.setWrapT(TextureWrap.MIRRORED_REPEAT);
+        gmio.setUVWidth(0.75f);
+        
+        TextureManifest manifest = new TextureManifest();
+        manifest.add(new Entry("b/001_GMIO.png", "b.res", 1, gmio, 0xFEDCBA98L));
+        manifest.add(new Entry("a/000_$phong.png", "a.res", 0, new GMIOPayload(null), 0));
+        
+        Path file = Files.createTempFile("manifest", ".tsv");
+        try {
+            manifest.save(file);
+            TextureManifest loaded = TextureManifest.load(file);
+            
+            assertEquals(2, loaded.getEntries().size());
+            assertEquals("a.res", loaded.getEntries().get(0).getRes());
+            
+            Entry entry = loaded.getEntries().get(1);
+            assertEquals("b/001_GMIO.png", entry.getImage());
+            assertEquals(1, entry.getIndex());
+            assertEquals(0xFEDCBA98L, entry.getCRC());
+            
+            // the settings are restored, and unchanged settings are reported as such
+            GMIOPayload target = new GMIOPayload(null);
+            assertTrue(entry.apply(target));
+            assertEquals(PixelFormat.ETC1A4, target.getFormat());
+            assertEquals(TextureWrap.MIRRORED_REPEAT, target.getWrapT());
+            assertEquals(0.75, target.getUVWidth(), 0);
+            assertFalse(entry.apply(target));
+        }
+        finally {
+            Files.delete(file);
+        }
+    }
+}
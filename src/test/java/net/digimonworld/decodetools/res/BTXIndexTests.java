@@ -0,0 +1,147 @@
+package net.digimonworld.decodetools.res;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.res.BTXIndex.Match;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+import net.digimonworld.decodetools.res.payload.BTXPayload.BTXEntry;
+
+public class BTXIndexTests {
+    private static final String[] FILES = { "LanguageKeep_jp.res", "btxSpeakers.res", "btxNoSpeakers.res" };
+    
+    private static Path createTestDirectory() throws IOException {
+        Path dir = Files.createTempDirectory("btxIndex");
+        dir.toFile().deleteOnExit();
+        
+        for (String name : FILES)
+            try (InputStream in = BTXIndexTests.class.getResourceAsStream("/" + name)) {
+                Files.copy(in, dir.resolve(name));
+                dir.resolve(name).toFile().deleteOnExit();
+            }
+        
+        return dir;
+    }
+    
+    /*
+     * Finds all strings containing the query by going through every BTX, like the index should.
+     */
+    private static List<String> scan(Path dir, String query) throws IOException {
+        List<String> result = new ArrayList<>();
+        
+        for (String name : FILES)
+            try (Access access = new MappedAccess(dir.resolve(name).toFile())) {
+                List<ResPayload> btx = ResPayload.craft(access).getElementsWithType(Payload.BTX);
+                
+                for (int i = 0; i < btx.size(); i++)
+                    for (int j = 0; j < ((BTXPayload) btx.get(i)).getEntries().size(); j++) {
+                        String string = ((BTXPayload) btx.get(i)).getEntries().get(j).getValue().getString();
+                        if (string.contains(query))
+                            result.add(name + " " + i + " " + j + " " + string);
+                    }
+            }
+        
+        result.sort(null);
+        return result;
+    }
+    
+    private static List<String> find(BTXIndex index, String query) {
+        return index.find(query).stream().map(a -> a.getPath() + " " + a.getBTX() + " " + a.getEntry() + " " + a.getString())
+                    .sorted().collect(Collectors.toList());
+    }
+    
+    @Test
+    public void testFind() throws IOException {
+        Path dir = createTestDirectory();
+        BTXIndex index = new BTXIndex();
+        
+        assertTrue(index.update(dir, 2));
+        assertEquals(FILES.length, index.getFileCount());
+        
+        for (String query : new String[] { "", "a", "the", "デジモン", "\n", "doesNotExist" })
+            assertEquals(query, scan(dir, query), find(index, query));
+        
+        assertFalse(index.find("デジモン").isEmpty());
+    }
+    
+    @Test
+    public void testSaveLoad() throws IOException {
+        Path dir = createTestDirectory();
+        Path file = Files.createTempFile("btxIndex", ".tsv");
+        file.toFile().deleteOnExit();
+        
+        BTXIndex index = new BTXIndex();
+        index.update(dir, 1);
+        index.save(file);
+        
+        BTXIndex loaded = BTXIndex.load(file);
+        assertEquals(find(index, ""), find(loaded, ""));
+        
+        // nothing changed, so nothing gets read again
+        assertFalse(loaded.update(dir, 1));
+        
+        Files.delete(dir.resolve(FILES[1]));
+        assertTrue(loaded.update(dir, 1));
+        assertEquals(FILES.length - 1, loaded.getFileCount());
+    }
+    
+    @Test
+    public void testPut() throws IOException {
+        Path dir = createTestDirectory();
+        BTXIndex index = new BTXIndex();
+        index.update(dir, 1);
+        
+        File file = dir.resolve(FILES[0]).toFile();
+        ResPayload payload;
+        try (Access access = new MappedAccess(file)) {
+            payload = ResPayload.craft(access);
+        }
+        
+        BTXEntry entry = ((BTXPayload) payload.getElementsWithType(Payload.BTX).get(1)).getEntries().get(2).getValue();
+        entry.setString("replaced string");
+        index.put(FILES[0], payload);
+        
+        List<Match> matches = index.find("replaced string");
+        assertEquals(1, matches.size());
+        assertEquals(1, matches.get(0).getBTX());
+        assertEquals(2, matches.get(0).getEntry());
+        
+        // modified strings get replaced by the ones on disk with the next update
+        assertTrue(index.update(dir, 1));
+        assertTrue(index.find("replaced string").isEmpty());
+    }
+    
+    @Test
+    public void testUnreadableFile() throws IOException {
+        Path dir = createTestDirectory();
+        Path broken = dir.resolve("broken.res");
+        Files.write(broken, new byte[] { 'K', 'C', 'A', 'P', 1, 2 });
+        broken.toFile().deleteOnExit();
+        
+        BTXIndex index = new BTXIndex();
+        assertTrue(index.update(dir, 1));
+        assertEquals(FILES.length + 1, index.getFileCount());
+        
+        // files that couldn't be read are tried again, even though they didn't change
+        assertTrue(index.update(dir, 1));
+        
+        Files.delete(broken);
+        assertTrue(index.update(dir, 1));
+        assertFalse(index.update(dir, 1));
+    }
+}
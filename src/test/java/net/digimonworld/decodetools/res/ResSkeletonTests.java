@@ -0,0 +1,121 @@
+package net.digimonworld.decodetools.res;
+
+import static net.digimonworld.decodetools.TestUtils.assertException;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.ResSkeleton.Element;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAP.KCAPType;
+import net.digimonworld.decodetools.res.kcap.AbstractKCAPTests;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+
+public class ResSkeletonTests {
+    
+    private static byte[] loadResource(String name) throws IOException {
+        try (InputStream in = ResSkeletonTests.class.getResourceAsStream(name)) {
+            return in.readAllBytes();
+        }
+    }
+    
+    @Test
+    public void testSkeleton() throws IOException {
+        for (String name : new String[] { "/LanguageKeep_jp.res", "/btxSpeakers.res", "/btxNoSpeakers.res" }) {
+            try (Access access = new StreamAccess(loadResource(name))) {
+                ResSkeleton skeleton = ResSkeleton.read(access);
+                assertEquals(0, access.getPosition());
+                
+                ResPayload payload = ResPayload.craft(access);
+                for (Payload type : Payload.values()) {
+                    assertEquals(name + " " + type, payload.getElementsWithType(type).size(), skeleton.getElementsWithType(type).size());
+                    assertEquals(!payload.getElementsWithType(type).isEmpty(), skeleton.contains(type));
+                }
+                
+                if (payload instanceof AbstractKCAP)
+                    assertEquals(((AbstractKCAP) payload).getKCAPType(), skeleton.getRoot().getKCAPType());
+            }
+        }
+    }
+    
+    @Test
+    public void testTypedKCAPs() throws IOException {
+        // a KCAP with GMIP children, whose header is bigger than that of a normal KCAP
+        try (Access access = new StreamAccess(Files.readAllBytes(AbstractKCAPTests.createTestFile().toPath()))) {
+            ResSkeleton skeleton = ResSkeleton.read(access);
+            ResPayload payload = ResPayload.craft(access);
+            
+            for (Payload type : Payload.values())
+                assertEquals(type.name(), payload.getElementsWithType(type).size(), skeleton.getElementsWithType(type).size());
+            
+            List<KCAPType> kcapTypes = payload.getElementsWithType(Payload.KCAP).stream()
+                                              .map(a -> ((AbstractKCAP) a).getKCAPType()).collect(Collectors.toList());
+            assertEquals(kcapTypes, skeleton.getElementsWithType(Payload.KCAP).stream().map(Element::getKCAPType)
+                                            .collect(Collectors.toList()));
+            assertEquals(2, skeleton.getElementsWithType(KCAPType.GMIP).size());
+            
+            List<ResPayload> expected = payload.getElementsWithType(Payload.GMIO);
+            List<Element> elements = skeleton.getElementsWithType(Payload.GMIO);
+            assertEquals(8, elements.size());
+            
+            for (int i = 0; i < elements.size(); i++) {
+                assertEquals(KCAPType.GMIP, elements.get(i).getParent().getKCAPType());
+                
+                GMIOPayload gmio = (GMIOPayload) skeleton.craft(access, elements.get(i));
+                BufferedImage expectedImage = ((GMIOPayload) expected.get(i)).getImage();
+                BufferedImage image = gmio.getImage();
+                
+                assertArrayEquals(expectedImage.getRGB(0, 0, 32, 32, null, 0, 32), image.getRGB(0, 0, 32, 32, null, 0, 32));
+            }
+        }
+    }
+    
+    @Test
+    public void testCraftElement() throws IOException {
+        try (Access access = new StreamAccess(loadResource("/LanguageKeep_jp.res"))) {
+            ResSkeleton skeleton = ResSkeleton.read(access);
+            List<ResPayload> expected = ResPayload.craft(access).getElementsWithType(Payload.BTX);
+            List<Element> elements = skeleton.getElementsWithType(Payload.BTX);
+            
+            assertFalse(elements.isEmpty());
+            for (int i = 0; i < elements.size(); i++) {
+                BTXPayload btx = (BTXPayload) skeleton.craft(access, elements.get(i));
+                
+                assertEquals(expected.get(i).getSize(), btx.getSize());
+                assertEquals(((BTXPayload) expected.get(i)).getEntries().size(), btx.getEntries().size());
+                assertEquals(Payload.KCAP, elements.get(i).getParent().getType());
+            }
+        }
+    }
+    
+    @Test
+    public void testInvalidFile() {
+        byte[] data = new byte[0x40];
+        data[0] = 'K';
+        data[1] = 'C';
+        data[2] = 'A';
+        data[3] = 'P';
+        data[4] = 1;
+        data[0x10] = 1; // one entry
+        data[0x18] = 0x20; // header size
+        data[0x20] = 0x3C; // pointer beyond the end of the file
+        data[0x24] = 0x20;
+        
+        assertException(IllegalArgumentException.class, () -> ResSkeleton.read(new StreamAccess(data)));
+        data[0x20] = 0; // pointer to itself
+        assertException(IllegalArgumentException.class, () -> ResSkeleton.read(new StreamAccess(data)));
+    }
+}
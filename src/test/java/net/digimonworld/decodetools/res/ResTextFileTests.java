@@ -0,0 +1,137 @@
+package net.digimonworld.decodetools.res;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.PixelFormat;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.core.Tuple;
+import net.digimonworld.decodetools.res.kcap.GMIPKCAP;
+import net.digimonworld.decodetools.res.kcap.NormalKCAP;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+import net.digimonworld.decodetools.res.payload.BTXPayload.BTXEntry;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+import net.digimonworld.decodetools.res.payload.VoidPayload;
+
+public class ResTextFileTests {
+    
+    private static File createTestFile(String name) throws IOException {
+        File file = File.createTempFile("resText", ".res");
+        file.deleteOnExit();
+        
+        try (InputStream in = ResTextFileTests.class.getResourceAsStream(name)) {
+            Files.write(file.toPath(), in.readAllBytes());
+        }
+        
+        return file;
+    }
+    
+    private static BTXPayload createBTX(String... strings) {
+        BTXPayload btx = new BTXPayload(null);
+        for (int i = 0; i < strings.length; i++)
+            btx.getEntries().add(new Tuple<>(i, new BTXEntry(strings[i], null)));
+        return btx;
+    }
+    
+    /*
+     * Creates a file with textures around the BTX, so it has res data and entries that need to be moved.
+     */
+    private static File createMixedFile() throws IOException {
+        GMIOPayload gmio = new GMIOPayload(null);
+        gmio.setFormat(PixelFormat.RGBA8);
+        gmio.setImage(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB));
+        GMIPKCAP gmip = new GMIPKCAP(null, new ArrayList<>(Arrays.asList(gmio)));
+        
+        BTXPayload nested = createBTX("nested", "strings");
+        NormalKCAP inner = new NormalKCAP(null, Arrays.asList(nested, new VoidPayload(null)), false, false);
+        
+        List<ResPayload> entries = Arrays.asList(createBTX("first", "second", "third"), gmip, inner, createBTX("last"));
+        NormalKCAP root = new NormalKCAP(null, entries, true, false);
+        entries.forEach(a -> a.setParent(root));
+        inner.getEntries().forEach(a -> a.setParent(inner));
+        gmio.setParent(gmip);
+        
+        File file = createOutputFile();
+        root.repack(file);
+        return file;
+    }
+    
+    private static File createOutputFile() throws IOException {
+        File file = File.createTempFile("resText", ".res");
+        file.deleteOnExit();
+        return file;
+    }
+    
+    /*
+     * Changes some strings to be longer and shorter, so the following entries have to be moved.
+     */
+    private static void changeStrings(List<BTXPayload> btx) {
+        for (int i = 0; i < btx.size(); i += 2) {
+            BTXEntry first = btx.get(i).getEntries().get(0).getValue();
+            first.setString(first.getString() + (i % 4 == 0 ? "a longer string" : "x"));
+            
+            BTXEntry last = btx.get(i).getEntries().get(btx.get(i).getEntries().size() - 1).getValue();
+            last.setString(last.getString().substring(0, last.getString().length() / 2));
+        }
+    }
+    
+    private static void assertSameAsFullRepack(String name, File file) throws IOException {
+        File expected = createOutputFile();
+        File actual = createOutputFile();
+        
+        ResTextFile full = ResTextFile.load(file, false);
+        ResTextFile textOnly = ResTextFile.load(file, true);
+        assertFalse(full.isTextOnly());
+        assertTrue(textOnly.isTextOnly());
+        assertEquals(full.getBTX().size(), textOnly.getBTX().size());
+        
+        changeStrings(full.getBTX());
+        changeStrings(textOnly.getBTX());
+        full.repack(expected);
+        textOnly.repack(actual);
+        
+        assertArrayEquals(name, Files.readAllBytes(expected.toPath()), Files.readAllBytes(actual.toPath()));
+    }
+    
+    @Test
+    public void testRepack() throws IOException {
+        for (String name : new String[] { "/LanguageKeep_jp.res", "/btxSpeakers.res", "/btxNoSpeakers.res" })
+            assertSameAsFullRepack(name, createTestFile(name));
+        
+        assertSameAsFullRepack("mixed", createMixedFile());
+    }
+    
+    @Test
+    public void testRepackInPlace() throws IOException {
+        File file = createTestFile("/LanguageKeep_jp.res");
+        ResTextFile textOnly = ResTextFile.load(file, true);
+        
+        // writing twice checks that the file is read correctly after it got overwritten
+        for (String suffix : new String[] { "first change", "2" }) {
+            BTXEntry entry = textOnly.getBTX().get(1).getEntries().get(0).getValue();
+            entry.setString(entry.getString() + suffix);
+            textOnly.repack(file);
+        }
+        
+        try (Access access = new MappedAccess(file)) {
+            List<ResPayload> btx = ResPayload.craft(access).getElementsWithType(ResPayload.Payload.BTX);
+            
+            assertEquals(textOnly.getBTX().size(), btx.size());
+            assertTrue(((BTXPayload) btx.get(1)).getEntries().get(0).getValue().getString().endsWith("first change2"));
+        }
+    }
+}
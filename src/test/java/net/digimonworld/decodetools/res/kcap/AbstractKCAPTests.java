@@ -0,0 +1,146 @@
+package net.digimonworld.decodetools.res.kcap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.Main;
+import net.digimonworld.decodetools.PixelFormat;
+import net.digimonworld.decodetools.core.Access;
+import net.digimonworld.decodetools.core.MappedAccess;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.ResPayload;
+import net.digimonworld.decodetools.res.ResPayload.Payload;
+import net.digimonworld.decodetools.res.payload.BTXPayload;
+import net.digimonworld.decodetools.res.payload.GMIOPayload;
+import net.digimonworld.decodetools.res.payload.VoidPayload;
+
+public class AbstractKCAPTests {
+    
+    private static GMIPKCAP createGMIP(Random random, int count) {
+        GMIPKCAP gmip = new GMIPKCAP(null, new ArrayList<>());
+        
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+            for (int x = 0; x < 32; x++)
+                for (int y = 0; y < 32; y++)
+                    image.setRGB(x, y, random.nextInt());
+            
+            GMIOPayload gmio = new GMIOPayload(null);
+            gmio.setFormat(PixelFormat.RGBA8);
+            gmio.setImage(image);
+            gmio.setName("texture" + i);
+            gmip.add(gmio);
+        }
+        
+        return gmip;
+    }
+    
+    /**
+     * Creates a .res file with a KCAP containing two GMIP with 5 and 3 RGBA8 textures named texture0 to texture4 and
+     * texture0 to texture2, followed by a Void entry.
+     * 
+     * @return the created file
+     * @throws IOException if the file can't be written
+     */
+    public static File createTestFile() throws IOException {
+        Random random = new Random(1234);
+        
+        // the trailing Void entry makes sure the position after parallel parsing is that of the last real entry
+        List<ResPayload> entries = Arrays.asList(createGMIP(random, 5), createGMIP(random, 3), new VoidPayload(null));
+        NormalKCAP root = new NormalKCAP(null, entries, true, false);
+        entries.forEach(a -> a.setParent(root));
+        
+        File file = File.createTempFile("kcap", ".res");
+        file.deleteOnExit();
+        root.repack(file);
+        return file;
+    }
+    
+    private static byte[] repack(ResPayload payload) throws IOException {
+        File file = File.createTempFile("kcap", ".res");
+        file.deleteOnExit();
+        payload.repack(file);
+        return Files.readAllBytes(file.toPath());
+    }
+    
+    @Test
+    public void testParallelParsing() throws IOException {
+        File file = createTestFile();
+        byte[] expected = Files.readAllBytes(file.toPath());
+        
+        List<LogRecord> warnings = Collections.synchronizedList(new ArrayList<>());
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getLevel().intValue() >= Level.WARNING.intValue())
+                    warnings.add(record);
+            }
+            
+            @Override
+            public void flush() {
+            }
+            
+            @Override
+            public void close() {
+            }
+        };
+        
+        boolean oldValue = AbstractKCAP.isParallelParsing();
+        Main.LOGGER.addHandler(handler);
+        try {
+            for (boolean parallel : new boolean[] { true, false }) {
+                AbstractKCAP.setParallelParsing(parallel);
+                
+                try (Access access = new MappedAccess(file)) {
+                    ResPayload payload = ResPayload.craft(access);
+                    List<ResPayload> textures = payload.getElementsWithType(Payload.GMIO);
+                    
+                    assertEquals(8, textures.size());
+                    assertEquals("texture4", ((GMIOPayload) textures.get(4)).getName());
+                    assertTrue(((AbstractKCAP) payload).get(2) instanceof VoidPayload);
+                    assertArrayEquals(expected, repack(payload));
+                }
+            }
+        }
+        finally {
+            Main.LOGGER.removeHandler(handler);
+            AbstractKCAP.setParallelParsing(oldValue);
+        }
+        
+        assertTrue(warnings.isEmpty());
+    }
+    
+    @Test
+    public void testBTXFileIds() throws IOException {
+        byte[] data;
+        try (InputStream in = AbstractKCAPTests.class.getResourceAsStream("/LanguageKeep_jp.res")) {
+            data = in.readAllBytes();
+        }
+        
+        // BTX get their id from their position within the parent, even when parallel parsing is enabled
+        try (Access access = new StreamAccess(data)) {
+            List<ResPayload> btx = ResPayload.craft(access).getElementsWithType(Payload.BTX);
+            
+            assertTrue(btx.size() > 1);
+            for (int i = 0; i < btx.size(); i++)
+                assertEquals(i, ((BTXPayload) btx.get(i)).getFileId());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package net.digimonworld.decodetools.res.payload;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.digimonworld.decodetools.PixelFormat;
+import net.digimonworld.decodetools.core.StreamAccess;
+import net.digimonworld.decodetools.res.DummyResData;
+import net.digimonworld.decodetools.res.ResData;
+
+public class GMIOPayloadTest {
+    private static final int HEADER_SIZE = 0x40;
+    
+    /*
+     * Writes the given GMIO with its pixel data directly following the header.
+     */
+    private static byte[] write(GMIOPayload gmio) {
+        byte[] buffer = new byte[0x1000];
+        ResData data = new ResData();
+        
+        try (StreamAccess dest = new StreamAccess(buffer)) {
+            gmio.writeKCAP(dest, data);
+            dest.setPosition(HEADER_SIZE);
+            data.writeTo(dest);
+        }
+        
+        byte[] result = new byte[HEADER_SIZE + data.getSize()];
+        System.arraycopy(buffer, 0, result, 0, result.length);
+        return result;
+    }
+    
+    private static GMIOPayload read(byte[] data) {
+        try (StreamAccess source = new StreamAccess(data)) {
+            return new GMIOPayload(source, HEADER_SIZE, null, HEADER_SIZE, null);
+        }
+    }
+    
+    @Test
+    public void testRawPassThrough() {
+        Random random = new Random(2);
+        BufferedImage image = new BufferedImage(16, 8, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < image.getWidth(); x++)
+            for (int y = 0; y < image.getHeight(); y++)
+                image.setRGB(x, y, random.nextInt());
+        
+        GMIOPayload gmio = new GMIOPayload(null);
+        gmio.setFormat(PixelFormat.ETC1A4);
+        gmio.setImage(image);
+        byte[] written = write(gmio);
+        
+        // an untouched texture gets written back as is, without decoding it
+        GMIOPayload loaded = read(written);
+        assertEquals(16, loaded.getWidth());
+        assertEquals(8, loaded.getHeight());
+        assertArrayEquals(written, write(loaded));
+        
+        // decoding it doesn't change anything either
+        BufferedImage decoded = loaded.getImage();
+        assertEquals(16, decoded.getWidth());
+        assertArrayEquals(written, write(loaded));
+        
+        // changing the format re-encodes the decoded image
+        loaded.setFormat(PixelFormat.RGBA8);
+        GMIOPayload converted = read(write(loaded));
+        assertEquals(PixelFormat.RGBA8, converted.getFormat());
+        assertArrayEquals(decoded.getRGB(0, 0, 16, 8, null, 0, 16), converted.getImage().getRGB(0, 0, 16, 8, null, 0, 16));
+    }
+    
+    @Test
+    public void testSmallETC1() {
+        for (PixelFormat format : new PixelFormat[] { PixelFormat.ETC1, PixelFormat.ETC1A4 })
+            for (int[] size : new int[][] { { 4, 4 }, { 8, 4 }, { 16, 4 }, { 4, 16 } }) {
+                // a solid color per block, which ETC1 reproduces closely
+                BufferedImage image = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+                for (int x = 0; x < size[0]; x++)
+                    for (int y = 0; y < size[1]; y++)
+                        image.setRGB(x, y, 0xFF000000 | (x / 4) * 0x500000 | (y / 4) * 0x005000 | 0x40);
+                
+                GMIOPayload gmio = new GMIOPayload(null);
+                gmio.setFormat(format);
+                gmio.setImage(image);
+                byte[] written = write(gmio);
+                assertEquals(format.getDataSize(size[0], size[1]), written.length - HEADER_SIZE);
+                assertEquals(size[0] * size[1] * format.getBPP() / 8, written.length - HEADER_SIZE);
+                
+                BufferedImage decoded = read(written).getImage();
+                for (int x = 0; x < size[0]; x++)
+                    for (int y = 0; y < size[1]; y++)
+                        for (int shift = 0; shift < 32; shift += 8) {
+                            int expected = image.getRGB(x, y) >>> shift & 0xFF;
+                            int actual = decoded.getRGB(x, y) >>> shift & 0xFF;
+                            assertTrue(format + " " + size[0] + "x" + size[1], Math.abs(expected - actual) <= 16);
+                        }
+            }
+    }
+    
+    @Test
+    public void testContentHash() {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(1, 2, 0xFF123456);
+        
+        GMIOPayload gmio = new GMIOPayload(null);
+        gmio.setFormat(PixelFormat.RGBA8);
+        gmio.setImage(image);
+        byte[] written = write(gmio);
+        
+        GMIOPayload first = read(written);
+        GMIOPayload second = read(written);
+        assertEquals(first.getContentHash(), second.getContentHash());
+        
+        // decoding for a preview doesn't keep the image, so the raw data stays the source of the hash
+        assertEquals(0xFF123456, first.decodeImage().getRGB(1, 2));
+        assertEquals(second.getContentHash(), first.getContentHash());
+        
+        written[HEADER_SIZE + 1] ^= 1;
+        assertNotEquals(first.getContentHash(), read(written).getContentHash());
+        
+        // keeping the decoded image doesn't change the hash either
+        first.getImage();
+        assertEquals(second.getContentHash(), first.getContentHash());
+        
+        second.setFormat(PixelFormat.RGBA4);
+        assertNotEquals(first.getContentHash(), second.getContentHash());
+        
+        // the cached hash gets replaced once the image changes
+        long hash = first.getContentHash();
+        BufferedImage changed = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        first.setImage(changed);
+        assertNotEquals(hash, first.getContentHash());
+        
+        hash = first.getContentHash();
+        changed = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        changed.setRGB(0, 0, 0xFF000001);
+        first.setImage(changed);
+        assertNotEquals(hash, first.getContentHash());
+    }
+    
+    @Test
+    public void testDummyResData() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(3, 5, 0xFF00FF00);
+        
+        for (PixelFormat format : new PixelFormat[] { PixelFormat.RGBA8, PixelFormat.L4, PixelFormat.ETC1A4 }) {
+            GMIOPayload gmio = new GMIOPayload(null);
+            gmio.setFormat(format);
+            gmio.setImage(image);
+            
+            DummyResData dummy = new DummyResData();
+            gmio.fillDummyResData(dummy);
+            
+            assertEquals(write(gmio).length - HEADER_SIZE, dummy.getSize());
+            assertEquals(1, dummy.getDataEntries());
+        }
+    }
+    
+    @Test
+    public void testDummyResDataBlocks() {
+        // the data of block formats isn't simply bits per pixel times pixels for images smaller than a block
+        for (int[] size : new int[][] { { 16, 4 }, { 8, 4 }, { 4, 8 }, { 4, 4 } })
+            for (PixelFormat format : new PixelFormat[] { PixelFormat.ETC1, PixelFormat.ETC1A4 }) {
+                BufferedImage image = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+                image.setRGB(1, 1, 0xFF00FF00);
+                
+                GMIOPayload gmio = new GMIOPayload(null);
+                gmio.setFormat(format);
+                gmio.setImage(image);
+                
+                DummyResData dummy = new DummyResData();
+                gmio.fillDummyResData(dummy);
+                
+                assertEquals(write(gmio).length - HEADER_SIZE, dummy.getSize());
+                assertEquals(1, dummy.getDataEntries());
+            }
+    }
+    
+    @Test
+    public void testDummyResDataDeduplication() {
+        // different images, which are the same once encoded in a format with fewer bits
+        BufferedImage black = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage almostBlack = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < 8; x++)
+            for (int y = 0; y < 8; y++) {
+                black.setRGB(x, y, 0xFF000000);
+                almostBlack.setRGB(x, y, 0xFF010101);
+            }
+        
+        DummyResData dummy = new DummyResData();
+        ResData data = new ResData();
+        
+        try (StreamAccess dest = new StreamAccess(new byte[HEADER_SIZE])) {
+            for (BufferedImage image : new BufferedImage[] { black, almostBlack, black }) {
+                GMIOPayload gmio = new GMIOPayload(null);
+                gmio.setName("texture");
+                gmio.setFormat(PixelFormat.RGBA4);
+                gmio.setImage(image);
+                
+                gmio.fillDummyResData(dummy);
+                dest.setPosition(0);
+                gmio.writeKCAP(dest, data);
+            }
+        }
+        
+        // the layout pass only knows the images, so the written data must be deduplicated the same way
+        assertEquals(2, dummy.getDataEntries());
+        assertEquals(dummy.getDataEntries(), data.getDataEntries());
+        assertEquals(dummy.getSize(), data.getSize());
+    }
+}